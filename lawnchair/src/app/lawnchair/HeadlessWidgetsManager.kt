@@ -1,26 +1,42 @@
 package app.lawnchair
 
 import android.annotation.SuppressLint
+import android.app.PendingIntent
 import android.appwidget.AppWidgetHost
 import android.appwidget.AppWidgetHostView
 import android.appwidget.AppWidgetManager
 import android.appwidget.AppWidgetProviderInfo
 import android.content.Context
 import android.content.Intent
+import android.graphics.Bitmap
+import android.graphics.drawable.BitmapDrawable
+import android.util.Log
+import android.view.View
+import android.widget.FrameLayout
+import android.widget.ImageView
 import android.widget.RemoteViews
+import android.widget.TextView
 import androidx.core.content.edit
+import androidx.core.view.descendants
+import app.lawnchair.util.pendingIntent
+import app.lawnchair.util.uiHelperHandler
 import com.android.launcher3.Utilities
 import com.android.launcher3.util.MainThreadInitializedObject
 import kotlinx.coroutines.CoroutineName
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.MainScope
+import kotlinx.coroutines.android.asCoroutineDispatcher
 import kotlinx.coroutines.channels.awaitClose
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.callbackFlow
 import kotlinx.coroutines.flow.emptyFlow
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.mapLatest
 import kotlinx.coroutines.flow.onStart
 import kotlinx.coroutines.flow.shareIn
 import kotlinx.coroutines.plus
+import kotlinx.coroutines.withContext
 
 class HeadlessWidgetsManager(private val context: Context) {
 
@@ -42,7 +58,7 @@ class HeadlessWidgetsManager(private val context: Context) {
         return widget
     }
 
-    fun subscribeUpdates(info: AppWidgetProviderInfo, prefKey: String): Flow<AppWidgetHostView> {
+    fun subscribeUpdates(info: AppWidgetProviderInfo, prefKey: String): Flow<WidgetSnapshot> {
         val widget = getWidget(info, prefKey)
         if (!widget.isBound) {
             return emptyFlow()
@@ -61,17 +77,71 @@ class HeadlessWidgetsManager(private val context: Context) {
         }
     }
 
+    /**
+     * Never shown, so the remote views are not applied to it on the main thread. Instead they are
+     * read into a [WidgetSnapshot] on a background thread.
+     */
     @SuppressLint("ViewConstructor")
     private class HeadlessAppWidgetHostView(context: Context) :
         AppWidgetHostView(context) {
 
-        var updateCallback: ((view: AppWidgetHostView) -> Unit)? = null
+        var remoteViews: RemoteViews? = null
+            private set
+        var updateCallback: ((remoteViews: RemoteViews) -> Unit)? = null
 
         override fun updateAppWidget(remoteViews: RemoteViews?) {
-            super.updateAppWidget(remoteViews)
+            this.remoteViews = remoteViews ?: return
+            updateCallback?.invoke(remoteViews)
+        }
+    }
+
+    /**
+     * The texts and bitmaps of a widget, in layout order.
+     */
+    class WidgetSnapshot(val texts: List<Text>, val images: List<Bitmap>) {
+
+        class Text(val text: CharSequence, private val ancestorPendingIntents: List<PendingIntent?>) {
+
+            /**
+             * Returns the click intent of the ancestor [level] levels above this text, 1 being
+             * its parent.
+             */
+            fun getAncestorPendingIntent(level: Int) = ancestorPendingIntents.getOrNull(level - 1)
+        }
+    }
 
-            updateCallback?.invoke(this)
+    /**
+     * Applies [remoteViews] to a detached hierarchy, which is dropped once read. Must be called on
+     * a looper thread, as some remote views create handlers.
+     */
+    private fun createSnapshot(remoteViews: RemoteViews): WidgetSnapshot? {
+        val container = FrameLayout(context)
+        try {
+            container.addView(remoteViews.apply(context, container))
+        } catch (e: RuntimeException) {
+            Log.w(TAG, "Couldn't apply the remote views", e)
+            return null
         }
+        val texts = ArrayList<WidgetSnapshot.Text>()
+        val images = ArrayList<Bitmap>()
+        container.descendants.forEach { view ->
+            if (view is TextView && !view.text.isNullOrEmpty()) {
+                texts.add(WidgetSnapshot.Text(view.text, getAncestorPendingIntents(view)))
+            } else if (view is ImageView) {
+                (view.drawable as? BitmapDrawable)?.bitmap?.let(images::add)
+            }
+        }
+        return WidgetSnapshot(texts, images)
+    }
+
+    private fun getAncestorPendingIntents(view: View): List<PendingIntent?> {
+        val intents = ArrayList<PendingIntent?>(MAX_ANCESTOR_LEVEL)
+        var parent = view.parent as? View
+        while (parent != null && intents.size < MAX_ANCESTOR_LEVEL) {
+            intents.add(parent.pendingIntent)
+            parent = parent.parent as? View
+        }
+        return intents
     }
 
     inner class Widget internal constructor(val info: AppWidgetProviderInfo, private val prefKey: String) {
@@ -79,12 +149,15 @@ class HeadlessWidgetsManager(private val context: Context) {
         private var widgetId = prefs.getInt(prefKey, -1)
         val isBound: Boolean
             get() = widgetManager.getAppWidgetInfo(widgetId)?.provider == info.provider
+        @OptIn(ExperimentalCoroutinesApi::class)
         val updates = callbackFlow {
             val view = host.createView(context, widgetId, info) as HeadlessAppWidgetHostView
-            trySend(view)
+            view.remoteViews?.let { trySend(it) }
             view.updateCallback = { trySend(it) }
             awaitClose()
         }
+            .mapLatest { withContext(snapshotDispatcher) { createSnapshot(it) } }
+            .filterNotNull()
             .onStart { if (!isBound) throw WidgetNotBoundException() }
             .shareIn(
                 scope,
@@ -124,5 +197,10 @@ class HeadlessWidgetsManager(private val context: Context) {
     companion object {
 
         val INSTANCE = MainThreadInitializedObject(::HeadlessWidgetsManager)
+
+        private const val TAG = "HeadlessWidgetsManager"
+        private const val MAX_ANCESTOR_LEVEL = 3
+
+        private val snapshotDispatcher = uiHelperHandler.asCoroutineDispatcher("HeadlessWidgetSnapshot")
     }
 }
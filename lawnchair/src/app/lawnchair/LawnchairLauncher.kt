@@ -30,6 +30,7 @@ import androidx.lifecycle.lifecycleScope
 import app.lawnchair.LawnchairApp.Companion.showQuickstepWarningIfNecessary
 import app.lawnchair.compat.LawnchairQuickstepCompat
 import app.lawnchair.factory.LawnchairWidgetHolder
+import app.lawnchair.font.FontManager
 import app.lawnchair.gestures.GestureController
 import app.lawnchair.gestures.VerticalSwipeTouchController
 import app.lawnchair.gestures.config.GestureHandlerConfig
@@ -40,6 +41,7 @@ import app.lawnchair.root.RootHelperManager
 import app.lawnchair.root.RootNotAvailableException
 import app.lawnchair.theme.ThemeProvider
 import app.lawnchair.ui.popup.LawnchairShortcut
+import app.lawnchair.util.ClockTicker
 import app.lawnchair.util.getThemedIconPacksInstalled
 import app.lawnchair.util.unsafeLazy
 import com.android.launcher3.AbstractFloatingView
@@ -110,6 +112,7 @@ class LawnchairLauncher : QuickstepLauncher() {
 
     override fun onCreate(savedInstanceState: Bundle?) {
         layoutInflater.factory2 = LawnchairLayoutFactory(this)
+        FontManager.INSTANCE.get(this).preloadFonts()
         super.onCreate(savedInstanceState)
 
         prefs.launcherTheme.subscribeChanges(this, ::updateTheme)
@@ -311,6 +314,16 @@ class LawnchairLauncher : QuickstepLauncher() {
         return ActivityOptionsWrapper(options, callback)
     }
 
+    override fun onStart() {
+        super.onStart()
+        ClockTicker.INSTANCE.get(this).setLauncherVisible(true)
+    }
+
+    override fun onStop() {
+        super.onStop()
+        ClockTicker.INSTANCE.get(this).setLauncherVisible(false)
+    }
+
     override fun onResume() {
         super.onResume()
         restartIfPending()
@@ -21,6 +21,7 @@ import android.content.Context
 import android.content.res.AssetManager
 import android.graphics.Typeface
 import android.net.Uri
+import android.util.LruCache
 import androidx.annotation.Keep
 import androidx.compose.ui.text.font.Font as ComposeFont
 import androidx.compose.ui.text.font.FontFamily
@@ -40,12 +41,15 @@ import java.io.File
 import kotlin.coroutines.resume
 import kotlin.coroutines.suspendCoroutine
 import kotlinx.coroutines.CoroutineName
+import kotlinx.coroutines.CoroutineStart
 import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.MainScope
 import kotlinx.coroutines.async
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.plus
+import kotlinx.coroutines.withContext
 import org.json.JSONArray
 import org.json.JSONObject
 
@@ -53,7 +57,8 @@ class FontCache private constructor(private val context: Context) {
 
     private val scope = MainScope() + CoroutineName("FontCache")
 
-    private val deferredFonts = mutableMapOf<Font, Deferred<LoadedFont?>>()
+    // Fonts previewed in the font picker are evicted once they haven't been used for a while
+    private val deferredFonts = LruCache<Font, Deferred<LoadedFont?>>(MAX_LOADED_FONTS)
 
     private val cacheDir = context.cacheDir.apply { mkdirs() }
     private val customFontsDir = TTFFont.getFontsDir(context)
@@ -83,16 +88,23 @@ class FontCache private constructor(private val context: Context) {
 
     @OptIn(ExperimentalCoroutinesApi::class)
     fun getLoadedFont(font: Font): LoadedFont? {
-        val deferredFont = deferredFonts[font] ?: return null
+        val deferredFont = deferredFonts.get(font) ?: return null
         if (!deferredFont.isCompleted) return null
         return deferredFont.getCompleted()
     }
 
     private fun loadFontAsync(font: Font): Deferred<LoadedFont?> {
-        return deferredFonts.getOrPut(font) {
-            scope.async {
+        // The lookup and the insertion are done under the cache's lock, so that concurrent calls
+        // for the same font share a single load. Loading only runs until its first suspension
+        // point here, fetched fonts continue on the IO dispatcher.
+        synchronized(deferredFonts) {
+            deferredFonts.get(font)?.let { return it }
+            // Undispatched, so that fonts which don't need to be fetched complete immediately
+            val deferredFont = scope.async(start = CoroutineStart.UNDISPATCHED) {
                 font.load()?.let { LoadedFont(it) }
             }
+            deferredFonts.put(font, deferredFont)
+            return deferredFont
         }
     }
 
@@ -242,8 +254,13 @@ class FontCache private constructor(private val context: Context) {
 
         companion object {
 
+            /**
+             * Returns null if [file] isn't a readable font. Typeface.createFromFile returns
+             * [Typeface.DEFAULT] instead of throwing in that case.
+             */
             fun createTypeface(file: File): Typeface? =
                 runCatching { Typeface.createFromFile(file) }.getOrNull()
+                    ?.takeIf { it !== Typeface.DEFAULT }
 
             fun getFontsDir(context: Context): File {
                 return File(context.filesDir, "customFonts").apply { mkdirs() }
@@ -388,7 +405,47 @@ class FontCache private constructor(private val context: Context) {
                 GoogleFontsListing.buildQuery(family, variant),
                 R.array.com_google_android_gms_fonts_certs,
             )
+            val store = FontStore.INSTANCE.get(context)
+            val key = "$family-$variant"
+
+            return withContext(Dispatchers.IO) {
+                loadFromStore(store, key) ?: fetchToStore(request, store, key)
+            } ?: requestFont(request)
+        }
+
+        /**
+         * Returns the stored font, or null if there is none. A stored file that can't be read,
+         * for example because it was truncated, is deleted so that the font is fetched again.
+         */
+        private fun loadFromStore(store: FontStore, key: String): Typeface? {
+            val file = store.get(key) ?: return null
+            return TTFFont.createTypeface(file) ?: run {
+                store.remove(key)
+                null
+            }
+        }
+
+        /**
+         * Fetches the font file from the provider and keeps it in the [FontStore], so that it
+         * doesn't need to be fetched again after the process restarts.
+         */
+        private fun fetchToStore(request: FontRequest, store: FontStore, key: String): Typeface? {
+            val result = runCatching { FontsContractCompat.fetchFonts(context, null, request) }
+                .getOrNull() ?: return null
+            if (result.statusCode != FontsContractCompat.FontFamilyResult.STATUS_OK) return null
+            val info = result.fonts.firstOrNull {
+                it.resultCode == FontsContractCompat.Columns.RESULT_CODE_OK
+            } ?: return null
+            val file = runCatching {
+                context.contentResolver.openInputStream(info.uri)?.use { store.put(key, it) }
+            }.getOrNull() ?: return null
+            return TTFFont.createTypeface(file) ?: run {
+                store.remove(key)
+                null
+            }
+        }
 
+        private suspend fun requestFont(request: FontRequest): Typeface? {
             return suspendCoroutine {
                 FontsContractCompat.requestFont(
                     context,
@@ -479,6 +536,8 @@ class FontCache private constructor(private val context: Context) {
         @JvmField
         val INSTANCE = MainThreadInitializedObject(::FontCache)
 
+        private const val MAX_LOADED_FONTS = 64
+
         private const val KEY_CLASS_NAME = "className"
         private const val KEY_FAMILY_NAME = "family"
         private const val KEY_STYLE = "style"
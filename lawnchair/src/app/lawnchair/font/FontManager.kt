@@ -13,14 +13,25 @@ import app.lawnchair.util.lookupLifecycleOwner
 import app.lawnchair.util.runOnMainThread
 import com.android.launcher3.R
 import com.android.launcher3.util.MainThreadInitializedObject
+import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.CoroutineName
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.MainScope
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.plus
 
 class FontManager private constructor(private val context: Context) {
 
+    private val scope = MainScope() + CoroutineName("FontManager")
+
     private val fontCache = FontCache.INSTANCE.get(context)
 
     private val specMap = createFontMap()
 
+    // Fonts which finished loading, so that views inflated afterwards get their typeface
+    // synchronously instead of being laid out again once it's loaded
+    private val resolvedFonts = ConcurrentHashMap<FontCache.Font, ResolvedFont>()
+
     private fun createFontMap(): Map<Int, FontSpec> {
         val sansSerif = Typeface.SANS_SERIF
         val sansSerifMedium = Typeface.create("sans-serif-medium", Typeface.NORMAL)
@@ -36,6 +47,26 @@ class FontManager private constructor(private val context: Context) {
         )
     }
 
+    /**
+     * Starts loading the configured fonts, called before the launcher inflates its views.
+     */
+    fun preloadFonts() {
+        specMap.values.forEach { spec ->
+            val font = spec.font
+            if (!resolvedFonts.containsKey(font)) {
+                // Fonts which are already in memory are resolved before this returns
+                scope.launch(start = CoroutineStart.UNDISPATCHED) { resolve(font) }
+            }
+        }
+    }
+
+    private suspend fun resolve(font: FontCache.Font): Typeface? {
+        resolvedFonts[font]?.let { return it.typeface }
+        val typeface = fontCache.getTypeface(font)
+        resolvedFonts[font] = ResolvedFont(typeface)
+        return typeface
+    }
+
     fun overrideFont(textView: TextView, attrs: AttributeSet?) {
         try {
             val context = textView.context
@@ -72,15 +103,23 @@ class FontManager private constructor(private val context: Context) {
     @JvmOverloads
     fun setCustomFont(textView: TextView, @IdRes type: Int, style: Int = -1) {
         val spec = specMap[type] ?: return
+        val font = spec.font.createWithWeight(style)
+        val resolved = resolvedFonts[font]
+        if (resolved != null) {
+            textView.typeface = resolved.typeface ?: spec.fallback
+            return
+        }
         val lifecycleOwner = textView.context.lookupLifecycleOwner()
         lifecycleOwner?.lifecycleScope?.launch {
-            val typeface = fontCache.getTypeface(spec.font.createWithWeight(style)) ?: spec.fallback
+            val typeface = resolve(font) ?: spec.fallback
             runOnMainThread {
                 textView.typeface = typeface
             }
         }
     }
 
+    private class ResolvedFont(val typeface: Typeface?)
+
     class FontSpec(val loader: () -> FontCache.Font, val fallback: Typeface) {
         constructor(pref: BasePreferenceManager.FontPref, fallback: Typeface) : this(pref::get, fallback)
 
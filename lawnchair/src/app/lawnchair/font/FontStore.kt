@@ -0,0 +1,119 @@
+/*
+ *     This file is part of Lawnchair Launcher.
+ *
+ *     Lawnchair Launcher is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Lawnchair Launcher is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Lawnchair Launcher.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package app.lawnchair.font
+
+import android.content.Context
+import android.net.Uri
+import android.util.Log
+import androidx.annotation.WorkerThread
+import com.android.launcher3.util.MainThreadInitializedObject
+import java.io.File
+import java.io.IOException
+import java.io.InputStream
+
+/**
+ * Font files fetched from font providers, kept on disk so that they don't need to be fetched
+ * again after the process restarts. The least recently used files are deleted once the store
+ * grows over [MAX_SIZE_BYTES].
+ */
+class FontStore private constructor(context: Context) {
+
+    private val rootDir = File(context.cacheDir, "fontStore")
+    private val dir = File(rootDir, "v$VERSION")
+    private var initialized = false
+
+    /**
+     * Returns the file stored for [key], or null if it needs to be fetched.
+     */
+    @WorkerThread
+    @Synchronized
+    fun get(key: String): File? {
+        ensureInitialized()
+        val file = getFile(key)
+        if (!file.isFile) return null
+        file.setLastModified(System.currentTimeMillis())
+        return file
+    }
+
+    /**
+     * Stores the font read from [input] for [key], returns null if it couldn't be written.
+     */
+    @WorkerThread
+    @Synchronized
+    fun put(key: String, input: InputStream): File? {
+        ensureInitialized()
+        val file = getFile(key)
+        val tmpFile = File(dir, "${file.name}.tmp")
+        try {
+            tmpFile.outputStream().use { input.copyTo(it) }
+        } catch (e: IOException) {
+            Log.w(TAG, "Couldn't store font $key", e)
+            tmpFile.delete()
+            return null
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete()
+            return null
+        }
+        trim()
+        return file
+    }
+
+    /**
+     * Deletes the file stored for [key], used when it turns out not to be a valid font.
+     */
+    @WorkerThread
+    @Synchronized
+    fun remove(key: String) {
+        ensureInitialized()
+        getFile(key).delete()
+    }
+
+    private fun getFile(key: String) = File(dir, "${Uri.encode(key)}.ttf")
+
+    private fun ensureInitialized() {
+        if (initialized) return
+        initialized = true
+        // Files stored by other versions, and temporary files left by a crash
+        rootDir.listFiles()?.forEach { if (it != dir) it.deleteRecursively() }
+        dir.listFiles()?.forEach { if (it.name.endsWith(".tmp")) it.delete() }
+        dir.mkdirs()
+    }
+
+    private fun trim() {
+        val files = dir.listFiles() ?: return
+        var size = files.sumOf { it.length() }
+        if (size <= MAX_SIZE_BYTES) return
+        // Typefaces created from deleted files stay valid, the files are already mapped
+        files.sortBy { it.lastModified() }
+        for (file in files) {
+            if (size <= MAX_SIZE_BYTES) break
+            size -= file.length()
+            file.delete()
+        }
+    }
+
+    companion object {
+        @JvmField
+        val INSTANCE = MainThreadInitializedObject(::FontStore)
+
+        private const val TAG = "FontStore"
+        private const val VERSION = 1
+        private const val MAX_SIZE_BYTES = 32L * 1024 * 1024
+    }
+}
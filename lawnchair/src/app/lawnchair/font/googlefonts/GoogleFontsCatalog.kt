@@ -0,0 +1,160 @@
+/*
+ *     This file is part of Lawnchair Launcher.
+ *
+ *     Lawnchair Launcher is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Lawnchair Launcher is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Lawnchair Launcher.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package app.lawnchair.font.googlefonts
+
+import android.content.res.AssetManager
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+
+/**
+ * Read-only view of the Google Fonts catalog compiled at build time by `CompileGoogleFontsTask`.
+ *
+ * Families are sorted by name, and each one is stored as the offset of its UTF-8 name and a
+ * bitmask of its variants. A second index sorts the families by ASCII case-insensitive name, which
+ * allows [search] to find prefix matches with a binary search and without decoding any name.
+ */
+class GoogleFontsCatalog private constructor(private val buffer: ByteBuffer) {
+
+    val size: Int
+    private val indexStart: Int
+    private val namesStart: Int
+
+    init {
+        check(buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+            "Unsupported Google Fonts catalog"
+        }
+        size = buffer.getInt(8)
+        indexStart = HEADER_SIZE + size * ENTRY_SIZE
+        namesStart = indexStart + size * 4
+    }
+
+    fun getFamily(index: Int): String {
+        val bytes = ByteArray(nameLength(index))
+        val offset = nameOffset(index)
+        for (i in bytes.indices) {
+            bytes[i] = buffer.get(offset + i)
+        }
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    fun getVariants(index: Int): List<String> {
+        val mask = buffer.getInt(HEADER_SIZE + index * ENTRY_SIZE + 8)
+        return ALL_VARIANTS.filterIndexed { bit, _ -> mask and (1 shl bit) != 0 }
+    }
+
+    /**
+     * Writes the indices of the families whose name contains [query], ignoring the ASCII case,
+     * to [matches] and returns their number. Families starting with [query] come first, in
+     * name order, followed by the other matches.
+     *
+     * @param matches Must have room for [size] indices
+     */
+    fun search(query: String, matches: IntArray): Int {
+        if (query.isEmpty()) {
+            for (i in 0 until size) matches[i] = i
+            return size
+        }
+        var count = 0
+
+        // Binary search for the first name which is not lower than the query
+        var low = 0
+        var high = size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (comparePrefix(indexAt(mid), query) < 0) low = mid + 1 else high = mid
+        }
+        while (low < size && comparePrefix(indexAt(low), query) == 0) {
+            matches[count++] = indexAt(low++)
+        }
+
+        for (i in 0 until size) {
+            if (comparePrefix(i, query) != 0 && contains(i, query)) {
+                matches[count++] = i
+            }
+        }
+        return count
+    }
+
+    private fun indexAt(position: Int) = buffer.getInt(indexStart + position * 4)
+
+    private fun nameOffset(index: Int) = namesStart + buffer.getInt(HEADER_SIZE + index * ENTRY_SIZE)
+
+    private fun nameLength(index: Int) = buffer.getInt(HEADER_SIZE + index * ENTRY_SIZE + 4)
+
+    /**
+     * Compares the first characters of the name of [index] with [query], returns 0 if the name
+     * starts with the query.
+     */
+    private fun comparePrefix(index: Int, query: String): Int {
+        val offset = nameOffset(index)
+        val length = nameLength(index)
+        for (i in query.indices) {
+            if (i == length) return -1
+            val c = fold(buffer.get(offset + i).toInt() and 0xff) - fold(query[i].code)
+            if (c != 0) return c
+        }
+        return 0
+    }
+
+    private fun contains(index: Int, query: String): Boolean {
+        val offset = nameOffset(index)
+        val last = nameLength(index) - query.length
+        for (start in 1..last) {
+            var i = 0
+            while (i < query.length && fold(buffer.get(offset + start + i).toInt() and 0xff) == fold(query[i].code)) {
+                i++
+            }
+            if (i == query.length) return true
+        }
+        return false
+    }
+
+    companion object {
+
+        private const val FILE_NAME = "google_fonts.dat"
+        private const val MAGIC = 0x47464e54 // GFNT
+        private const val VERSION = 1
+        private const val HEADER_SIZE = 16
+        private const val ENTRY_SIZE = 12
+
+        // Indexed by the variant bit: (weight / 100 - 1) * 2, plus one for italic
+        private val ALL_VARIANTS = (100..900 step 100).flatMap { weight ->
+            if (weight == 400) {
+                listOf("regular", "italic")
+            } else {
+                listOf("$weight", "${weight}italic")
+            }
+        }
+
+        private fun fold(c: Int) = if (c in 'A'.code..'Z'.code) c + 32 else c
+
+        fun load(assets: AssetManager): GoogleFontsCatalog {
+            val buffer = try {
+                val fd = assets.openFd(FILE_NAME)
+                fd.createInputStream().use {
+                    it.channel.map(FileChannel.MapMode.READ_ONLY, fd.startOffset, fd.declaredLength)
+                }
+            } catch (e: IOException) {
+                // Compressed assets can't be mapped
+                ByteBuffer.wrap(assets.open(FILE_NAME).use { it.readBytes() })
+            }
+            return GoogleFontsCatalog(buffer)
+        }
+    }
+}
@@ -18,26 +18,28 @@
 package app.lawnchair.font.googlefonts
 
 import android.content.Context
-import android.content.res.Resources
 import app.lawnchair.preferences2.PreferenceManager2
-import app.lawnchair.util.toArrayList
 import com.android.launcher3.util.MainThreadInitializedObject
 import kotlinx.coroutines.CoroutineName
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.async
 import kotlinx.coroutines.flow.first
-import org.json.JSONObject
 
 class GoogleFontsListing private constructor(private val context: Context) {
     private val scope = CoroutineScope(CoroutineName("GoogleFontsListing"))
 
-    private val dataProvider = MockDataProvider(context.resources)
     private val fonts by lazy { scope.async(Dispatchers.IO) { loadFontListing() } }
 
-    private suspend fun loadFontListing(): List<GoogleFontInfo> {
-        val json = dataProvider.getFontListing()
-        return parseFontListing(json)
+    private suspend fun loadFontListing(): FontListing {
+        val catalog = GoogleFontsCatalog.load(context.assets)
+        val catalogFonts = Array(catalog.size) {
+            GoogleFontInfo(catalog.getFamily(it), catalog.getVariants(it))
+        }
+        val additionalFonts = getAdditionalFonts().map {
+            GoogleFontInfo(it, listOf("regular", "italic", "500", "500italic", "700", "700italic"))
+        }
+        return FontListing(catalog, catalogFonts, additionalFonts)
     }
 
     private suspend fun getAdditionalFonts(): List<String> {
@@ -47,36 +49,36 @@ class GoogleFontsListing private constructor(private val context: Context) {
         return listOf("Inter") + userFonts
     }
 
-    private suspend fun parseFontListing(json: JSONObject): List<GoogleFontInfo> {
-        val fonts = ArrayList<GoogleFontInfo>()
-        val items = json.getJSONArray(KEY_ITEMS)
-        for (i in (0 until items.length())) {
-            val font = items.getJSONObject(i)
-            val family = font.getString(KEY_FAMILY)
-            val variants = font.getJSONArray(KEY_VARIANTS).toArrayList<String>()
-            fonts.add(GoogleFontInfo(family, variants))
-        }
-        getAdditionalFonts().forEach {
-            fonts.add(GoogleFontInfo(it, listOf("regular", "italic", "500", "500italic", "700", "700italic")))
-        }
-        fonts.sort()
-        return fonts
-    }
-
     suspend fun getFonts(): List<GoogleFontInfo> {
-        return fonts.await()
+        return fonts.await().all
     }
 
-    sealed interface DataProvider {
-
-        fun getFontListing(): JSONObject
+    /**
+     * Returns the fonts whose family contains [query], ignoring the case, with the families
+     * starting with it first.
+     */
+    suspend fun search(query: String): List<GoogleFontInfo> {
+        return fonts.await().search(query)
     }
 
-    class MockDataProvider(private val res: Resources) : DataProvider {
-
-        override fun getFontListing(): JSONObject {
-            val json = res.assets.open("google_fonts.json").bufferedReader().use { it.readText() }
-            return JSONObject(json)
+    private class FontListing(
+        private val catalog: GoogleFontsCatalog,
+        private val catalogFonts: Array<GoogleFontInfo>,
+        private val additionalFonts: List<GoogleFontInfo>,
+    ) {
+        val all = (catalogFonts.asList() + additionalFonts).sorted()
+
+        private val matches = IntArray(catalog.size)
+
+        @Synchronized
+        fun search(query: String): List<GoogleFontInfo> {
+            val count = catalog.search(query, matches)
+            val result = ArrayList<GoogleFontInfo>(count)
+            for (i in 0 until count) {
+                result.add(catalogFonts[matches[i]])
+            }
+            additionalFonts.filterTo(result) { it.family.contains(query, ignoreCase = true) }
+            return result
         }
     }
 
@@ -92,10 +94,6 @@ class GoogleFontsListing private constructor(private val context: Context) {
         @JvmField
         val INSTANCE = MainThreadInitializedObject(::GoogleFontsListing)
 
-        private const val KEY_ITEMS = "items"
-        private const val KEY_FAMILY = "family"
-        private const val KEY_VARIANTS = "variants"
-
         fun getWeight(variant: String): String {
             if (variant == "italic") return "400"
             return variant.replace("italic", "").replace("regular", "400")
@@ -9,9 +9,6 @@ import android.content.Intent.ACTION_DATE_CHANGED
 import android.content.Intent.ACTION_PACKAGE_ADDED
 import android.content.Intent.ACTION_PACKAGE_CHANGED
 import android.content.Intent.ACTION_PACKAGE_REMOVED
-import android.content.Intent.ACTION_TIMEZONE_CHANGED
-import android.content.Intent.ACTION_TIME_CHANGED
-import android.content.Intent.ACTION_TIME_TICK
 import android.content.IntentFilter
 import android.content.pm.ActivityInfo
 import android.content.pm.LauncherActivityInfo
@@ -27,6 +24,7 @@ import android.util.Log
 import androidx.core.content.getSystemService
 import app.lawnchair.data.iconoverride.IconOverrideRepository
 import app.lawnchair.preferences.PreferenceManager
+import app.lawnchair.util.ClockTicker
 import app.lawnchair.util.Constants.LAWNICONS_PACKAGE_NAME
 import app.lawnchair.util.MultiSafeCloseable
 import app.lawnchair.util.getPackageVersionCode
@@ -294,36 +292,36 @@ class LawnchairIconProvider @JvmOverloads constructor(
 
     private class CalendarAndClockChangeReceiver(
         private val context: Context,
-        handler: Handler,
+        private val handler: Handler,
         private val iconPack: IconPack,
         private val callback: IconChangeListener,
     ) : BroadcastReceiver(), SafeCloseable {
 
+        // Clocks are only redrawn while the launcher is visible, and once when it becomes visible
+        private val clockSubscription = ClockTicker.INSTANCE.get(context).addLauncherListener { _, _ ->
+            handler.post { onClockTick() }
+        }
+
         init {
-            val filter = IntentFilter(ACTION_TIMEZONE_CHANGED)
-            filter.addAction(ACTION_TIME_TICK)
-            filter.addAction(ACTION_TIME_CHANGED)
-            filter.addAction(ACTION_DATE_CHANGED)
-            context.registerReceiver(this, filter, null, handler)
+            context.registerReceiver(this, IntentFilter(ACTION_DATE_CHANGED), null, handler)
         }
 
-        override fun onReceive(context: Context, intent: Intent) {
-            when (intent.action) {
-                ACTION_TIMEZONE_CHANGED, ACTION_TIME_CHANGED, ACTION_TIME_TICK -> {
-                    context.getSystemService<UserManager>()?.userProfiles?.forEach { user ->
-                        iconPack.getClocks().forEach { componentName ->
-                            callback.onAppIconChanged(
-                                componentName.packageName,
-                                user,
-                            )
-                        }
-                    }
+        private fun onClockTick() {
+            context.getSystemService<UserManager>()?.userProfiles?.forEach { user ->
+                iconPack.getClocks().forEach { componentName ->
+                    callback.onAppIconChanged(
+                        componentName.packageName,
+                        user,
+                    )
                 }
-                ACTION_DATE_CHANGED -> {
-                    context.getSystemService<UserManager>()?.userProfiles?.forEach { user ->
-                        iconPack.getCalendars().forEach { componentName ->
-                            callback.onAppIconChanged(componentName.packageName, user)
-                        }
+            }
+        }
+
+        override fun onReceive(context: Context, intent: Intent) {
+            if (intent.action == ACTION_DATE_CHANGED) {
+                context.getSystemService<UserManager>()?.userProfiles?.forEach { user ->
+                    iconPack.getCalendars().forEach { componentName ->
+                        callback.onAppIconChanged(componentName.packageName, user)
                     }
                 }
             }
@@ -331,6 +329,7 @@ class LawnchairIconProvider @JvmOverloads constructor(
 
         override fun close() {
             context.unregisterReceiver(this)
+            clockSubscription.close()
         }
     }
 
@@ -88,7 +88,6 @@ class BcSmartspaceCard @JvmOverloads constructor(
                 iconView.text = baseAction.subtitle
                 iconView.setCompoundDrawablesRelative(icon, null, null, null)
                 iconView.isVisible = true
-                BcSmartSpaceUtil.setOnClickListener(iconView, baseAction, null, "BcSmartspaceCard")
                 setFormattedContentDescription(iconView, baseAction.subtitle, baseAction.contentDescription)
             } else {
                 iconView.isInvisible = true
@@ -97,6 +96,26 @@ class BcSmartspaceCard @JvmOverloads constructor(
             }
         }
 
+        bindClickListeners(target)
+    }
+
+    /**
+     * Replaces the target by one with the same content. Only the click listeners are bound again,
+     * as the intents and callbacks of the actions can be new instances.
+     */
+    fun updateSmartspaceTarget(target: SmartspaceTarget) {
+        this.target = target
+        bindClickListeners(target)
+    }
+
+    private fun bindClickListeners(target: SmartspaceTarget) {
+        val headerAction = target.headerAction
+        val baseAction = target.baseAction
+        val iconView = baseActionIconSubtitleView
+        if (baseAction != null && iconView != null && iconView.isVisible) {
+            BcSmartSpaceUtil.setOnClickListener(iconView, baseAction, null, "BcSmartspaceCard")
+        }
+
         dateView?.let {
             val calendarAction = SmartspaceAction(
                 id = headerAction?.id ?: baseAction?.id ?: UUID.randomUUID().toString(),
@@ -115,7 +115,7 @@ class BcSmartspaceView @JvmOverloads constructor(
         }
 
         val oldCard = adapter.getCardAtPosition(currentItem)
-        adapter.setTargets(sortedTargets)
+        if (!adapter.setTargets(sortedTargets)) return
         val count = adapter.count
         if (isRtl) {
             viewPager.setCurrentItem((count - index).coerceIn(0 until count), false)
@@ -7,6 +7,7 @@ import android.view.View
 import android.view.ViewGroup
 import androidx.viewpager.widget.PagerAdapter
 import app.lawnchair.smartspace.model.SmartspaceTarget
+import app.lawnchair.smartspace.model.contentEquals
 import com.android.launcher3.R
 import com.android.launcher3.util.Themes
 
@@ -17,10 +18,23 @@ class CardPagerAdapter(context: Context) : PagerAdapter() {
     private var smartspaceTargets = targets
     private val holders = SparseArray<ViewHolder>()
 
-    fun setTargets(newTargets: List<SmartspaceTarget>) {
+    /**
+     * Returns false if [newTargets] show the same content as the current targets, in which case
+     * the cards are kept and only get the new click handlers.
+     */
+    fun setTargets(newTargets: List<SmartspaceTarget>): Boolean {
+        val sameContent = targets.contentEquals(newTargets)
         targets.clear()
         targets.addAll(newTargets)
+        if (sameContent) {
+            for (i in 0 until holders.size()) {
+                val holder = holders.valueAt(i)
+                getTargetAtPosition(holder.position)?.let { updateTarget(holder, it) }
+            }
+            return false
+        }
         notifyDataSetChanged()
+        return true
     }
 
     override fun instantiateItem(container: ViewGroup, position: Int): ViewHolder {
@@ -49,6 +63,10 @@ class CardPagerAdapter(context: Context) : PagerAdapter() {
         if (viewHolder.target === target) {
             return POSITION_UNCHANGED
         }
+        if (target != null && viewHolder.target.contentEquals(target)) {
+            updateTarget(viewHolder, target)
+            return POSITION_UNCHANGED
+        }
         if (target == null ||
             getFeatureType(target) !== getFeatureType(viewHolder.target) ||
             target.id != viewHolder.target.id
@@ -74,6 +92,12 @@ class CardPagerAdapter(context: Context) : PagerAdapter() {
         card.setPrimaryTextColor(currentTextColor)
     }
 
+    private fun updateTarget(viewHolder: ViewHolder, target: SmartspaceTarget) {
+        if (viewHolder.target === target) return
+        viewHolder.target = target
+        viewHolder.card.updateSmartspaceTarget(target)
+    }
+
     override fun getCount() = smartspaceTargets.size
 
     override fun isViewFromObject(view: View, obj: Any): Boolean {
@@ -2,9 +2,13 @@ package app.lawnchair.smartspace
 
 import android.content.Context
 import android.graphics.Canvas
+import android.graphics.drawable.Drawable
 import android.util.AttributeSet
 import app.lawnchair.views.CustomTextView
+import com.android.launcher3.Utilities
 import com.android.launcher3.views.DoubleShadowBubbleTextView.ShadowInfo
+import com.android.launcher3.views.DoubleShadowRenderCache
+import java.util.function.Consumer
 
 open class DoubleShadowTextView @JvmOverloads constructor(
     context: Context,
@@ -13,6 +17,11 @@ open class DoubleShadowTextView @JvmOverloads constructor(
 
     private val shadowInfo = ShadowInfo(context, attrs, 0)
 
+    // Null below Q, and while the super constructor runs
+    private val renderCache: DoubleShadowRenderCache? =
+        if (Utilities.ATLEAST_Q) DoubleShadowRenderCache(this, shadowInfo) else null
+    private val shadowedTextDrawer = Consumer<Canvas> { drawShadowedText(it) }
+
     init {
         setShadowLayer(shadowInfo.ambientShadowBlur, 0f, 0f, shadowInfo.ambientShadowColor)
     }
@@ -24,6 +33,15 @@ open class DoubleShadowTextView @JvmOverloads constructor(
             return
         }
 
+        val renderCache = renderCache
+        if (renderCache != null) {
+            renderCache.draw(canvas, shadowedTextDrawer)
+        } else {
+            drawShadowedText(canvas)
+        }
+    }
+
+    private fun drawShadowedText(canvas: Canvas) {
         // We enhance the shadow by drawing the shadow twice
         paint.setShadowLayer(shadowInfo.ambientShadowBlur, 0f, 0f, shadowInfo.ambientShadowColor)
 
@@ -45,4 +63,24 @@ open class DoubleShadowTextView @JvmOverloads constructor(
         super.onDraw(canvas)
         canvas.restore()
     }
+
+    override fun invalidateDrawable(drawable: Drawable) {
+        super.invalidateDrawable(drawable)
+        renderCache?.invalidate()
+    }
+
+    override fun setCompoundDrawables(left: Drawable?, top: Drawable?, right: Drawable?, bottom: Drawable?) {
+        super.setCompoundDrawables(left, top, right, bottom)
+        renderCache?.invalidate()
+    }
+
+    override fun setCompoundDrawablesRelative(start: Drawable?, top: Drawable?, end: Drawable?, bottom: Drawable?) {
+        super.setCompoundDrawablesRelative(start, top, end, bottom)
+        renderCache?.invalidate()
+    }
+
+    override fun onDetachedFromWindow() {
+        super.onDetachedFromWindow()
+        renderCache?.release()
+    }
 }
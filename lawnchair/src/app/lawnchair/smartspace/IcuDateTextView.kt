@@ -1,26 +1,22 @@
 package app.lawnchair.smartspace
 
 import android.content.Context
-import android.content.Intent
-import android.content.IntentFilter
 import android.icu.text.DateFormat
 import android.icu.text.DisplayContext
-import android.os.SystemClock
 import android.text.format.DateFormat.is24HourFormat
 import android.util.AttributeSet
 import app.lawnchair.preferences2.PreferenceManager2
 import app.lawnchair.smartspace.model.SmartspaceCalendar
 import app.lawnchair.smartspace.model.SmartspaceTimeFormat
-import app.lawnchair.util.broadcastReceiverFlow
+import app.lawnchair.util.ClockTicker
 import app.lawnchair.util.repeatOnAttached
 import app.lawnchair.util.subscribeBlocking
 import com.android.launcher3.R
+import com.android.launcher3.util.SafeCloseable
 import com.patrykmichalik.opto.core.firstBlocking
 import java.util.Locale
 import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.flowOf
-import kotlinx.coroutines.flow.launchIn
-import kotlinx.coroutines.flow.onEach
 import saman.zamani.persiandate.PersianDate
 import saman.zamani.persiandate.PersianDateFormat
 
@@ -35,7 +31,10 @@ class IcuDateTextView @JvmOverloads constructor(
     private var calendar: SmartspaceCalendar? = null
     private lateinit var dateTimeOptions: DateTimeOptions
     private var formatterFunction: FormatterFunction? = null
-    private val ticker = this::onTimeTick
+    private var formatterPattern = ""
+    private val clockTicker = ClockTicker.INSTANCE.get(context)
+    private val tickListener = ClockTicker.Listener { _, timeChanged -> onTimeChanged(timeChanged) }
+    private var tickSubscription: SafeCloseable? = null
 
     init {
         repeatOnAttached {
@@ -53,13 +52,6 @@ class IcuDateTextView @JvmOverloads constructor(
                     dateTimeOptions = it.second
                     onTimeChanged(true)
                 }
-
-            val intentFilter = IntentFilter()
-            intentFilter.addAction(Intent.ACTION_TIME_CHANGED)
-            intentFilter.addAction(Intent.ACTION_TIMEZONE_CHANGED)
-            broadcastReceiverFlow(context, intentFilter)
-                .onEach { onTimeChanged(it.action != Intent.ACTION_TIME_TICK) }
-                .launchIn(this)
         }
     }
 
@@ -86,7 +78,7 @@ class IcuDateTextView @JvmOverloads constructor(
 
     private fun getTimeText(updateFormatter: Boolean): String {
         val formatter = getFormatterFunction(updateFormatter)
-        return formatter(System.currentTimeMillis())
+        return clockTicker.format(formatterPattern, Locale.getDefault(), System.currentTimeMillis(), formatter)
     }
 
     private fun getFormatterFunction(updateFormatter: Boolean): FormatterFunction {
@@ -117,6 +109,7 @@ class IcuDateTextView @JvmOverloads constructor(
             format = context.getString(R.string.smartspace_icu_date_pattern_persian_wday_month_day_no_year)
         }
         val formatter = PersianDateFormat(format, PersianDateFormat.PersianDateNumberCharacter.FARSI)
+        formatterPattern = "persian:$format"
         return { formatter.format(PersianDate(it)) }
     }
 
@@ -137,20 +130,20 @@ class IcuDateTextView @JvmOverloads constructor(
         }
         val formatter = DateFormat.getInstanceForSkeleton(format, Locale.getDefault())
         formatter.setContext(DisplayContext.CAPITALIZATION_FOR_STANDALONE)
+        formatterPattern = "gregorian:$format"
         return { formatter.format(it) }
     }
 
-    private fun onTimeTick() {
-        onTimeChanged(false)
-        val uptimeMillis: Long = SystemClock.uptimeMillis()
-        handler?.postAtTime(ticker, uptimeMillis + (1000 - uptimeMillis % 1000))
-    }
-
     override fun onVisibilityAggregated(isVisible: Boolean) {
         super.onVisibilityAggregated(isVisible)
-        handler?.removeCallbacks(ticker)
+        tickSubscription?.close()
+        tickSubscription = null
         if (isVisible) {
-            ticker()
+            // The time is only shown to the minute, there is no need to tick more often
+            tickSubscription = clockTicker.addListener(tickListener)
+            if (::dateTimeOptions.isInitialized) {
+                onTimeChanged(false)
+            }
         }
     }
 }
@@ -4,6 +4,9 @@ import android.app.PendingIntent
 import android.content.Intent
 import android.graphics.drawable.Icon
 import android.os.Bundle
+import android.text.TextUtils
+import com.android.launcher3.Utilities
+import java.util.Objects
 
 data class SmartspaceAction(
     val id: String,
@@ -18,3 +21,58 @@ data class SmartspaceAction(
 )
 
 val SmartspaceAction?.hasIntent get() = this != null && (intent != null || pendingIntent != null || onClick != null)
+
+/**
+ * Whether both actions show the same content and do the same thing when clicked. Unlike [equals],
+ * icons, intents and extras are compared by content, as providers create new ones for each update.
+ */
+fun SmartspaceAction?.contentEquals(other: SmartspaceAction?): Boolean {
+    if (this === other) return true
+    if (this == null || other == null) return false
+    return id == other.id &&
+        TextUtils.equals(title, other.title) &&
+        TextUtils.equals(subtitle, other.subtitle) &&
+        TextUtils.equals(contentDescription, other.contentDescription) &&
+        icon.contentEquals(other.icon) &&
+        pendingIntent == other.pendingIntent &&
+        intent.contentEquals(other.intent) &&
+        extras.contentEquals(other.extras) &&
+        // A new callback can act on a different object, so it is not considered the same content
+        onClick === other.onClick
+}
+
+/**
+ * Bitmap and data icons are only equal to themselves, providers reuse them while the image is
+ * unchanged.
+ */
+private fun Icon?.contentEquals(other: Icon?): Boolean {
+    if (this === other) return true
+    if (this == null || other == null || !Utilities.ATLEAST_P || type != other.type) return false
+    return when (type) {
+        Icon.TYPE_RESOURCE -> resId == other.resId && resPackage == other.resPackage
+        Icon.TYPE_URI, Icon.TYPE_URI_ADAPTIVE_BITMAP -> uri == other.uri
+        else -> false
+    }
+}
+
+private fun Intent?.contentEquals(other: Intent?): Boolean {
+    if (this === other) return true
+    if (this == null || other == null) return false
+    return filterEquals(other) && extras.contentEquals(other.extras)
+}
+
+@Suppress("DEPRECATION")
+private fun Bundle?.contentEquals(other: Bundle?): Boolean {
+    if (this === other) return true
+    if (this == null || other == null) return (this?.isEmpty ?: true) && (other?.isEmpty ?: true)
+    if (keySet() != other.keySet()) return false
+    return keySet().all { key ->
+        val value = get(key)
+        val otherValue = other.get(key)
+        when {
+            value is Bundle && otherValue is Bundle -> value.contentEquals(otherValue)
+            value is Intent && otherValue is Intent -> value.contentEquals(otherValue)
+            else -> Objects.deepEquals(value, otherValue)
+        }
+    }
+}
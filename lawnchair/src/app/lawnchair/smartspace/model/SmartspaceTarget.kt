@@ -35,3 +35,22 @@ data class SmartspaceTarget(
         FEATURE_UPCOMING_ALARM,
     }
 }
+
+/**
+ * Whether both targets show the same content, see [SmartspaceAction.contentEquals].
+ */
+fun SmartspaceTarget?.contentEquals(other: SmartspaceTarget?): Boolean {
+    if (this === other) return true
+    if (this == null || other == null) return false
+    return id == other.id &&
+        score == other.score &&
+        featureType == other.featureType &&
+        headerAction.contentEquals(other.headerAction) &&
+        baseAction.contentEquals(other.baseAction)
+}
+
+fun List<SmartspaceTarget>.contentEquals(other: List<SmartspaceTarget>): Boolean {
+    if (this === other) return true
+    if (size != other.size) return false
+    return indices.all { this[it].contentEquals(other[it]) }
+}
@@ -21,7 +21,11 @@ class BatteryStatusProvider(context: Context) : SmartspaceDataSource(
     { smartspaceBatteryStatus },
 ) {
     private val batteryManager = context.getSystemService<BatteryManager>()
+    private val chargingIcon = Icon.createWithResource(context, R.drawable.ic_charging)
+    private val batteryLowIcon = Icon.createWithResource(context, R.drawable.ic_battery_low)
 
+    // Unchanged targets, such as the ones of voltage or temperature changes, are dropped by the
+    // data source
     override val internalTargets = broadcastReceiverFlow(context, IntentFilter(Intent.ACTION_BATTERY_CHANGED))
         .map { intent ->
             val status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, -1)
@@ -58,12 +62,11 @@ class BatteryStatusProvider(context: Context) : SmartspaceDataSource(
         } else {
             context.getString(R.string.n_percent, level)
         }
-        val iconResId = if (charging) R.drawable.ic_charging else R.drawable.ic_battery_low
         return SmartspaceTarget(
             id = "batteryStatus",
             headerAction = SmartspaceAction(
                 id = "batteryStatusAction",
-                icon = Icon.createWithResource(context, iconResId),
+                icon = if (charging) chargingIcon else batteryLowIcon,
                 title = title,
                 subtitle = subtitle,
             ),
@@ -5,6 +5,8 @@ import android.content.Context
 import android.util.Log
 import app.lawnchair.preferences2.PreferenceManager2
 import app.lawnchair.smartspace.model.SmartspaceTarget
+import app.lawnchair.smartspace.model.contentEquals
+import app.lawnchair.util.throttleLatest
 import com.patrykmichalik.opto.domain.Preference
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
@@ -32,6 +34,8 @@ sealed class SmartspaceDataSource(
         .onStart {
             if (requiresSetup()) throw RequiresSetupException()
         }
+        .distinctUntilChanged { old, new -> old.contentEquals(new) }
+        .throttleLatest(UPDATE_INTERVAL_MS)
         .map { State(targets = it) }
         .catch {
             if (it is RequiresSetupException) {
@@ -86,5 +90,14 @@ sealed class SmartspaceDataSource(
                 requiresSetup = this.requiresSetup + other.requiresSetup,
             )
         }
+
+        fun contentEquals(other: State): Boolean {
+            return requiresSetup == other.requiresSetup && targets.contentEquals(other.targets)
+        }
+    }
+
+    companion object {
+        // Minimum time between two updates of the targets of a source
+        private const val UPDATE_INTERVAL_MS = 500L
     }
 }
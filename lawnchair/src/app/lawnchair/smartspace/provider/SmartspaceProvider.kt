@@ -12,6 +12,7 @@ import com.android.launcher3.util.MainThreadInitializedObject
 import kotlinx.coroutines.MainScope
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.shareIn
 
@@ -26,6 +27,7 @@ class SmartspaceProvider private constructor(context: Context) {
     private val state = dataSources
         .map { it.targets }
         .reduce { acc, flow -> flow.combine(acc) { a, b -> a + b } }
+        .distinctUntilChanged { old, new -> old.contentEquals(new) }
         .shareIn(
             MainScope(),
             SharingStarted.WhileSubscribed(),
@@ -7,20 +7,14 @@ import android.content.ComponentName
 import android.content.Context
 import android.content.Intent
 import android.graphics.Bitmap
-import android.graphics.drawable.BitmapDrawable
 import android.graphics.drawable.Icon
-import android.view.View
-import android.view.ViewGroup
-import android.widget.ImageView
-import android.widget.TextView
-import androidx.core.view.descendants
 import app.lawnchair.BlankActivity
 import app.lawnchair.HeadlessWidgetsManager
+import app.lawnchair.HeadlessWidgetsManager.WidgetSnapshot
 import app.lawnchair.smartspace.model.SmartspaceAction
 import app.lawnchair.smartspace.model.SmartspaceScores
 import app.lawnchair.smartspace.model.SmartspaceTarget
 import app.lawnchair.util.Temperature
-import app.lawnchair.util.pendingIntent
 import com.android.launcher3.R
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.flowOf
@@ -37,6 +31,11 @@ class SmartspaceWidgetReader(context: Context) : SmartspaceDataSource(
     private val widget: HeadlessWidgetsManager.Widget?
     override val internalTargets: Flow<List<SmartspaceTarget>>
 
+    // The widget sends new bitmaps on each update, the icons are reused while the images are the
+    // same so that unchanged cards compare equal
+    private val cardIconCache = BitmapIcon()
+    private val weatherIconCache = BitmapIcon()
+
     init {
         val appWidgetManager = AppWidgetManager.getInstance(context)
         val provider = appWidgetManager.getInstalledProvidersForPackage(GSA_PACKAGE, null)
@@ -56,50 +55,49 @@ class SmartspaceWidgetReader(context: Context) : SmartspaceDataSource(
         BlankActivity.startBlankActivityForResult(activity, intent)
     }
 
-    private fun extractWidgetLayout(appWidgetHostView: ViewGroup): List<SmartspaceTarget> {
-        val descendants = appWidgetHostView.descendants
-        val texts = descendants.filterIsInstance<TextView>().filter { !it.text.isNullOrEmpty() }.toList()
-        val images = descendants.filterIsInstance<ImageView>().toList().filter { it.drawable != null && it.drawable is BitmapDrawable }
-        var weatherIconView: ImageView? = null
-        var cardIconView: ImageView? = null
-        var title: TextView? = null
-        var subtitle: TextView? = null
-        var subtitle2: TextView? = null
-        var temperatureText: TextView? = null
+    private fun extractWidgetLayout(snapshot: WidgetSnapshot): List<SmartspaceTarget> {
+        val texts = snapshot.texts
+        val images = snapshot.images
+        var weatherIcon: Bitmap? = null
+        var cardIcon: Bitmap? = null
+        var title: WidgetSnapshot.Text? = null
+        var subtitle: WidgetSnapshot.Text? = null
+        var subtitle2: WidgetSnapshot.Text? = null
+        var temperatureText: WidgetSnapshot.Text? = null
         if (texts.isEmpty()) return listOf(dummyTarget)
         if (images.isNotEmpty()) {
-            weatherIconView = images.firstOrNull()
+            weatherIcon = images.firstOrNull()
             temperatureText = texts.last()
         }
         if (images.size > 1 && texts.size > 2) {
-            cardIconView = images.first()
+            cardIcon = images.first()
             title = texts[0]
             subtitle = texts[1]
             if (texts.size > 3) {
                 subtitle2 = texts[2]
             }
         }
-        return parseData(extractBitmap(weatherIconView), temperatureText, extractBitmap(cardIconView), title, subtitle, subtitle2)
+        return parseData(weatherIcon, temperatureText, cardIcon, title, subtitle, subtitle2)
     }
 
     private fun parseData(
         weatherIcon: Bitmap?,
-        temperature: TextView?,
+        temperature: WidgetSnapshot.Text?,
         cardIcon: Bitmap?,
-        title: TextView?,
-        subtitle: TextView?,
-        subtitle2: TextView?,
+        title: WidgetSnapshot.Text?,
+        subtitle: WidgetSnapshot.Text?,
+        subtitle2: WidgetSnapshot.Text?,
     ): List<SmartspaceTarget> {
         val weather = parseWeatherData(weatherIcon, temperature) ?: dummyTarget
         val card = if (cardIcon != null && title != null && subtitle != null) {
-            val pendingIntent = (title.parent.parent.parent as? View)?.pendingIntent
+            val pendingIntent = title.getAncestorPendingIntent(3)
             val ttl = title.text.toString() + if (subtitle2 != null) subtitle.text.toString() else ""
             val sub = subtitle2 ?: subtitle
             SmartspaceTarget(
                 id = "smartspaceWidgetCard",
                 headerAction = SmartspaceAction(
                     id = "smartspaceWidgetCardAction",
-                    icon = Icon.createWithBitmap(cardIcon),
+                    icon = cardIconCache.get(cardIcon),
                     title = ttl,
                     subtitle = sub.text,
                     pendingIntent = pendingIntent,
@@ -114,9 +112,9 @@ class SmartspaceWidgetReader(context: Context) : SmartspaceDataSource(
         return listOfNotNull(card, weather)
     }
 
-    private fun parseWeatherData(weatherIcon: Bitmap?, temperatureText: TextView?): SmartspaceTarget? {
+    private fun parseWeatherData(weatherIcon: Bitmap?, temperatureText: WidgetSnapshot.Text?): SmartspaceTarget? {
         val temperature = temperatureText?.text?.toString()
-        val pendingIntent = (temperatureText?.parent as? View)?.pendingIntent
+        val pendingIntent = temperatureText?.getAncestorPendingIntent(1)
         val weatherData = parseWeatherData(
             weatherIcon,
             temperature,
@@ -129,7 +127,7 @@ class SmartspaceWidgetReader(context: Context) : SmartspaceDataSource(
             id = "smartspaceWidgetWeather",
             headerAction = SmartspaceAction(
                 id = "smartspaceWidgetWeatherAction",
-                icon = weatherIcon?.let { Icon.createWithBitmap(it) },
+                icon = weatherIcon?.let { weatherIconCache.get(it) },
                 title = "",
                 subtitle = weatherData.getTitle(),
                 pendingIntent = weatherData.pendingIntent,
@@ -140,8 +138,19 @@ class SmartspaceWidgetReader(context: Context) : SmartspaceDataSource(
         )
     }
 
-    private fun extractBitmap(imageView: ImageView?): Bitmap? {
-        return (imageView?.drawable as? BitmapDrawable)?.bitmap
+    private class BitmapIcon {
+        private var bitmap: Bitmap? = null
+        private var icon: Icon? = null
+
+        @Synchronized
+        fun get(newBitmap: Bitmap): Icon {
+            val current = icon
+            if (current != null && bitmap?.sameAs(newBitmap) == true) return current
+            return Icon.createWithBitmap(newBitmap).also {
+                bitmap = newBitmap
+                icon = it
+            }
+        }
     }
 
     data class WeatherData(
@@ -7,6 +7,7 @@ import android.content.IntentFilter
 import android.os.Handler
 import android.os.Looper
 import android.os.PatternMatcher
+import android.util.LruCache
 import androidx.core.graphics.ColorUtils
 import app.lawnchair.preferences2.PreferenceManager2
 import app.lawnchair.theme.color.AndroidColor
@@ -14,6 +15,7 @@ import app.lawnchair.theme.color.ColorOption
 import app.lawnchair.theme.color.ColorStyle
 import app.lawnchair.theme.color.MonetColorSchemeCompat
 import app.lawnchair.theme.color.SystemColorScheme
+import app.lawnchair.theme.color.tokens.ColorTokenTable
 import app.lawnchair.ui.theme.getSystemAccent
 import app.lawnchair.wallpaper.WallpaperManagerCompat
 import com.android.launcher3.Utilities
@@ -27,37 +29,59 @@ import dev.kdrag0n.colorkt.rgb.Srgb
 import dev.kdrag0n.monet.theme.ColorScheme
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 class ThemeProvider(private val context: Context) {
     private val preferenceManager2 = PreferenceManager2.getInstance(context)
     private val wallpaperManager = WallpaperManagerCompat.INSTANCE.get(context)
     private val coroutineScope = CoroutineScope(Dispatchers.Default)
 
+    @Volatile
     private var accentColor: ColorOption = preferenceManager2.accentColor.firstBlocking()
+
+    @Volatile
     private var colorStyle: ColorStyle = preferenceManager2.colorStyle.firstBlocking()
 
-    private val colorSchemeMap = HashMap<Pair<Int, Style>, ColorScheme>()
+    // Schemes by seed color and style. LruCache is synchronized, as schemes are created on the
+    // background and read on any thread.
+    private val colorSchemeCache = LruCache<Pair<Int, Style>, ColorScheme>(MAX_CACHED_COLOR_SCHEMES)
+
+    // The system scheme is kept out of the cache, as it can't be recreated from a seed color
+    @Volatile
+    private var systemColorSchemeS: ColorScheme? = null
     private val listeners = mutableListOf<ColorSchemeChangeListener>()
 
+    // Creates the scheme of the latest settings, cancelled when the settings change again
+    private var colorSchemeJob: Job? = null
+
+    @Volatile
+    private var publishedColorScheme: ColorScheme? = null
+
+    @Volatile
+    private var currentColorTokenTable: ColorTokenTable? = null
+
     init {
         if (Utilities.ATLEAST_S) {
-            colorSchemeMap[Pair(0, Style.TONAL_SPOT)] = SystemColorScheme(context)
+            systemColorSchemeS = SystemColorScheme(context)
             registerOverlayChangedListener()
         }
         wallpaperManager.addOnChangeListener(object : WallpaperManagerCompat.OnColorsChangedListener {
             override fun onColorsChanged() {
                 if (accentColor is ColorOption.WallpaperPrimary) {
-                    notifyColorSchemeChanged()
+                    updateColorScheme()
                 }
             }
         })
         preferenceManager2.accentColor.onEach(launchIn = coroutineScope) {
             accentColor = it
-            notifyColorSchemeChanged()
+            updateColorScheme()
         }
         preferenceManager2.colorStyle.onEach(launchIn = coroutineScope) {
             colorStyle = it
-            notifyColorSchemeChanged()
+            updateColorScheme()
         }
     }
 
@@ -68,9 +92,9 @@ class ThemeProvider(private val context: Context) {
         context.registerReceiver(
             object : BroadcastReceiver() {
                 override fun onReceive(context: Context, intent: Intent) {
-                    colorSchemeMap[Pair(0, Style.TONAL_SPOT)] = SystemColorScheme(context)
+                    systemColorSchemeS = SystemColorScheme(context)
                     if (accentColor is ColorOption.SystemAccent) {
-                        notifyColorSchemeChanged()
+                        updateColorScheme()
                     }
                 }
             },
@@ -80,34 +104,94 @@ class ThemeProvider(private val context: Context) {
         )
     }
 
-    val colorScheme get() = when (val accentColor = this.accentColor) {
-        is ColorOption.SystemAccent -> systemColorScheme
+    /**
+     * The scheme of the settings, updated on the main thread once the scheme of new settings has
+     * been created in the background. Only the first scheme is created on the calling thread.
+     */
+    val colorScheme: ColorScheme get() {
+        publishedColorScheme?.let { return it }
+        val colorScheme = getColorScheme(colorSchemeKey)
+        // A scheme published by the background job in the meantime is kept
+        synchronized(this) {
+            return publishedColorScheme ?: colorScheme.also { publishedColorScheme = it }
+        }
+    }
+
+    private val colorSchemeKey: Pair<Int, Style> get() = when (val accentColor = this.accentColor) {
+        is ColorOption.SystemAccent -> systemColorSchemeKey
         is ColorOption.WallpaperPrimary -> {
             val wallpaperPrimary = wallpaperManager.wallpaperColors?.primaryColor
-            getColorScheme(wallpaperPrimary ?: ColorOption.LawnchairBlue.color, colorStyle.style)
+            Pair(wallpaperPrimary ?: ColorOption.LawnchairBlue.color, colorStyle.style)
+        }
+        is ColorOption.CustomColor -> Pair(accentColor.color, colorStyle.style)
+        else -> Pair(ColorOption.LawnchairBlue.color, colorStyle.style)
+    }
+
+    /**
+     * The precompiled colors of the current [colorScheme], replaced when the color scheme changes.
+     */
+    val colorTokenTable: ColorTokenTable get() {
+        while (true) {
+            val scheme = colorScheme
+            currentColorTokenTable?.let { if (it.scheme === scheme) return it }
+            val table = ColorTokenTable(context, scheme)
+            // The scheme can be replaced while the table is created, a table of a previous scheme
+            // is never published
+            synchronized(this) {
+                if (publishedColorScheme === table.scheme) {
+                    currentColorTokenTable = table
+                    return table
+                }
+            }
         }
-        is ColorOption.CustomColor -> getColorScheme(accentColor.color, colorStyle.style)
-        else -> getColorScheme(ColorOption.LawnchairBlue.color, colorStyle.style)
     }
 
-    private val systemColorScheme get() = when {
-        Utilities.ATLEAST_S -> getColorScheme(0, colorStyle.style)
-        else -> getColorScheme(context.getSystemAccent(darkTheme = false), colorStyle.style)
+    private val systemColorSchemeKey get() = when {
+        Utilities.ATLEAST_S -> Pair(0, colorStyle.style)
+        else -> Pair(context.getSystemAccent(darkTheme = false), colorStyle.style)
     }
 
-    private fun getColorScheme(
-        colorInt: Int,
-        colorStyle: Style,
-    ): ColorScheme {
-        val key = Pair(colorInt, colorStyle)
-        var colorScheme = colorSchemeMap[key]
-        if (colorScheme == null) {
-            colorScheme = MonetColorSchemeCompat(colorInt, colorStyle)
-            colorSchemeMap[key] = colorScheme
+    private fun getColorScheme(key: Pair<Int, Style>): ColorScheme {
+        if (key.first == 0 && key.second == Style.TONAL_SPOT) {
+            systemColorSchemeS?.let { return it }
         }
+        colorSchemeCache.get(key)?.let { return it }
+        // Two threads creating the same scheme is harmless, they are equivalent
+        val colorScheme = MonetColorSchemeCompat(key.first, key.second)
+        colorSchemeCache.put(key, colorScheme)
         return colorScheme
     }
 
+    /**
+     * Creates the scheme of the current settings in the background, and notifies the listeners
+     * once it is ready. A pending creation for previous settings is cancelled.
+     */
+    private fun updateColorScheme() {
+        synchronized(this) {
+            colorSchemeJob?.cancel()
+            colorSchemeJob = coroutineScope.launch {
+                // The settings are read by the job, so that the latest job sees the latest ones
+                val key = colorSchemeKey
+                val colorScheme = getColorScheme(key)
+                ensureActive()
+                // Compiled here so that the first lookups after the change don't compile the
+                // colors on the main thread
+                val colorTokenTable = ColorTokenTable(context, colorScheme).apply { compileAll() }
+                withContext(Dispatchers.Main) {
+                    ensureActive()
+                    // The settings changed while the scheme was created, the job started for
+                    // the change publishes the right one
+                    if (colorSchemeKey != key) return@withContext
+                    synchronized(this@ThemeProvider) {
+                        publishedColorScheme = colorScheme
+                        currentColorTokenTable = colorTokenTable
+                    }
+                    notifyColorSchemeChanged()
+                }
+            }
+        }
+    }
+
     fun addListener(listener: ColorSchemeChangeListener) {
         listeners.add(listener)
     }
@@ -124,6 +208,8 @@ class ThemeProvider(private val context: Context) {
     companion object {
         @JvmField
         val INSTANCE = MainThreadInitializedObject(::ThemeProvider)
+
+        private const val MAX_CACHED_COLOR_SCHEMES = 8
     }
 
     sealed interface ColorSchemeChangeListener {
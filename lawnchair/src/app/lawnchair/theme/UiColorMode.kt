@@ -11,6 +11,7 @@ value class UiColorMode(val mode: Int) {
         const val FLAG_DARK = 1 shl 0
         const val FLAG_DARK_TEXT = 1 shl 1
         const val FLAG_DARK_PRIMARY_COLOR = 1 shl 2
+        const val MODE_MASK = FLAG_DARK or FLAG_DARK_TEXT or FLAG_DARK_PRIMARY_COLOR
 
         val Light = UiColorMode(0)
         val Light_DarkText = UiColorMode(FLAG_DARK_TEXT)
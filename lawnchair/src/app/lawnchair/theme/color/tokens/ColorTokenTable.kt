@@ -0,0 +1,81 @@
+package app.lawnchair.theme.color.tokens
+
+import android.content.Context
+import app.lawnchair.theme.ThemeProvider
+import app.lawnchair.theme.UiColorMode
+import dev.kdrag0n.colorkt.Color
+import dev.kdrag0n.monet.theme.ColorScheme
+import java.util.concurrent.atomic.AtomicReferenceArray
+
+/**
+ * Colors of all the [PrecompiledColorToken]s for one [ColorScheme], compiled into a flat array
+ * per [UiColorMode], so that resolving a token is an array lookup instead of walking the token
+ * tree and converting the color.
+ *
+ * A new table is created and compiled in the background by [ThemeProvider] when the color scheme
+ * changes. The table of the first scheme is compiled the first time each mode is used.
+ */
+class ColorTokenTable(
+    private val context: Context,
+    val scheme: ColorScheme,
+) {
+
+    private val tables = AtomicReferenceArray<IntArray>(UiColorMode.MODE_MASK + 1)
+
+    fun getColor(index: Int, uiColorMode: UiColorMode): Int {
+        val mode = uiColorMode.mode and UiColorMode.MODE_MASK
+        var table = tables.get(mode)
+        if (table == null || index >= table.size) {
+            // Compiling twice on concurrent calls is harmless, both tables are the same. Tokens
+            // registered after the compilation are added by compiling again.
+            table = compile(UiColorMode(mode))
+            tables.set(mode, table)
+        }
+        return table[index]
+    }
+
+    /**
+     * Compiles the colors of every [UiColorMode], to be called off the main thread before the
+     * table is used.
+     */
+    fun compileAll() {
+        for (mode in 0..UiColorMode.MODE_MASK) {
+            tables.set(mode, compile(UiColorMode(mode)))
+        }
+    }
+
+    private fun compile(uiColorMode: UiColorMode): IntArray {
+        val tokens = synchronized(registeredTokens) { registeredTokens.toTypedArray() }
+        return IntArray(tokens.size) { tokens[it].resolveColor(context, scheme, uiColorMode) }
+    }
+
+    companion object {
+        private val registeredTokens = ArrayList<ColorToken>()
+
+        internal fun register(token: ColorToken): Int = synchronized(registeredTokens) {
+            registeredTokens.add(token)
+            registeredTokens.size - 1
+        }
+    }
+}
+
+/**
+ * A [ColorToken] resolved through the [ColorTokenTable] of the current color scheme. Only tokens
+ * which depend on nothing but the color scheme and the [UiColorMode] can be precompiled.
+ */
+class PrecompiledColorToken(
+    private val token: ColorToken,
+) : ColorToken {
+
+    private val index = ColorTokenTable.register(token)
+
+    override fun resolveColor(context: Context, uiColorMode: UiColorMode): Int {
+        return ThemeProvider.INSTANCE.get(context).colorTokenTable.getColor(index, uiColorMode)
+    }
+
+    override fun resolve(context: Context, scheme: ColorScheme, uiColorMode: UiColorMode): Color {
+        return token.resolve(context, scheme, uiColorMode)
+    }
+}
+
+fun ColorToken.precompiled() = PrecompiledColorToken(this)
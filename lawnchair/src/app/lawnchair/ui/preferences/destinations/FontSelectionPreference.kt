@@ -69,12 +69,8 @@ fun FontSelection(
 ) {
     val context = LocalContext.current
     val customFonts by remember { FontCache.INSTANCE.get(context).customFonts }.collectAsStateWithLifecycle(initialValue = emptyList())
-    val items by produceState(initialValue = emptyList<FontCache.Family>()) {
-        val list = mutableListOf<FontCache.Family>()
-        list.add(FontCache.Family(FontCache.SystemFont("sans-serif")))
-        list.add(FontCache.Family(FontCache.SystemFont("sans-serif-medium")))
-        list.add(FontCache.Family(FontCache.SystemFont("sans-serif-condensed")))
-        GoogleFontsListing.INSTANCE.get(context).getFonts().mapTo(list) { font ->
+    val googleFamilies by produceState(initialValue = emptyMap<GoogleFontsListing.GoogleFontInfo, FontCache.Family>()) {
+        value = GoogleFontsListing.INSTANCE.get(context).getFonts().associateWith { font ->
             val variantsMap = HashMap<String, FontCache.Font>()
             val variants = font.variants.toTypedArray()
             font.variants.forEach { variant ->
@@ -82,21 +78,29 @@ fun FontSelection(
             }
             FontCache.Family(font.family, variantsMap)
         }
-        value = list
     }
-    val allItems by remember { derivedStateOf { items + customFonts } }
+    val systemItems = remember {
+        listOf(
+            FontCache.Family(FontCache.SystemFont("sans-serif")),
+            FontCache.Family(FontCache.SystemFont("sans-serif-medium")),
+            FontCache.Family(FontCache.SystemFont("sans-serif-condensed")),
+        )
+    }
+    val items by remember { derivedStateOf { systemItems + googleFamilies.values } }
     val adapter = fontPref.getAdapter()
     var searchQuery by remember { mutableStateOf("") }
 
     val hasFilter by remember { derivedStateOf { searchQuery.isNotEmpty() } }
-    val filteredItems by remember {
-        derivedStateOf {
-            if (hasFilter) {
-                val lowerCaseQuery = searchQuery.lowercase()
-                allItems.filter { it.displayName.lowercase().contains(lowerCaseQuery) }
-            } else {
-                items
-            }
+    val filteredItems by produceState(initialValue = items, searchQuery, items, customFonts) {
+        value = if (hasFilter) {
+            // Google fonts are searched in the compiled catalog, without lowercasing every family
+            val googleMatches = GoogleFontsListing.INSTANCE.get(context).search(searchQuery)
+                .mapNotNull { googleFamilies[it] }
+            systemItems.filter { it.displayName.contains(searchQuery, ignoreCase = true) } +
+                googleMatches +
+                customFonts.filter { it.displayName.contains(searchQuery, ignoreCase = true) }
+        } else {
+            items
         }
     }
 
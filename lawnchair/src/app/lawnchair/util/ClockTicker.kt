@@ -0,0 +1,143 @@
+package app.lawnchair.util
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.util.LruCache
+import androidx.annotation.MainThread
+import com.android.launcher3.util.MainThreadInitializedObject
+import com.android.launcher3.util.SafeCloseable
+import java.util.Locale
+
+/**
+ * Process-wide clock for everything which shows the time.
+ *
+ * Ticks on each minute boundary, and when the time or the time zone changes, only while a
+ * listener needs it: view listeners are added while their view is visible, launcher listeners
+ * are only notified while the launcher is visible. Strings formatted by [format] are shared
+ * between all the listeners for the same pattern, locale and minute.
+ */
+class ClockTicker private constructor(private val context: Context) {
+
+    private val listeners = ArrayList<Listener>()
+    private val launcherListeners = ArrayList<Listener>()
+    private var launcherVisible = false
+    private var started = false
+    private var lastLauncherTickMinute = -1L
+
+    private val tick = Runnable { onTick(timeChanged = false) }
+    private val timeChangeReceiver = object : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            onTick(timeChanged = true)
+        }
+    }
+
+    private val formatCache = LruCache<FormatKey, String>(MAX_CACHED_FORMATS)
+
+    /**
+     * Adds a listener which is notified on each tick until the returned [SafeCloseable] is closed.
+     */
+    fun addListener(listener: Listener): SafeCloseable = addListener(listeners, listener)
+
+    /**
+     * Adds a listener which is only notified while the launcher is visible, and once when it
+     * becomes visible if a minute passed in the meantime.
+     */
+    fun addLauncherListener(listener: Listener): SafeCloseable = addListener(launcherListeners, listener)
+
+    private fun addListener(list: ArrayList<Listener>, listener: Listener): SafeCloseable {
+        runOnMainThread {
+            list.add(listener)
+            updateStarted()
+        }
+        return SafeCloseable {
+            runOnMainThread {
+                list.remove(listener)
+                updateStarted()
+            }
+        }
+    }
+
+    @MainThread
+    fun setLauncherVisible(visible: Boolean) {
+        if (launcherVisible == visible) return
+        launcherVisible = visible
+        val timeMillis = System.currentTimeMillis()
+        if (visible && timeMillis / MINUTE_MILLIS != lastLauncherTickMinute) {
+            notifyLauncherListeners(timeMillis, timeChanged = false)
+        }
+        updateStarted()
+    }
+
+    /**
+     * Returns [timeMillis] formatted by [formatter], reusing the string formatted for the same
+     * minute if any. [pattern] and [locale] must identify the formatter.
+     */
+    @MainThread
+    fun format(pattern: String, locale: Locale, timeMillis: Long, formatter: (Long) -> String): String {
+        val key = FormatKey(pattern, locale, timeMillis / MINUTE_MILLIS)
+        return formatCache.get(key) ?: formatter(timeMillis).also { formatCache.put(key, it) }
+    }
+
+    private fun updateStarted() {
+        val shouldStart = listeners.isNotEmpty() || (launcherVisible && launcherListeners.isNotEmpty())
+        if (started == shouldStart) return
+        started = shouldStart
+        if (shouldStart) {
+            val filter = IntentFilter(Intent.ACTION_TIME_CHANGED)
+            filter.addAction(Intent.ACTION_TIMEZONE_CHANGED)
+            context.registerReceiver(timeChangeReceiver, filter, null, mainHandler)
+            scheduleTick()
+        } else {
+            context.unregisterReceiver(timeChangeReceiver)
+            mainHandler.removeCallbacks(tick)
+        }
+    }
+
+    private fun onTick(timeChanged: Boolean) {
+        if (!started) return
+        if (timeChanged) {
+            formatCache.evictAll()
+        }
+        val timeMillis = System.currentTimeMillis()
+        notifyListeners(listeners, timeMillis, timeChanged)
+        if (launcherVisible) {
+            notifyLauncherListeners(timeMillis, timeChanged)
+        }
+        scheduleTick()
+    }
+
+    private fun notifyLauncherListeners(timeMillis: Long, timeChanged: Boolean) {
+        lastLauncherTickMinute = timeMillis / MINUTE_MILLIS
+        notifyListeners(launcherListeners, timeMillis, timeChanged)
+    }
+
+    private fun notifyListeners(list: List<Listener>, timeMillis: Long, timeChanged: Boolean) {
+        // Listeners may remove themselves
+        list.toTypedArray().forEach { it.onTimeTick(timeMillis, timeChanged) }
+    }
+
+    private fun scheduleTick() {
+        mainHandler.removeCallbacks(tick)
+        mainHandler.postDelayed(tick, MINUTE_MILLIS - System.currentTimeMillis() % MINUTE_MILLIS)
+    }
+
+    private data class FormatKey(val pattern: String, val locale: Locale, val minute: Long)
+
+    fun interface Listener {
+        /**
+         * @param timeChanged Whether the time or the time zone was changed, rather than a minute
+         * having passed
+         */
+        fun onTimeTick(timeMillis: Long, timeChanged: Boolean)
+    }
+
+    companion object {
+        @JvmField
+        val INSTANCE = MainThreadInitializedObject(::ClockTicker)
+
+        private const val MINUTE_MILLIS = 60_000L
+        private const val MAX_CACHED_FORMATS = 16
+    }
+}
@@ -8,15 +8,18 @@ import androidx.compose.runtime.Composable
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.buffer
 import kotlinx.coroutines.flow.callbackFlow
 import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.conflate
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.drop
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.launchIn
 import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.transform
 import kotlinx.coroutines.runBlocking
 
 fun <T> Flow<T>.firstBlocking() = runBlocking { first() }
@@ -38,6 +41,14 @@ fun <T> Flow<T>.dropWhileBusy(): Flow<T> = channelFlow {
     collect { trySend(it) }
 }.buffer(0)
 
+/**
+ * Emits the first value immediately, then at most one value per [periodMillis], the latest one.
+ */
+fun <T> Flow<T>.throttleLatest(periodMillis: Long): Flow<T> = conflate().transform {
+    emit(it)
+    delay(periodMillis)
+}
+
 fun <T> Flow<T>.subscribeBlocking(
     scope: CoroutineScope,
     block: (T) -> Unit,
@@ -5,15 +5,25 @@ import android.content.Context
 import app.lawnchair.util.requireSystemService
 import app.lawnchair.wallpaper.WallpaperColorsCompat.Companion.HINT_SUPPORTS_DARK_THEME
 import com.android.launcher3.Utilities
+import com.android.launcher3.util.Executors.MAIN_EXECUTOR
+import com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR
 import com.android.launcher3.util.MainThreadInitializedObject
 
 sealed class WallpaperManagerCompat(val context: Context) {
 
     private val listeners = mutableListOf<OnColorsChangedListener>()
     private val colorHints: Int get() = wallpaperColors?.colorHints ?: 0
+    private val prefs = Utilities.getDevicePrefs(context)
     protected val wallpaperManager: WallpaperManager = context.requireSystemService()
 
-    abstract val wallpaperColors: WallpaperColorsCompat?
+    /**
+     * The colors of the system wallpaper. Starts with the colors known when the process last
+     * ran, until [refreshColors] gets the current ones. Set on the main thread and read on any
+     * thread, for example when the theme creates a color scheme in the background.
+     */
+    @Volatile
+    var wallpaperColors: WallpaperColorsCompat? = readPersistedColors()
+        private set
 
     val supportsDarkTheme: Boolean get() = (colorHints and HINT_SUPPORTS_DARK_THEME) != 0
 
@@ -25,18 +35,55 @@ sealed class WallpaperManagerCompat(val context: Context) {
         listeners.remove(listener)
     }
 
-    protected fun notifyChange() {
+    /**
+     * Gets the colors in the background using [getColors], then updates [wallpaperColors] on
+     * the main thread, notifying the listeners if they changed.
+     */
+    protected fun refreshColors(getColors: () -> WallpaperColorsCompat?) {
+        UI_HELPER_EXECUTOR.execute {
+            val colors = getColors()
+            MAIN_EXECUTOR.execute { setColors(colors) }
+        }
+    }
+
+    private fun setColors(colors: WallpaperColorsCompat?) {
+        if (colors == wallpaperColors) return
+        wallpaperColors = colors
+        persistColors(colors)
         listeners.toTypedArray().forEach {
             it.onColorsChanged()
         }
     }
 
+    private fun readPersistedColors(): WallpaperColorsCompat? {
+        if (!prefs.contains(KEY_PRIMARY_COLOR)) return null
+        return WallpaperColorsCompat(
+            prefs.getInt(KEY_PRIMARY_COLOR, 0),
+            prefs.getInt(KEY_COLOR_HINTS, 0),
+        )
+    }
+
+    private fun persistColors(colors: WallpaperColorsCompat?) {
+        val editor = prefs.edit()
+        if (colors != null) {
+            editor.putInt(KEY_PRIMARY_COLOR, colors.primaryColor)
+            editor.putInt(KEY_COLOR_HINTS, colors.colorHints)
+        } else {
+            editor.remove(KEY_PRIMARY_COLOR)
+            editor.remove(KEY_COLOR_HINTS)
+        }
+        editor.apply()
+    }
+
     interface OnColorsChangedListener {
         fun onColorsChanged()
     }
 
     companion object {
 
+        private const val KEY_PRIMARY_COLOR = "pref_wallpaper_primary_color"
+        private const val KEY_COLOR_HINTS = "pref_wallpaper_color_hints"
+
         @JvmField
         val INSTANCE = MainThreadInitializedObject { context ->
             when {
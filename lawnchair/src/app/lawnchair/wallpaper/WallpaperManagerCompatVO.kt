@@ -2,7 +2,7 @@ package app.lawnchair.wallpaper
 
 import android.content.Context
 
-internal class WallpaperManagerCompatVO(context: Context) : WallpaperManagerCompat(context) {
-
-    override val wallpaperColors: WallpaperColorsCompat? = null
-}
+/**
+ * Wallpaper colors are not available before O MR1, [wallpaperColors] is never set.
+ */
+internal class WallpaperManagerCompatVO(context: Context) : WallpaperManagerCompat(context)
@@ -7,6 +7,7 @@ import android.content.Context
 import android.os.Build
 import android.os.Handler
 import android.os.Looper
+import androidx.annotation.WorkerThread
 import app.lawnchair.wallpaper.WallpaperColorsCompat.Companion.HINT_SUPPORTS_DARK_TEXT
 import app.lawnchair.wallpaper.WallpaperColorsCompat.Companion.HINT_SUPPORTS_DARK_THEME
 import com.android.systemui.shared.system.TonalCompat
@@ -14,28 +15,24 @@ import com.android.systemui.shared.system.TonalCompat
 @TargetApi(Build.VERSION_CODES.O_MR1)
 internal class WallpaperManagerCompatVOMR1(context: Context) : WallpaperManagerCompat(context) {
 
-    private val tonalCompat = TonalCompat(context)
-
-    override var wallpaperColors: WallpaperColorsCompat? = null
-        private set
+    private val tonalCompat by lazy { TonalCompat(context) }
 
     init {
         wallpaperManager.addOnColorsChangedListener(
             { colors, which ->
                 if ((which and WallpaperManager.FLAG_SYSTEM) != 0) {
-                    update(colors)
-                    notifyChange()
+                    refreshColors { convert(colors) }
                 }
             },
             Handler(Looper.getMainLooper()),
         )
-        update(wallpaperManager.getWallpaperColors(WallpaperManager.FLAG_SYSTEM))
+        refreshColors { convert(wallpaperManager.getWallpaperColors(WallpaperManager.FLAG_SYSTEM)) }
     }
 
-    private fun update(wallpaperColors: WallpaperColors?) {
+    @WorkerThread
+    private fun convert(wallpaperColors: WallpaperColors?): WallpaperColorsCompat? {
         if (wallpaperColors == null) {
-            this.wallpaperColors = null
-            return
+            return null
         }
         val extractionInfo = tonalCompat.extractDarkColors(wallpaperColors)
         var hints = 0
@@ -45,6 +42,6 @@ internal class WallpaperManagerCompatVOMR1(context: Context) : WallpaperManagerC
         if (extractionInfo.supportsDarkTheme) {
             hints = hints or HINT_SUPPORTS_DARK_THEME
         }
-        this.wallpaperColors = WallpaperColorsCompat(wallpaperColors.primaryColor.toArgb(), hints)
+        return WallpaperColorsCompat(wallpaperColors.primaryColor.toArgb(), hints)
     }
 }
@@ -13,30 +13,23 @@ import app.lawnchair.wallpaper.WallpaperColorsCompat.Companion.HINT_SUPPORTS_DAR
 @TargetApi(Build.VERSION_CODES.S)
 internal class WallpaperManagerCompatVS(context: Context) : WallpaperManagerCompat(context) {
 
-    override var wallpaperColors: WallpaperColorsCompat? = null
-        private set
-
     init {
         wallpaperManager.addOnColorsChangedListener(
             { colors, which ->
                 if ((which and WallpaperManager.FLAG_SYSTEM) != 0) {
-                    update(colors)
-                    notifyChange()
+                    refreshColors { convert(colors) }
                 }
             },
             Handler(Looper.getMainLooper()),
         )
-        update(wallpaperManager.getWallpaperColors(WallpaperManager.FLAG_SYSTEM))
+        refreshColors { convert(wallpaperManager.getWallpaperColors(WallpaperManager.FLAG_SYSTEM)) }
     }
 
-    private fun update(wallpaperColors: WallpaperColors?) {
+    private fun convert(wallpaperColors: WallpaperColors?): WallpaperColorsCompat? {
         if (wallpaperColors == null) {
-            this.wallpaperColors = null
-            return
+            return null
         }
-        val platformHints = wallpaperManager
-            .getWallpaperColors(WallpaperManager.FLAG_SYSTEM)
-            ?.colorHints ?: 0
+        val platformHints = wallpaperColors.colorHints
         var hints = 0
         if ((platformHints and WallpaperColors.HINT_SUPPORTS_DARK_TEXT) != 0) {
             hints = hints or HINT_SUPPORTS_DARK_TEXT
@@ -44,6 +37,6 @@ internal class WallpaperManagerCompatVS(context: Context) : WallpaperManagerComp
         if ((platformHints and WallpaperColors.HINT_SUPPORTS_DARK_THEME) != 0) {
             hints = hints or HINT_SUPPORTS_DARK_THEME
         }
-        this.wallpaperColors = WallpaperColorsCompat(wallpaperColors.primaryColor.toArgb(), hints)
+        return WallpaperColorsCompat(wallpaperColors.primaryColor.toArgb(), hints)
     }
 }
@@ -16,7 +16,6 @@
 package com.android.launcher3.taskbar;
 
 import android.app.ActivityManager;
-import android.content.ComponentName;
 import android.util.SparseArray;
 
 import com.android.launcher3.model.data.AppInfo;
@@ -26,8 +25,8 @@ import com.android.quickstep.RecentsModel;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 
 /**
  * Provides recent apps functionality specifically in a desktop environment.
@@ -35,8 +34,12 @@ import java.util.Set;
 public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsController {
 
     private final TaskbarActivityContext mContext;
+    // Items of the running apps shown on the taskbar, in the order they appeared. The same
+    // item instances are kept while the apps are running, so that their views are not rebound.
     private ArrayList<ItemInfo> mRunningApps = new ArrayList<>();
-    private AppInfo[] mApps;
+    private final HashMap<String, AppInfo> mAppsByPackage = new HashMap<>();
+    // Whether the apps changed since the running app items were created
+    private boolean mAppsChanged;
 
     public DesktopTaskbarRecentAppsController(TaskbarActivityContext context) {
         mContext = context;
@@ -45,12 +48,17 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        mApps = null;
+        mAppsByPackage.clear();
     }
 
     @Override
     protected void setApps(AppInfo[] apps) {
-        mApps = apps;
+        mAppsByPackage.clear();
+        for (AppInfo app : apps) {
+            // Keep the first app of each package, as the previous lookup did
+            mAppsByPackage.putIfAbsent(app.getTargetPackage(), app);
+        }
+        mAppsChanged = true;
     }
 
     @Override
@@ -62,29 +70,39 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
      * Set mRunningApps to hold currently running applications using the list of currently running
      * tasks. Filtering is also done to ignore applications that are already on the taskbar in the
      * original hotseat.
+     *
+     * The apps which were already running keep their item and their position, newly started apps
+     * are added at the end, and the UI is only updated if the running apps changed.
      */
     @Override
     protected void updateRunningApps(SparseArray<ItemInfo> hotseatItems) {
-        ArrayList<AppInfo> runningApps = getRunningAppsFromTasks();
-        ArrayList<ItemInfo> filteredRunningApps = new ArrayList<>();
-        for (AppInfo runningApp : runningApps) {
-            boolean shouldAddOnTaskbar = true;
-            for (int i = 0; i < hotseatItems.size(); i++) {
-                if (hotseatItems.keyAt(i) >= mControllers.taskbarActivityContext.getDeviceProfile()
-                        .numShownHotseatIcons) {
-                    break;
-                }
-                if (hotseatItems.valueAt(i).getTargetPackage()
-                        .equals(runningApp.getTargetPackage())) {
-                    shouldAddOnTaskbar = false;
-                    break;
-                }
+        LinkedHashMap<String, AppInfo> runningApps = getRunningAppsFromTasks();
+        int numShownHotseatIcons =
+                mControllers.taskbarActivityContext.getDeviceProfile().numShownHotseatIcons;
+        for (int i = 0; i < hotseatItems.size(); i++) {
+            if (hotseatItems.keyAt(i) >= numShownHotseatIcons) {
+                break;
             }
-            if (shouldAddOnTaskbar) {
-                filteredRunningApps.add(new WorkspaceItemInfo(runningApp));
+            runningApps.remove(hotseatItems.valueAt(i).getTargetPackage());
+        }
+
+        ArrayList<ItemInfo> newRunningApps = new ArrayList<>(runningApps.size());
+        if (!mAppsChanged) {
+            for (ItemInfo item : mRunningApps) {
+                if (runningApps.remove(item.getTargetPackage()) != null) {
+                    newRunningApps.add(item);
+                }
             }
         }
-        mRunningApps = filteredRunningApps;
+        mAppsChanged = false;
+        for (AppInfo app : runningApps.values()) {
+            newRunningApps.add(new WorkspaceItemInfo(app));
+        }
+
+        if (newRunningApps.equals(mRunningApps)) {
+            return;
+        }
+        mRunningApps = newRunningApps;
         mControllers.taskbarViewController.commitRunningAppsToUI();
     }
 
@@ -109,45 +127,24 @@ public class DesktopTaskbarRecentAppsController extends TaskbarRecentAppsControl
 
 
     /**
-     * Returns a list of running applications from the list of currently running tasks.
+     * Returns the running applications by package, in the order of the currently running tasks.
      */
-    private ArrayList<AppInfo> getRunningAppsFromTasks() {
+    private LinkedHashMap<String, AppInfo> getRunningAppsFromTasks() {
         ArrayList<ActivityManager.RunningTaskInfo> tasks =
                 RecentsModel.INSTANCE.get(mContext).getRunningTasks();
-        ArrayList<AppInfo> runningApps = new ArrayList<>();
-        // early return if apps is empty, since we would have no AppInfo to compare
-        if (mApps == null)  {
-            return runningApps;
-        }
-
-        Set<String> seenPackages = new HashSet<>();
+        LinkedHashMap<String, AppInfo> runningApps = new LinkedHashMap<>();
         for (ActivityManager.RunningTaskInfo taskInfo : tasks) {
             if (taskInfo.realActivity == null) continue;
 
             // If a different task for the same package has already been handled, skip this one
             String taskPackage = taskInfo.realActivity.getPackageName();
-            if (seenPackages.contains(taskPackage)) continue;
+            if (runningApps.containsKey(taskPackage)) continue;
 
             // Otherwise, get the corresponding AppInfo and add it to the list
-            seenPackages.add(taskPackage);
-            AppInfo app = getAppInfo(taskInfo.realActivity);
+            AppInfo app = mAppsByPackage.get(taskPackage);
             if (app == null) continue;
-            runningApps.add(app);
+            runningApps.put(taskPackage, app);
         }
         return runningApps;
     }
-
-    /**
-     * Retrieves the corresponding AppInfo for the activity.
-     */
-    private AppInfo getAppInfo(ComponentName activity) {
-        String packageName = activity.getPackageName();
-        for (AppInfo app : mApps) {
-            if (!packageName.equals(app.getTargetPackage())) {
-                continue;
-            }
-            return app;
-        }
-        return null;
-    }
 }
@@ -72,6 +72,10 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
 
     private static final Rect sTmpRect = new Rect();
 
+    // Number of recycled app icons kept around, so that running apps coming and going on desktop
+    // taskbars don't inflate new icons
+    private static final int APP_ICON_POOL_SIZE = 6;
+
     private final int[] mTempOutLocation = new int[2];
     private final Rect mIconLayoutBounds;
     private final int mIconTouchSize;
@@ -135,6 +139,7 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
                 : R.dimen.taskbar_all_apps_button_translation_x_offset);
 
         onDeviceProfileChanged(mActivityContext.getDeviceProfile());
+        mActivityContext.getViewCache().setCacheSize(R.layout.taskbar_app_icon, APP_ICON_POOL_SIZE);
 
         int actualMargin = resources.getDimensionPixelSize(R.dimen.taskbar_icon_spacing);
         int actualIconSize = mActivityContext.getDeviceProfile().taskbarIconSize;
@@ -292,9 +297,31 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
             }
 
             View hotseatView = null;
-            while (nextViewIndex < getChildCount()) {
+            int boundViewIndex = indexOfBoundView(hotseatItemInfo, expectedLayoutResId,
+                    nextViewIndex);
+            if (boundViewIndex >= 0) {
+                // The item is already bound, only move its view instead of rebinding all the
+                // views in between, so that adding or removing an item only changes its slot.
+                hotseatView = getChildAt(boundViewIndex);
+                for (int j = boundViewIndex - 1; j >= nextViewIndex; j--) {
+                    View skippedView = getChildAt(j);
+                    if (!isPendingItem(skippedView.getTag(), hotseatItemInfos, i + 1)) {
+                        removeAndRecycle(skippedView);
+                    }
+                }
+                if (indexOfChild(hotseatView) != nextViewIndex) {
+                    removeView(hotseatView);
+                    addView(hotseatView, nextViewIndex);
+                }
+            }
+            while (hotseatView == null && nextViewIndex < getChildCount()) {
                 hotseatView = getChildAt(nextViewIndex);
 
+                if (isPendingItem(hotseatView.getTag(), hotseatItemInfos, i + 1)) {
+                    // The view is bound to a following item, insert a new view before it
+                    hotseatView = null;
+                    break;
+                }
                 // see if the view can be reused
                 if ((hotseatView.getSourceLayoutResId() != expectedLayoutResId)
                         || (isFolder && (hotseatView.getTag() != hotseatItemInfo))) {
@@ -325,9 +352,11 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
             }
 
             // Apply the Hotseat ItemInfos, or hide the view if there is none for a given
-            // index.
+            // index. Views already bound to the item are left as they are, icon updates of
+            // bound items are applied by updateWorkspaceItems.
             if (hotseatView instanceof BubbleTextView
-                    && hotseatItemInfo instanceof WorkspaceItemInfo) {
+                    && hotseatItemInfo instanceof WorkspaceItemInfo
+                    && hotseatView.getTag() != hotseatItemInfo) {
                 BubbleTextView btv = (BubbleTextView) hotseatView;
                 WorkspaceItemInfo workspaceInfo = (WorkspaceItemInfo) hotseatItemInfo;
 
@@ -366,6 +395,35 @@ public class TaskbarView extends FrameLayout implements FolderIcon.FolderIconPar
         }
     }
 
+    /**
+     * Returns the index of the first child from {@param start} which is bound to {@param info}
+     * with {@param layoutResId}, or -1 if there is none.
+     */
+    private int indexOfBoundView(ItemInfo info, @LayoutRes int layoutResId, int start) {
+        for (int i = start; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            if (child.getTag() == info && child.getSourceLayoutResId() == layoutResId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether {@param tag} is one of the {@param infos} from {@param start}.
+     */
+    private static boolean isPendingItem(Object tag, ItemInfo[] infos, int start) {
+        if (tag == null) {
+            return false;
+        }
+        for (int i = start; i < infos.length; i++) {
+            if (infos[i] == tag) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Traverse all the child views and change the background of themeIcons
      **/
@@ -53,6 +53,11 @@ import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent
 import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.EXPECTING_TASK_APPEARED;
 import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.LAUNCHER_DESTROYED;
 import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.ON_SETTLED_ON_END_TARGET;
+import static com.android.quickstep.util.GestureMetrics.PHASE_END_TARGET_SET;
+import static com.android.quickstep.util.GestureMetrics.PHASE_LAUNCHER_DRAWN;
+import static com.android.quickstep.util.GestureMetrics.PHASE_RECENTS_ANIMATION_STARTED;
+import static com.android.quickstep.util.GestureMetrics.PHASE_SCREENSHOT_CAPTURED;
+import static com.android.quickstep.util.GestureMetrics.PHASE_SETTLED;
 import static com.android.quickstep.views.RecentsView.UPDATE_SYSUI_FLAGS_THRESHOLD;
 import static com.android.systemui.shared.system.ActivityManagerWrapper.CLOSE_SYSTEM_WINDOWS_REASON_RECENTS;
 
@@ -72,10 +77,12 @@ import android.graphics.Matrix;
 import android.graphics.PointF;
 import android.graphics.Rect;
 import android.graphics.RectF;
+import android.hardware.display.DisplayManager;
 import android.os.Build;
 import android.os.IBinder;
 import android.os.SystemClock;
 import android.util.Log;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.RemoteAnimationTarget;
 import android.view.View;
@@ -121,6 +128,7 @@ import com.android.quickstep.util.ActiveGestureErrorDetector;
 import com.android.quickstep.util.ActiveGestureLog;
 import com.android.quickstep.util.ActivityInitListener;
 import com.android.quickstep.util.AnimatorControllerWithResistance;
+import com.android.quickstep.util.GestureMetrics;
 import com.android.quickstep.util.InputConsumerProxy;
 import com.android.quickstep.util.InputProxyHandlerFactory;
 import com.android.quickstep.util.MotionPauseDetector;
@@ -320,6 +328,9 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>, Q extends
     // Interpolate RecentsView scale from start of quick switch scroll until this
     // scroll threshold
     private final float mQuickSwitchScaleScrollThreshold;
+    // Shift at which the gesture enters the all apps region, read once per gesture as reading
+    // the preference on every motion event boxes its value
+    private final float mAllAppsOverviewThreshold;
 
     private final int mTaskbarAppWindowThreshold;
     private final int mTaskbarHomeOverviewThreshold;
@@ -363,10 +374,13 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>, Q extends
 
         mSplashMainWindowShiftLength = -res
                 .getDimensionPixelSize(R.dimen.starting_surface_exit_animation_window_shift_length);
+        mAllAppsOverviewThreshold =
+                LauncherPrefs.get(context).get(ALL_APPS_OVERVIEW_THRESHOLD) / 100f;
 
         initTransitionEndpoints(mRemoteTargetHandles[0].getTaskViewSimulator()
                 .getOrientationState().getLauncherDeviceProfile());
         initStateCallbacks();
+        initGestureMetrics(context);
 
         mIsTransientTaskbar = mDp.isTaskbarPresent
                 && DisplayController.isTransientTaskbar(mActivity);
@@ -461,6 +475,28 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>, Q extends
                 this::resetStateForAnimationCancel);
     }
 
+    private void initGestureMetrics(Context context) {
+        Display display = context.getSystemService(DisplayManager.class)
+                .getDisplay(Display.DEFAULT_DISPLAY);
+        int gestureId = mGestureState.getGestureId();
+        GestureMetrics metrics = GestureMetrics.INSTANCE;
+        metrics.onGestureStarted(gestureId, mTouchTimeMs,
+                display != null ? display.getRefreshRate() : 0);
+
+        mGestureState.runOnceAtState(GestureState.STATE_RECENTS_ANIMATION_STARTED,
+                () -> metrics.onPhase(gestureId, PHASE_RECENTS_ANIMATION_STARTED));
+        mStateCallback.runOnceAtState(STATE_LAUNCHER_DRAWN,
+                () -> metrics.onPhase(gestureId, PHASE_LAUNCHER_DRAWN));
+        mStateCallback.runOnceAtState(STATE_SCREENSHOT_CAPTURED,
+                () -> metrics.onPhase(gestureId, PHASE_SCREENSHOT_CAPTURED));
+        mGestureState.runOnceAtState(STATE_END_TARGET_SET,
+                () -> metrics.onPhase(gestureId, PHASE_END_TARGET_SET));
+        mGestureState.runOnceAtState(STATE_END_TARGET_ANIMATION_FINISHED,
+                () -> metrics.onPhase(gestureId, PHASE_SETTLED));
+        mStateCallback.runOnceAtState(STATE_HANDLER_INVALIDATED,
+                () -> metrics.onGestureEnded(gestureId));
+    }
+
     protected boolean onActivityInit(Boolean alreadyOnHome) {
         if (mStateCallback.hasStates(STATE_HANDLER_INVALIDATED)) {
             return false;
@@ -903,8 +939,7 @@ public abstract class AbsSwipeUpHandler<T extends StatefulActivity<S>, Q extends
     @UiThread
     @Override
     public void onCurrentShiftUpdated() {
-        float threshold = LauncherPrefs.get(mContext).get(ALL_APPS_OVERVIEW_THRESHOLD) / 100f;
-        setIsInAllAppsRegion(mCurrentShift.value >= threshold);
+        setIsInAllAppsRegion(mCurrentShift.value >= mAllAppsOverviewThreshold);
         updateSysUiFlags(mCurrentShift.value);
         applyScrollAndTransform();
 
@@ -36,6 +36,7 @@ import com.android.launcher3.icons.IconProvider;
 import com.android.launcher3.icons.IconProvider.IconChangeListener;
 import com.android.launcher3.util.Executors.SimpleThreadFactory;
 import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.quickstep.util.BatchingExecutor;
 import com.android.quickstep.util.GroupTask;
 import com.android.quickstep.util.TaskVisualsChangeListener;
 import com.android.systemui.shared.recents.model.Task;
@@ -75,6 +76,8 @@ public class RecentsModel implements IconChangeListener, TaskStackChangeListener
     private final RecentTasksList mTaskList;
     private final TaskIconCache mIconCache;
     private final TaskThumbnailCache mThumbnailCache;
+    private final BatchingExecutor mTaskDataExecutor =
+            new BatchingExecutor(RECENTS_MODEL_EXECUTOR);
 
     private RecentsModel(Context context) {
         mContext = context;
@@ -83,9 +86,9 @@ public class RecentsModel implements IconChangeListener, TaskStackChangeListener
                 SystemUiProxy.INSTANCE.get(context));
 
         IconProvider iconProvider = new LawnchairIconProvider(context);
-        mIconCache = new TaskIconCache(context, RECENTS_MODEL_EXECUTOR, iconProvider);
+        mIconCache = new TaskIconCache(context, mTaskDataExecutor, iconProvider);
         mIconCache.registerTaskVisualsChangeListener(this);
-        mThumbnailCache = new TaskThumbnailCache(context, RECENTS_MODEL_EXECUTOR);
+        mThumbnailCache = new TaskThumbnailCache(context, mTaskDataExecutor);
 
         if (LawnchairApp.isRecentsEnabled()) {
             TaskStackChangeListeners.getInstance().registerTaskStackListener(this);
@@ -101,6 +104,21 @@ public class RecentsModel implements IconChangeListener, TaskStackChangeListener
         return mThumbnailCache;
     }
 
+    /**
+     * Starts grouping the icon and thumbnail requests made on the UI thread into a single
+     * background task, until the matching {@link #endTaskDataBatch()}.
+     */
+    public void startTaskDataBatch() {
+        mTaskDataExecutor.startBatch();
+    }
+
+    /**
+     * Posts the icon and thumbnail requests made since {@link #startTaskDataBatch()}.
+     */
+    public void endTaskDataBatch() {
+        mTaskDataExecutor.endBatch();
+    }
+
     /**
      * Fetches the list of recent tasks. Tasks are ordered by recency, with the latest active tasks
      * at the end of the list.
@@ -218,6 +236,8 @@ public class RecentsModel implements IconChangeListener, TaskStackChangeListener
         if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
             mThumbnailCache.getHighResLoadingState().setVisible(false);
         }
+        // Shrink the thumbnails, which use most of the memory, as soon as memory gets low
+        mThumbnailCache.onTrimMemory(level);
         if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
             // Clear everything once we reach a low-mem situation
             mThumbnailCache.clear();
@@ -262,6 +282,8 @@ public class RecentsModel implements IconChangeListener, TaskStackChangeListener
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "RecentsModel:");
         mTaskList.dump("  ", writer);
+        mThumbnailCache.dump("  ", writer);
+        mIconCache.dump("  ", writer);
     }
 
     /**
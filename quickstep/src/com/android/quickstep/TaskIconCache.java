@@ -20,8 +20,11 @@ import static com.android.launcher3.util.DisplayController.CHANGE_DENSITY;
 import android.annotation.Nullable;
 import android.app.ActivityManager;
 import android.app.ActivityManager.TaskDescription;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.pm.ActivityInfo;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
@@ -34,11 +37,14 @@ import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.WorkerThread;
 
+import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.icons.BaseIconFactory;
 import com.android.launcher3.icons.BitmapInfo;
+import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.icons.IconProvider;
+import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.util.DisplayController;
 import com.android.launcher3.util.DisplayController.DisplayInfoChangeListener;
 import com.android.launcher3.util.DisplayController.Info;
@@ -51,6 +57,7 @@ import com.android.systemui.shared.recents.model.Task.TaskKey;
 import com.android.systemui.shared.system.PackageManagerWrapper;
 import com.android.systemui.shared.system.TaskDescriptionCompat;
 
+import java.io.PrintWriter;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
@@ -137,6 +144,11 @@ public class TaskIconCache implements DisplayInfoChangeListener {
         mBgExecutor.execute(this::resetFactory);
     }
 
+    void dump(String prefix, PrintWriter writer) {
+        writer.print(prefix + "TaskIconCache: ");
+        mIconCache.dump("", writer);
+    }
+
     void onTaskRemoved(TaskKey taskKey) {
         mIconCache.remove(taskKey);
     }
@@ -156,6 +168,7 @@ public class TaskIconCache implements DisplayInfoChangeListener {
         TaskDescription desc = task.taskDescription;
         TaskKey key = task.key;
         ActivityInfo activityInfo = null;
+        BitmapInfo launcherIcon;
 
         // Create new cache entry
         entry = new TaskCacheEntry();
@@ -170,6 +183,8 @@ public class TaskIconCache implements DisplayInfoChangeListener {
                     key.userId,
                     desc.getPrimaryColor(),
                     false /* isInstantApp */).newIcon(mContext);
+        } else if ((launcherIcon = getLauncherIcon(key)) != null) {
+            entry.icon = launcherIcon.newIcon(mContext);
         } else {
             activityInfo = PackageManagerWrapper.getInstance().getActivityInfo(
                     key.getComponent(), key.userId);
@@ -199,6 +214,46 @@ public class TaskIconCache implements DisplayInfoChangeListener {
         return entry;
     }
 
+    /**
+     * Returns the icon of the activity of the task from the launcher {@link IconCache}, so that
+     * the bitmap already rendered for the workspace and all apps, including icon pack icons, is
+     * shared instead of being rendered again. Returns null if the launcher is not loaded, if the
+     * activity is not a launcher activity, as its own icon could differ from the one of its app,
+     * or if the launcher doesn't have a proper icon for it.
+     */
+    @WorkerThread
+    @Nullable
+    private BitmapInfo getLauncherIcon(TaskKey key) {
+        LauncherAppState app = LauncherAppState.getInstanceNoCreate();
+        ComponentName component = key.getComponent();
+        if (app == null || component == null) {
+            return null;
+        }
+        UserHandle user = UserHandle.of(key.userId);
+        LauncherActivityInfo activityInfo = null;
+        for (LauncherActivityInfo lai : mContext.getSystemService(LauncherApps.class)
+                .getActivityList(component.getPackageName(), user)) {
+            if (component.equals(lai.getComponentName())) {
+                activityInfo = lai;
+                break;
+            }
+        }
+        if (activityInfo == null) {
+            return null;
+        }
+        IconCache iconCache = app.getIconCache();
+        AppInfo info = new AppInfo();
+        info.componentName = component;
+        info.intent = key.baseIntent;
+        info.user = user;
+        iconCache.getTitleAndIcon(info, activityInfo, false /* useLowResIcon */);
+        if (info.bitmap == null || info.bitmap.isNullOrLowRes()
+                || iconCache.isDefaultIcon(info.bitmap, user)) {
+            return null;
+        }
+        return info.bitmap;
+    }
+
     private Bitmap getIcon(ActivityManager.TaskDescription desc, int userId) {
         if (desc.getInMemoryIcon() != null) {
             return desc.getInMemoryIcon();
@@ -15,8 +15,12 @@
  */
 package com.android.quickstep;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.Resources;
+import android.util.DisplayMetrics;
+import android.util.SparseArray;
 
 import com.android.launcher3.R;
 import com.android.launcher3.util.Preconditions;
@@ -27,16 +31,33 @@ import com.android.systemui.shared.recents.model.Task.TaskKey;
 import com.android.systemui.shared.recents.model.ThumbnailData;
 import com.android.systemui.shared.system.ActivityManagerWrapper;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
+/**
+ * Cache of task thumbnails.
+ *
+ * High and low resolution thumbnails are kept in separate tiers, each bounded by the bytes used
+ * by its bitmaps, so that a burst of low resolution loads while flinging does not evict the high
+ * resolution thumbnails of the tasks around the current one. Low resolution thumbnails can also
+ * be prefetched ahead of the tasks becoming visible, see {@link #prefetchThumbnails}.
+ */
 public class TaskThumbnailCache {
 
+    // Maximum part of the memory class of the device used by the high resolution thumbnails
+    private static final int MEMORY_CLASS_FRACTION = 8;
+
     private final Executor mBgExecutor;
 
     private final int mCacheSize;
-    private final TaskKeyLruCache<ThumbnailData> mCache;
+    private final TaskKeyLruCache<ThumbnailData> mHighResCache;
+    private final TaskKeyLruCache<ThumbnailData> mLowResCache;
+    // Pending prefetch requests, by task id
+    private final SparseArray<CancellableTask<ThumbnailData>> mPrefetchRequests =
+            new SparseArray<>();
     private final HighResLoadingState mHighResLoadingState;
     private final boolean mEnableTaskSnapshotPreloading;
 
@@ -97,7 +118,22 @@ public class TaskThumbnailCache {
         Resources res = context.getResources();
         mCacheSize = res.getInteger(R.integer.recentsThumbnailCacheSize);
         mEnableTaskSnapshotPreloading = res.getBoolean(R.bool.config_enableTaskSnapshotPreloading);
-        mCache = new TaskKeyLruCache<>(mCacheSize);
+
+        // Budget the high resolution tier for mCacheSize full screen thumbnails, low resolution
+        // thumbnails are a fraction of that size so many more fit in half the budget. Neither
+        // tier can use more than a fraction of the memory class of the device.
+        DisplayMetrics dm = res.getDisplayMetrics();
+        long memoryClassBytes = (long) context.getSystemService(ActivityManager.class)
+                .getMemoryClass() * 1024 * 1024;
+        long highResBudget = Math.min(
+                (long) mCacheSize * dm.widthPixels * dm.heightPixels * 4,
+                memoryClassBytes / MEMORY_CLASS_FRACTION);
+        mHighResCache = new TaskKeyLruCache<>(highResBudget, TaskThumbnailCache::getByteCount);
+        mLowResCache = new TaskKeyLruCache<>(highResBudget / 2, TaskThumbnailCache::getByteCount);
+    }
+
+    private static int getByteCount(ThumbnailData data) {
+        return data.thumbnail != null ? Math.max(1, data.thumbnail.getAllocationByteCount()) : 1;
     }
 
     /**
@@ -120,7 +156,8 @@ public class TaskThumbnailCache {
      */
     public void updateTaskSnapShot(int taskId, ThumbnailData thumbnail) {
         Preconditions.assertUIThread();
-        mCache.updateIfAlreadyInCache(taskId, thumbnail);
+        mHighResCache.updateIfAlreadyInCache(taskId, thumbnail);
+        mLowResCache.updateIfAlreadyInCache(taskId, thumbnail);
     }
 
     /**
@@ -152,13 +189,14 @@ public class TaskThumbnailCache {
             Consumer<ThumbnailData> callback) {
         Preconditions.assertUIThread();
 
-        ThumbnailData cachedThumbnail = mCache.getAndInvalidateIfModified(key);
-        if (cachedThumbnail != null &&  cachedThumbnail.thumbnail != null
-                && (!cachedThumbnail.reducedResolution || lowResolution)) {
+        ThumbnailData cachedThumbnail = getCachedThumbnail(key, lowResolution);
+        if (cachedThumbnail != null) {
             // Already cached, lets use that thumbnail
             callback.accept(cachedThumbnail);
             return null;
         }
+        // The task is about to be shown, it will be loaded by this request instead
+        cancelPrefetch(key.id);
 
         CancellableTask<ThumbnailData> request = new CancellableTask<ThumbnailData>() {
             @Override
@@ -169,7 +207,7 @@ public class TaskThumbnailCache {
 
             @Override
             public void handleResult(ThumbnailData result) {
-                mCache.put(key, result);
+                putInCache(key, result);
                 callback.accept(result);
             }
         };
@@ -177,18 +215,130 @@ public class TaskThumbnailCache {
         return request;
     }
 
+    /**
+     * Returns the cached thumbnail for {@param key}, preferring the high resolution one, or null
+     * if there is no thumbnail matching the requested resolution.
+     */
+    private ThumbnailData getCachedThumbnail(TaskKey key, boolean lowResolution) {
+        ThumbnailData thumbnail = mHighResCache.getAndInvalidateIfModified(key);
+        if (thumbnail != null && thumbnail.thumbnail != null
+                && (!thumbnail.reducedResolution || lowResolution)) {
+            return thumbnail;
+        }
+        if (lowResolution) {
+            thumbnail = mLowResCache.getAndInvalidateIfModified(key);
+            if (thumbnail != null && thumbnail.thumbnail != null) {
+                return thumbnail;
+            }
+        }
+        return null;
+    }
+
+    private void putInCache(TaskKey key, ThumbnailData thumbnail) {
+        if (thumbnail == null) {
+            return;
+        }
+        if (thumbnail.reducedResolution) {
+            mLowResCache.put(key, thumbnail);
+        } else {
+            mHighResCache.put(key, thumbnail);
+            // The low resolution thumbnail is superseded
+            mLowResCache.remove(key);
+        }
+    }
+
+    /**
+     * Asynchronously loads the low resolution thumbnails of {@param tasks} in the cache, ahead of
+     * the tasks becoming visible. Pending prefetches of tasks which are not in {@param tasks}
+     * anymore are cancelled.
+     */
+    public void prefetchThumbnails(List<Task> tasks) {
+        Preconditions.assertUIThread();
+        SparseArray<Task> prefetchTasks = new SparseArray<>(tasks.size());
+        for (Task task : tasks) {
+            prefetchTasks.put(task.key.id, task);
+        }
+        for (int i = mPrefetchRequests.size() - 1; i >= 0; i--) {
+            if (prefetchTasks.get(mPrefetchRequests.keyAt(i)) == null) {
+                mPrefetchRequests.valueAt(i).cancel();
+                mPrefetchRequests.removeAt(i);
+            }
+        }
+
+        boolean lowResolution = !mHighResLoadingState.mForceHighResThumbnails;
+        for (int i = 0; i < prefetchTasks.size(); i++) {
+            Task task = prefetchTasks.valueAt(i);
+            TaskKey key = task.key;
+            if ((task.thumbnail != null && task.thumbnail.thumbnail != null)
+                    || mPrefetchRequests.get(key.id) != null
+                    || getCachedThumbnail(key, true /* lowResolution */) != null) {
+                continue;
+            }
+            CancellableTask<ThumbnailData> request = new CancellableTask<ThumbnailData>() {
+                @Override
+                public ThumbnailData getResultOnBg() {
+                    return ActivityManagerWrapper.getInstance().getTaskThumbnail(
+                            key.id, lowResolution);
+                }
+
+                @Override
+                public void handleResult(ThumbnailData result) {
+                    mPrefetchRequests.remove(key.id);
+                    putInCache(key, result);
+                }
+            };
+            mPrefetchRequests.put(key.id, request);
+            mBgExecutor.execute(request);
+        }
+    }
+
+    /**
+     * Cancels all the pending prefetches.
+     */
+    public void cancelPrefetches() {
+        for (int i = 0; i < mPrefetchRequests.size(); i++) {
+            mPrefetchRequests.valueAt(i).cancel();
+        }
+        mPrefetchRequests.clear();
+    }
+
+    private void cancelPrefetch(int taskId) {
+        CancellableTask<ThumbnailData> request = mPrefetchRequests.get(taskId);
+        if (request != null) {
+            request.cancel();
+            mPrefetchRequests.remove(taskId);
+        }
+    }
+
     /**
      * Clears the cache.
      */
     public void clear() {
-        mCache.evictAll();
+        cancelPrefetches();
+        mHighResCache.evictAll();
+        mLowResCache.evictAll();
+    }
+
+    /**
+     * Shrinks the cache in response to {@link android.content.ComponentCallbacks2#onTrimMemory}
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            cancelPrefetches();
+        }
+        // Drop the low resolution thumbnails first, they are only there to speed up scrolling
+        mLowResCache.onTrimMemory(level);
+        mHighResCache.onTrimMemory(level);
     }
 
     /**
      * Removes the cached thumbnail for the given task.
      */
     public void remove(Task.TaskKey key) {
-        mCache.remove(key);
+        mHighResCache.remove(key);
+        mLowResCache.remove(key);
     }
 
     /**
@@ -212,6 +362,15 @@ public class TaskThumbnailCache {
         return mEnableTaskSnapshotPreloading && mHighResLoadingState.mVisible;
     }
 
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "TaskThumbnailCache:");
+        writer.print(prefix + "  highRes: ");
+        mHighResCache.dump("", writer);
+        writer.print(prefix + "  lowRes: ");
+        mLowResCache.dump("", writer);
+        writer.println(prefix + "  pendingPrefetches=" + mPrefetchRequests.size());
+    }
+
     /**
      * @return Whether device supports low-res thumbnails. Low-res files are an optimization
      * for faster load times of snapshots. Devices can optionally disable low-res files so that
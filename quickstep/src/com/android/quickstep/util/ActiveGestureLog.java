@@ -15,8 +15,11 @@
  */
 package com.android.quickstep.util;
 
+import android.view.MotionEvent;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
@@ -28,10 +31,15 @@ import java.util.Objects;
 
 /**
  * A log to keep track of the active gesture.
+ *
+ * Events are written to a preallocated ring buffer of primitive slots, so that logging from the
+ * input path does not allocate. Event names are stored by reference, callers are expected to
+ * pass string constants, and the payloads are only formatted when the log is dumped.
  */
 public class ActiveGestureLog {
 
     private static final int MAX_GESTURES_TRACKED = 10;
+    private static final int MAX_EVENTS_TRACKED = 2048;
 
     public static final ActiveGestureLog INSTANCE = new ActiveGestureLog();
 
@@ -42,20 +50,56 @@ public class ActiveGestureLog {
     public static final String INTENT_EXTRA_LOG_TRACE_ID = "INTENT_EXTRA_LOG_TRACE_ID";
 
     private static final int TYPE_ONE_OFF = 0;
-    private static final int TYPE_FLOAT = 1;
     private static final int TYPE_INTEGER = 2;
     private static final int TYPE_BOOL_TRUE = 3;
     private static final int TYPE_BOOL_FALSE = 4;
     private static final int TYPE_INPUT_CONSUMER = 5;
     private static final int TYPE_GESTURE_EVENT = 6;
-
-    private final EventLog[] logs;
-    private int nextIndex;
+    private static final int TYPE_MOTION_EVENT = 7;
+
+    // Primitive payload of each event
+    private static final int ARGS_PER_EVENT = 5;
+    private static final int ARG_VALUE = 0;
+    private static final int ARG_ACTION = 0;
+    private static final int ARG_CLASSIFICATION = 1;
+    private static final int ARG_POINTER_COUNT = 2;
+    private static final int ARG_X = 3;
+    private static final int ARG_Y = 4;
+
+    private final int mCapacity;
+    // Extra slot after the ring, new events are written there until they are committed
+    private final int mScratchIndex;
+    private final int[] mLogIds;
+    private final int[] mTypes;
+    private final String[] mEvents;
+    private final int[] mArgs;
+    private final CompoundString[] mCompoundStrings;
+    private final ActiveGestureErrorDetector.GestureEvent[] mGestureEvents;
+    private final long[] mTimes;
+    private final int[] mDuplicateCounts;
+
+    // Slot of the next event, and number of slots written so far
+    private int mNextIndex;
+    private int mSize;
     private int mCurrentLogId = 100;
 
     private ActiveGestureLog() {
-        this.logs = new EventLog[MAX_GESTURES_TRACKED];
-        this.nextIndex = 0;
+        this(MAX_EVENTS_TRACKED);
+    }
+
+    @VisibleForTesting
+    ActiveGestureLog(int capacity) {
+        mCapacity = capacity;
+        mScratchIndex = capacity;
+        int slots = capacity + 1;
+        mLogIds = new int[slots];
+        mTypes = new int[slots];
+        mEvents = new String[slots];
+        mArgs = new int[slots * ARGS_PER_EVENT];
+        mCompoundStrings = new CompoundString[slots];
+        mGestureEvents = new ActiveGestureErrorDetector.GestureEvent[slots];
+        mTimes = new long[slots];
+        mDuplicateCounts = new int[slots];
     }
 
     /**
@@ -65,7 +109,8 @@ public class ActiveGestureLog {
      *                   execution.
      */
     public void trackEvent(@Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        addLog(TYPE_GESTURE_EVENT, "", 0, CompoundString.NO_OP, gestureEvent);
+        startEvent(TYPE_GESTURE_EVENT, "", CompoundString.NO_OP, gestureEvent);
+        commitEvent();
     }
 
     public void addLog(String event) {
@@ -81,7 +126,8 @@ public class ActiveGestureLog {
     }
 
     public void addLog(CompoundString compoundString) {
-        addLog(TYPE_INPUT_CONSUMER, "", 0, compoundString, null);
+        startEvent(TYPE_INPUT_CONSUMER, "", compoundString, null);
+        commitEvent();
     }
 
     /**
@@ -91,115 +137,160 @@ public class ActiveGestureLog {
      */
     public void addLog(
             String event, @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        addLog(TYPE_ONE_OFF, event, 0, CompoundString.NO_OP, gestureEvent);
+        startEvent(TYPE_ONE_OFF, event, CompoundString.NO_OP, gestureEvent);
+        commitEvent();
     }
 
     public void addLog(
             String event,
             int extras,
             @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        addLog(TYPE_INTEGER, event, extras, CompoundString.NO_OP, gestureEvent);
+        int args = startEvent(TYPE_INTEGER, event, CompoundString.NO_OP, gestureEvent);
+        mArgs[args + ARG_VALUE] = extras;
+        commitEvent();
     }
 
     public void addLog(
             String event,
             boolean extras,
             @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        addLog(
-                extras ? TYPE_BOOL_TRUE : TYPE_BOOL_FALSE,
-                event,
-                0,
-                CompoundString.NO_OP,
+        startEvent(extras ? TYPE_BOOL_TRUE : TYPE_BOOL_FALSE, event, CompoundString.NO_OP,
                 gestureEvent);
+        commitEvent();
+    }
+
+    /**
+     * Logs the action, classification, pointer count and, for down and up events, the position
+     * of {@param motionEvent} without formatting them.
+     */
+    public void addMotionEventLog(
+            String event,
+            MotionEvent motionEvent,
+            @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
+        int action = motionEvent.getActionMasked();
+        int args = startEvent(TYPE_MOTION_EVENT, event, CompoundString.NO_OP, gestureEvent);
+        mArgs[args + ARG_ACTION] = action;
+        mArgs[args + ARG_CLASSIFICATION] = motionEvent.getClassification();
+        mArgs[args + ARG_POINTER_COUNT] = motionEvent.getPointerCount();
+        boolean logPosition = action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_UP;
+        mArgs[args + ARG_X] = logPosition ? (int) motionEvent.getRawX() : Integer.MIN_VALUE;
+        mArgs[args + ARG_Y] = logPosition ? (int) motionEvent.getRawY() : Integer.MIN_VALUE;
+        commitEvent();
     }
 
-    private void addLog(
+    /**
+     * Writes the common fields of a new event to the scratch slot and returns the offset of its
+     * payload in {@link #mArgs}. The event is only added once {@link #commitEvent()} is called.
+     */
+    private int startEvent(
             int type,
             String event,
-            float extras,
-            CompoundString compoundString,
+            @NonNull CompoundString compoundString,
             @Nullable ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        EventLog lastEventLog = logs[(nextIndex + logs.length - 1) % logs.length];
-        if (lastEventLog == null || mCurrentLogId != lastEventLog.logId) {
-            EventLog eventLog = new EventLog(mCurrentLogId);
-            EventEntry eventEntry = new EventEntry();
-
-            eventEntry.update(type, event, extras, compoundString, gestureEvent);
-            eventLog.eventEntries.add(eventEntry);
-            logs[nextIndex] = eventLog;
-            nextIndex = (nextIndex + 1) % logs.length;
-            return;
+        int index = mScratchIndex;
+        mLogIds[index] = mCurrentLogId;
+        mTypes[index] = type;
+        mEvents[index] = event;
+        mCompoundStrings[index] = compoundString;
+        mGestureEvents[index] = gestureEvent;
+        mTimes[index] = System.currentTimeMillis();
+        mDuplicateCounts[index] = 0;
+        int args = index * ARGS_PER_EVENT;
+        for (int i = 0; i < ARGS_PER_EVENT; i++) {
+            mArgs[args + i] = 0;
         }
+        return args;
+    }
 
-        // Update the last EventLog
-        List<EventEntry> lastEventEntries = lastEventLog.eventEntries;
-        EventEntry lastEntry = lastEventEntries.size() > 0
-                ? lastEventEntries.get(lastEventEntries.size() - 1) : null;
-
-        // Update the last EventEntry if it's a duplicate
-        if (isEntrySame(lastEntry, type, event, extras, compoundString, gestureEvent)) {
-            lastEntry.duplicateCount++;
+    /**
+     * Copies the event written by {@link #startEvent} into the ring, or counts it as a duplicate
+     * of the previous event if they are the same. A duplicate leaves the ring untouched, so the
+     * oldest event is only overwritten by a new one.
+     */
+    private void commitEvent() {
+        int scratch = mScratchIndex;
+        int lastIndex = (mNextIndex + mCapacity - 1) % mCapacity;
+        if (mSize > 0 && isEntrySame(lastIndex, scratch)) {
+            mDuplicateCounts[lastIndex]++;
             return;
         }
-        EventEntry eventEntry = new EventEntry();
+        int index = mNextIndex;
+        mLogIds[index] = mLogIds[scratch];
+        mTypes[index] = mTypes[scratch];
+        mEvents[index] = mEvents[scratch];
+        mCompoundStrings[index] = mCompoundStrings[scratch];
+        mGestureEvents[index] = mGestureEvents[scratch];
+        mTimes[index] = mTimes[scratch];
+        mDuplicateCounts[index] = 0;
+        System.arraycopy(mArgs, scratch * ARGS_PER_EVENT, mArgs, index * ARGS_PER_EVENT,
+                ARGS_PER_EVENT);
+        mNextIndex = (index + 1) % mCapacity;
+        mSize = Math.min(mSize + 1, mCapacity);
+    }
 
-        eventEntry.update(type, event, extras, compoundString, gestureEvent);
-        lastEventEntries.add(eventEntry);
+    private boolean isEntrySame(int a, int b) {
+        if (mLogIds[a] != mLogIds[b]
+                || mTypes[a] != mTypes[b]
+                || mGestureEvents[a] != mGestureEvents[b]
+                || !Objects.equals(mEvents[a], mEvents[b])
+                || !mCompoundStrings[a].equals(mCompoundStrings[b])) {
+            return false;
+        }
+        for (int i = 0; i < ARGS_PER_EVENT; i++) {
+            if (mArgs[a * ARGS_PER_EVENT + i] != mArgs[b * ARGS_PER_EVENT + i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public void dump(String prefix, PrintWriter writer) {
+        List<EventLog> logs = getEventLogs();
+
         writer.println(prefix + "ActiveGestureErrorDetector:");
-        for (int i = 0; i < logs.length; i++) {
-            EventLog eventLog = logs[(nextIndex + i) % logs.length];
-            if (eventLog == null) {
-                continue;
-            }
+        for (EventLog eventLog : logs) {
             ActiveGestureErrorDetector.analyseAndDump(prefix + '\t', writer, eventLog);
         }
 
         writer.println(prefix + "ActiveGestureLog history:");
         SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSSZ  ", Locale.US);
         Date date = new Date();
-        for (int i = 0; i < logs.length; i++) {
-            EventLog eventLog = logs[(nextIndex + i) % logs.length];
-            if (eventLog == null) {
-                continue;
-            }
-
+        for (EventLog eventLog : logs) {
             writer.println(prefix + "\tLogs for logId: " + eventLog.logId);
             for (EventEntry eventEntry : eventLog.eventEntries) {
-                date.setTime(eventEntry.time);
-
-                StringBuilder msg = new StringBuilder(prefix + "\t\t").append(sdf.format(date))
-                        .append(eventEntry.event);
-                switch (eventEntry.type) {
-                    case TYPE_BOOL_FALSE:
-                        msg.append(": false");
-                        break;
-                    case TYPE_BOOL_TRUE:
-                        msg.append(": true");
-                        break;
-                    case TYPE_FLOAT:
-                        msg.append(": ").append(eventEntry.extras);
-                        break;
-                    case TYPE_INTEGER:
-                        msg.append(": ").append((int) eventEntry.extras);
-                        break;
-                    case TYPE_INPUT_CONSUMER:
-                        msg.append(eventEntry.mCompoundString);
-                        break;
-                    case TYPE_GESTURE_EVENT:
-                        continue;
-                    default: // fall out
-                }
-                if (eventEntry.duplicateCount > 0) {
-                    msg.append(" & ").append(eventEntry.duplicateCount).append(" similar events");
+                if (eventEntry.type == TYPE_GESTURE_EVENT) {
+                    continue;
                 }
+                date.setTime(eventEntry.time);
+                StringBuilder msg = new StringBuilder(prefix + "\t\t").append(sdf.format(date));
+                eventEntry.appendTo(msg);
                 writer.println(msg);
             }
         }
     }
 
+    /**
+     * Copies the events of the last {@link #MAX_GESTURES_TRACKED} gestures out of the ring
+     * buffer, oldest first.
+     */
+    @VisibleForTesting
+    List<EventLog> getEventLogs() {
+        ArrayList<EventLog> logs = new ArrayList<>();
+        int first = (mNextIndex + mCapacity - mSize) % mCapacity;
+        EventLog eventLog = null;
+        for (int i = 0; i < mSize; i++) {
+            int index = (first + i) % mCapacity;
+            if (eventLog == null || eventLog.logId != mLogIds[index]) {
+                eventLog = new EventLog(mLogIds[index]);
+                logs.add(eventLog);
+            }
+            eventLog.eventEntries.add(new EventEntry(this, index));
+        }
+        return logs.size() > MAX_GESTURES_TRACKED
+                ? logs.subList(logs.size() - MAX_GESTURES_TRACKED, logs.size())
+                : logs;
+    }
+
     /**
      * Increments and returns the current log ID. This should be used every time a new log trace
      * is started.
@@ -213,52 +304,62 @@ public class ActiveGestureLog {
         return mCurrentLogId;
     }
 
-    private boolean isEntrySame(
-            EventEntry entry,
-            int type,
-            String event,
-            float extras,
-            CompoundString compoundString,
-            ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-        return entry != null
-                && entry.type == type
-                && entry.event.equals(event)
-                && Float.compare(entry.extras, extras) == 0
-                && entry.mCompoundString.equals(compoundString)
-                && entry.gestureEvent == gestureEvent;
-    }
-
-    /** A single event entry. */
+    /** A single event entry, copied out of the ring buffer when the log is dumped. */
     protected static class EventEntry {
 
-        private int type;
-        private String event;
-        private float extras;
-        @NonNull private CompoundString mCompoundString;
-        private ActiveGestureErrorDetector.GestureEvent gestureEvent;
-        private long time;
-        private int duplicateCount;
-
-        private EventEntry() {}
+        private final int type;
+        private final String event;
+        private final int[] args = new int[ARGS_PER_EVENT];
+        @NonNull private final CompoundString mCompoundString;
+        private final ActiveGestureErrorDetector.GestureEvent gestureEvent;
+        private final long time;
+        private final int duplicateCount;
+
+        private EventEntry(ActiveGestureLog log, int index) {
+            type = log.mTypes[index];
+            event = log.mEvents[index];
+            System.arraycopy(log.mArgs, index * ARGS_PER_EVENT, args, 0, ARGS_PER_EVENT);
+            mCompoundString = log.mCompoundStrings[index];
+            gestureEvent = log.mGestureEvents[index];
+            time = log.mTimes[index];
+            duplicateCount = log.mDuplicateCounts[index];
+        }
 
         @Nullable
         protected ActiveGestureErrorDetector.GestureEvent getGestureEvent() {
             return gestureEvent;
         }
 
-        private void update(
-                int type,
-                String event,
-                float extras,
-                @NonNull CompoundString compoundString,
-                ActiveGestureErrorDetector.GestureEvent gestureEvent) {
-            this.type = type;
-            this.event = event;
-            this.extras = extras;
-            this.mCompoundString = compoundString;
-            this.gestureEvent = gestureEvent;
-            time = System.currentTimeMillis();
-            duplicateCount = 0;
+        private void appendTo(StringBuilder msg) {
+            msg.append(event);
+            switch (type) {
+                case TYPE_BOOL_FALSE:
+                    msg.append(": false");
+                    break;
+                case TYPE_BOOL_TRUE:
+                    msg.append(": true");
+                    break;
+                case TYPE_INTEGER:
+                    msg.append(": ").append(args[ARG_VALUE]);
+                    break;
+                case TYPE_INPUT_CONSUMER:
+                    msg.append(mCompoundString);
+                    break;
+                case TYPE_MOTION_EVENT:
+                    if (args[ARG_X] != Integer.MIN_VALUE) {
+                        msg.append("(").append(args[ARG_X]).append(", ").append(args[ARG_Y])
+                                .append(")");
+                    }
+                    msg.append(": ").append(MotionEvent.actionToString(args[ARG_ACTION]))
+                            .append(", ")
+                            .append(MotionEvent.classificationToString(args[ARG_CLASSIFICATION]))
+                            .append(", pointerCount: ").append(args[ARG_POINTER_COUNT]);
+                    break;
+                default: // fall out
+            }
+            if (duplicateCount > 0) {
+                msg.append(" & ").append(duplicateCount).append(" similar events");
+            }
         }
     }
 
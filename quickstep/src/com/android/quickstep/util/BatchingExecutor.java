@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+
+import androidx.annotation.UiThread;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor which can group the requests made from the UI thread into a single background task.
+ *
+ * Between {@link #startBatch()} and {@link #endBatch()}, requests are queued instead of being
+ * posted individually. The batch then runs them in order on the wrapped executor. The results of
+ * the {@link CancellableTask}s are delivered in the same order as soon as they are ready, those
+ * which become ready while the UI thread is busy are delivered together in a single callback.
+ * Requests made from other threads, or outside of a batch, are posted directly.
+ */
+public class BatchingExecutor implements Executor {
+
+    private final Executor mExecutor;
+
+    private final ArrayList<Runnable> mPendingTasks = new ArrayList<>();
+    private int mBatchDepth;
+
+    // Results of the batches waiting for the UI thread, guarded by itself
+    private final ArrayList<Runnable> mPendingResults = new ArrayList<>();
+    private final Runnable mDeliverResults = this::deliverResults;
+
+    public BatchingExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        if (mBatchDepth > 0 && MAIN_EXECUTOR.getLooper().isCurrentThread()) {
+            mPendingTasks.add(runnable);
+        } else {
+            mExecutor.execute(runnable);
+        }
+    }
+
+    /**
+     * Starts queuing the requests made on the UI thread. Batches can be nested, the requests are
+     * posted when the outermost batch ends.
+     */
+    @UiThread
+    public void startBatch() {
+        mBatchDepth++;
+    }
+
+    /**
+     * Posts the requests queued since the outermost {@link #startBatch()} as a single task
+     */
+    @UiThread
+    public void endBatch() {
+        if (mBatchDepth == 0 || --mBatchDepth > 0 || mPendingTasks.isEmpty()) {
+            return;
+        }
+        Runnable[] tasks = mPendingTasks.toArray(new Runnable[0]);
+        mPendingTasks.clear();
+        mExecutor.execute(() -> runBatch(tasks));
+    }
+
+    private void runBatch(Runnable[] tasks) {
+        for (Runnable task : tasks) {
+            if (task instanceof CancellableTask) {
+                Runnable resultCallback = ((CancellableTask<?>) task).computeResult();
+                if (resultCallback != null) {
+                    postResult(resultCallback);
+                }
+            } else {
+                task.run();
+            }
+        }
+    }
+
+    private void postResult(Runnable resultCallback) {
+        synchronized (mPendingResults) {
+            mPendingResults.add(resultCallback);
+            if (mPendingResults.size() == 1) {
+                MAIN_EXECUTOR.execute(mDeliverResults);
+            }
+        }
+    }
+
+    @UiThread
+    private void deliverResults() {
+        Runnable[] results;
+        synchronized (mPendingResults) {
+            results = mPendingResults.toArray(new Runnable[0]);
+            mPendingResults.clear();
+        }
+        for (Runnable result : results) {
+            result.run();
+        }
+    }
+}
@@ -17,6 +17,7 @@ package com.android.quickstep.util;
 
 import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.UiThread;
 import androidx.annotation.WorkerThread;
 
@@ -29,19 +30,32 @@ public abstract class CancellableTask<T> implements Runnable {
 
     @Override
     public final void run() {
+        Runnable resultCallback = computeResult();
+        if (resultCallback != null) {
+            MAIN_EXECUTOR.execute(resultCallback);
+        }
+    }
+
+    /**
+     * Processes the request on the worker thread and returns the callback to run on the UI
+     * thread to handle the result, or null if the request was cancelled.
+     */
+    @WorkerThread
+    @Nullable
+    Runnable computeResult() {
         if (mCancelled) {
-            return;
+            return null;
         }
         T result = getResultOnBg();
         if (mCancelled) {
-            return;
+            return null;
         }
-        MAIN_EXECUTOR.execute(() -> {
+        return () -> {
             if (mCancelled) {
                 return;
             }
             handleResult(result);
-        });
+        };
     }
 
     /**
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Aggregated timings of the swipe up gestures.
+ *
+ * For each gesture, the time from the touch down to each phase is recorded in a histogram, along
+ * with the number of frames drawn and dropped between the touch down and the end of the end
+ * target animation. The aggregates are reported in the TouchInteractionService dump, which allows
+ * comparing builds and devices without a full trace.
+ */
+public class GestureMetrics {
+
+    public static final GestureMetrics INSTANCE = new GestureMetrics();
+
+    /** From the touch down to the start of the recents animation */
+    public static final int PHASE_RECENTS_ANIMATION_STARTED = 0;
+    /** From the touch down to the first frame drawn by the launcher */
+    public static final int PHASE_LAUNCHER_DRAWN = 1;
+    /** From the touch down to the screenshot of the running task being available */
+    public static final int PHASE_SCREENSHOT_CAPTURED = 2;
+    /** From the touch down to the end target being set, typically on touch up */
+    public static final int PHASE_END_TARGET_SET = 3;
+    /** From the end target being set to the end of its animation */
+    public static final int PHASE_SETTLED = 4;
+    private static final int PHASE_COUNT = 5;
+
+    private static final String[] PHASE_NAMES = new String[] {
+            "recentsAnimationStarted",
+            "launcherDrawn",
+            "screenshotCaptured",
+            "endTargetSet",
+            "settled"
+    };
+
+    // Upper bounds of the histogram buckets, in ms, the last bucket has no upper bound
+    private static final int[] BUCKET_BOUNDS_MS = new int[] {8, 16, 33, 50, 100, 200, 500, 1000};
+
+    // A frame is considered dropped when it comes this much later than the refresh period
+    private static final float JANK_THRESHOLD = 1.5f;
+
+    private final int[][] mHistograms = new int[PHASE_COUNT][BUCKET_BOUNDS_MS.length + 1];
+    private final long[] mTotalMs = new long[PHASE_COUNT];
+    private final long[] mMaxMs = new long[PHASE_COUNT];
+    private final int[] mCounts = new int[PHASE_COUNT];
+    private int mGestureCount;
+    private long mFrameCount;
+    private long mDroppedFrameCount;
+
+    // State of the current gesture
+    private int mGestureId = -1;
+    private long mGestureStartMs;
+    private long mEndTargetSetMs;
+    private int mRecordedPhases;
+    private long mFramePeriodNanos;
+    private long mLastFrameTimeNanos;
+    private boolean mCountingFrames;
+
+    private final Choreographer.FrameCallback mFrameCallback = this::onFrame;
+
+    @VisibleForTesting
+    GestureMetrics() { }
+
+    /**
+     * Starts recording the phases of a new gesture, ending the previous one if any
+     *
+     * @param touchTimeMs The time of the touch down, in the {@link SystemClock#uptimeMillis}
+     *                    time base
+     * @param refreshRate The refresh rate of the display, used to detect dropped frames
+     */
+    @UiThread
+    public synchronized void onGestureStarted(int gestureId, long touchTimeMs, float refreshRate) {
+        stopCountingFrames();
+        mGestureId = gestureId;
+        mGestureStartMs = touchTimeMs;
+        mEndTargetSetMs = -1;
+        mRecordedPhases = 0;
+        mGestureCount++;
+        mFramePeriodNanos = refreshRate > 0 ? (long) (1_000_000_000L / refreshRate) : 0;
+        mLastFrameTimeNanos = 0;
+        mCountingFrames = true;
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    /**
+     * Records that {@param gestureId} reached {@param phase}. Only the first time each phase is
+     * reached is recorded.
+     */
+    public synchronized void onPhase(int gestureId, int phase) {
+        int phaseFlag = 1 << phase;
+        if (gestureId != mGestureId || (mRecordedPhases & phaseFlag) != 0) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        long durationMs;
+        if (phase == PHASE_SETTLED) {
+            if (mEndTargetSetMs < 0) {
+                return;
+            }
+            durationMs = now - mEndTargetSetMs;
+        } else {
+            durationMs = now - mGestureStartMs;
+        }
+        if (phase == PHASE_END_TARGET_SET) {
+            mEndTargetSetMs = now;
+        }
+        mRecordedPhases |= phaseFlag;
+        record(phase, durationMs);
+
+        if (phase == PHASE_SETTLED) {
+            if (MAIN_EXECUTOR.getLooper().isCurrentThread()) {
+                stopCountingFrames();
+            } else {
+                // The next gesture can start before this runs, it must keep counting its frames
+                MAIN_EXECUTOR.execute(() -> stopCountingFrames(gestureId));
+            }
+        }
+    }
+
+    /**
+     * Stops recording {@param gestureId}, for gestures which end without settling
+     */
+    @UiThread
+    public synchronized void onGestureEnded(int gestureId) {
+        if (gestureId == mGestureId) {
+            stopCountingFrames();
+            mGestureId = -1;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void record(int phase, long durationMs) {
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && durationMs > BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        mHistograms[phase][bucket]++;
+        mTotalMs[phase] += durationMs;
+        mMaxMs[phase] = Math.max(mMaxMs[phase], durationMs);
+        mCounts[phase]++;
+    }
+
+    private synchronized void onFrame(long frameTimeNanos) {
+        if (!mCountingFrames) {
+            return;
+        }
+        if (mLastFrameTimeNanos > 0) {
+            mFrameCount++;
+            long interval = frameTimeNanos - mLastFrameTimeNanos;
+            if (mFramePeriodNanos > 0 && interval > mFramePeriodNanos * JANK_THRESHOLD) {
+                // Count each refresh period which was missed
+                mDroppedFrameCount += Math.round((double) interval / mFramePeriodNanos) - 1;
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    private synchronized void stopCountingFrames(int gestureId) {
+        if (gestureId == mGestureId) {
+            stopCountingFrames();
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isCountingFrames() {
+        return mCountingFrames;
+    }
+
+    private synchronized void stopCountingFrames() {
+        if (mCountingFrames) {
+            mCountingFrames = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Clears all the recorded metrics
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            Arrays.fill(mHistograms[i], 0);
+            mTotalMs[i] = 0;
+            mMaxMs[i] = 0;
+            mCounts[i] = 0;
+        }
+        mGestureCount = 0;
+        mFrameCount = 0;
+        mDroppedFrameCount = 0;
+    }
+
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "GestureMetrics:");
+        writer.println(prefix + "  gestures=" + mGestureCount + " frames=" + mFrameCount
+                + " droppedFrames=" + mDroppedFrameCount);
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            int count = mCounts[phase];
+            StringBuilder line = new StringBuilder(prefix).append("  ")
+                    .append(PHASE_NAMES[phase]).append(": count=").append(count);
+            if (count > 0) {
+                line.append(" avg=").append(mTotalMs[phase] / count).append("ms")
+                        .append(" max=").append(mMaxMs[phase]).append("ms")
+                        .append(" histogram=[");
+                for (int bucket = 0; bucket <= BUCKET_BOUNDS_MS.length; bucket++) {
+                    if (bucket > 0) {
+                        line.append(", ");
+                    }
+                    line.append(bucket < BUCKET_BOUNDS_MS.length
+                            ? "<=" + BUCKET_BOUNDS_MS[bucket] : ">" + BUCKET_BOUNDS_MS[bucket - 1])
+                            .append(": ").append(mHistograms[phase][bucket]);
+                }
+                line.append("]");
+            }
+            writer.println(line);
+        }
+    }
+}
@@ -61,7 +61,10 @@ public class MotionPauseDetector {
     private final Context mContext;
     private final SystemVelocityProvider mVelocityProvider;
 
-    private Float mPreviousVelocity = null;
+    // The motion events are handled without allocating, so the previous velocity is only valid
+    // when mHasPreviousVelocity is true
+    private float mPreviousVelocity;
+    private boolean mHasPreviousVelocity;
 
     private OnMotionPauseListener mOnMotionPauseListener;
     private boolean mIsPaused;
@@ -111,8 +114,13 @@ public class MotionPauseDetector {
      * @param disallowPause If true, we will not detect any pauses until this is set to false again.
      */
     public void setDisallowPause(boolean disallowPause) {
+        if (mDisallowPause == disallowPause) {
+            // This is called on every motion event, avoid building the reason needlessly
+            return;
+        }
         mDisallowPause = disallowPause;
-        updatePaused(mIsPaused, "Set disallowPause=" + disallowPause);
+        updatePaused(mIsPaused, disallowPause
+                ? "Set disallowPause=true" : "Set disallowPause=false");
     }
 
     /**
@@ -136,17 +144,19 @@ public class MotionPauseDetector {
                         : FORCE_PAUSE_TIMEOUT;
         mForcePauseTimeout.setAlarm(timeoutMs);
         float newVelocity = mVelocityProvider.addMotionEvent(ev, ev.getPointerId(pointerIndex));
-        if (mPreviousVelocity != null) {
+        if (mHasPreviousVelocity) {
             checkMotionPaused(newVelocity, mPreviousVelocity, ev.getEventTime());
         }
         mPreviousVelocity = newVelocity;
+        mHasPreviousVelocity = true;
     }
 
     private void checkMotionPaused(float velocity, float prevVelocity, long time) {
         float speed = Math.abs(velocity);
         float previousSpeed = Math.abs(prevVelocity);
         boolean isPaused;
-        String isPausedReason = "";
+        // Reasons must be constants, as this runs for every motion event
+        String isPausedReason;
         if (mIsPaused) {
             // Continue to be paused until moving at a fast speed.
             isPaused = speed < mSpeedFast || previousSpeed < mSpeedFast;
@@ -188,12 +198,17 @@ public class MotionPauseDetector {
     }
 
     private void updatePaused(boolean isPaused, String reason) {
+        boolean wouldHaveBeenPaused = isPaused;
         if (mDisallowPause) {
-            reason = "Disallow pause; otherwise, would have been " + isPaused + " due to " + reason;
             isPaused = false;
         }
         if (mIsPaused != isPaused) {
             mIsPaused = isPaused;
+            // Only build the log when the state changes, to keep the motion events allocation free
+            if (mDisallowPause) {
+                reason = "Disallow pause; otherwise, would have been " + wouldHaveBeenPaused
+                        + " due to " + reason;
+            }
             String logString = "onMotionPauseChanged, paused=" + mIsPaused + " reason=" + reason;
             if (Utilities.isRunningInTestHarness()) {
                 Log.d(TAG, logString);
@@ -218,7 +233,7 @@ public class MotionPauseDetector {
 
     public void clear() {
         mVelocityProvider.clear();
-        mPreviousVelocity = null;
+        mHasPreviousVelocity = false;
         setOnMotionPauseListener(null);
         mIsPaused = mHasEverBeenPaused = false;
         mSlowStartTime = 0;
@@ -15,45 +15,99 @@
  */
 package com.android.quickstep.util;
 
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_MODERATE;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+
 import android.util.Log;
 
 import com.android.systemui.shared.recents.model.Task.TaskKey;
 
+import java.io.PrintWriter;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 /**
- * A simple LRU cache for task key entries
+ * A simple LRU cache for task key entries.
+ *
+ * The cache is bounded by the total weight of its entries, which is the number of entries unless
+ * a weigher is provided. Entries are weighed outside of the lock, so that the critical sections
+ * shared by the UI thread and the background loaders are constant time map operations.
  * @param <V> The type of the value
  */
 public class TaskKeyLruCache<V> {
 
-    private final MyLinkedHashMap<V> mMap;
+    private final LinkedHashMap<Integer, Entry<V>> mMap =
+            new LinkedHashMap<>(0, 0.75f, true /* accessOrder */);
+    private final long mMaxWeight;
+    private final ToIntFunction<V> mWeigher;
+
+    private long mWeight;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
 
     public TaskKeyLruCache(int maxSize) {
-        mMap = new MyLinkedHashMap<>(maxSize);
+        this(maxSize, v -> 1);
+    }
+
+    /**
+     * @param maxWeight The maximum total weight of the entries
+     * @param weigher Returns the weight of a value, at least 1
+     */
+    public TaskKeyLruCache(long maxWeight, ToIntFunction<V> weigher) {
+        mMaxWeight = maxWeight;
+        mWeigher = weigher;
     }
 
     /**
      * Removes all entries from the cache
      */
     public synchronized void evictAll() {
+        mEvictionCount += mMap.size();
         mMap.clear();
+        mWeight = 0;
+    }
+
+    /**
+     * Shrinks the cache in response to {@link android.content.ComponentCallbacks2#onTrimMemory}.
+     * The least recently used entries are evicted, the maximum weight is not changed so the cache
+     * can grow back once the memory pressure is gone.
+     */
+    public synchronized void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            trimToWeight(mMaxWeight / 2);
+        }
     }
 
     /**
      * Removes a particular entry from the cache
      */
     public synchronized void remove(TaskKey key) {
-        mMap.remove(key.id);
+        Entry<V> entry = mMap.remove(key.id);
+        if (entry != null) {
+            mWeight -= entry.mWeight;
+        }
     }
 
     /**
      * Removes all entries matching keyCheck
      */
     public synchronized void removeAll(Predicate<TaskKey> keyCheck) {
-        mMap.entrySet().removeIf(e -> keyCheck.test(e.getValue().mKey));
+        Iterator<Entry<V>> it = mMap.values().iterator();
+        while (it.hasNext()) {
+            Entry<V> entry = it.next();
+            if (keyCheck.test(entry.mKey)) {
+                mWeight -= entry.mWeight;
+                it.remove();
+            }
+        }
     }
 
     /**
@@ -64,8 +118,10 @@ public class TaskKeyLruCache<V> {
 
         if (entry != null && entry.mKey.windowingMode == key.windowingMode
                 && entry.mKey.lastActiveTime == key.lastActiveTime) {
+            mHitCount++;
             return entry.mValue;
         } else {
+            mMissCount++;
             remove(key);
             return null;
         }
@@ -74,9 +130,14 @@ public class TaskKeyLruCache<V> {
     /**
      * Adds an entry to the cache, optionally evicting the last accessed entry
      */
-    public final synchronized void put(TaskKey key, V value) {
+    public final void put(TaskKey key, V value) {
         if (key != null && value != null) {
-            mMap.put(key.id, new Entry<>(key, value));
+            Entry<V> entry = new Entry<>(key, value, mWeigher.applyAsInt(value));
+            synchronized (this) {
+                Entry<V> previous = mMap.put(key.id, entry);
+                mWeight += entry.mWeight - (previous != null ? previous.mWeight : 0);
+                trimToWeight(mMaxWeight);
+            }
         } else {
             Log.e("TaskKeyCache", "Unexpected null key or value: " + key + ", " + value);
         }
@@ -85,21 +146,45 @@ public class TaskKeyLruCache<V> {
     /**
      * Updates the cache entry if it is already present in the cache
      */
-    public synchronized void updateIfAlreadyInCache(int taskId, V data) {
-        Entry<V> entry = mMap.get(taskId);
-        if (entry != null) {
-            entry.mValue = data;
+    public void updateIfAlreadyInCache(int taskId, V data) {
+        int weight = mWeigher.applyAsInt(data);
+        synchronized (this) {
+            Entry<V> entry = mMap.get(taskId);
+            if (entry != null) {
+                mWeight += weight - entry.mWeight;
+                entry.mValue = data;
+                entry.mWeight = weight;
+                trimToWeight(mMaxWeight);
+            }
+        }
+    }
+
+    private void trimToWeight(long maxWeight) {
+        // Iterating the values does not affect the access order, the eldest entries come first
+        Iterator<Entry<V>> it = mMap.values().iterator();
+        while (mWeight > maxWeight && it.hasNext()) {
+            mWeight -= it.next().mWeight;
+            it.remove();
+            mEvictionCount++;
         }
     }
 
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "size=" + mMap.size() + " weight=" + mWeight + "/" + mMaxWeight
+                + " hits=" + mHitCount + " misses=" + mMissCount
+                + " evictions=" + mEvictionCount);
+    }
+
     private static class Entry<V> {
 
         final TaskKey mKey;
         V mValue;
+        int mWeight;
 
-        Entry(TaskKey key, V value) {
+        Entry(TaskKey key, V value, int weight) {
             mKey = key;
             mValue = value;
+            mWeight = weight;
         }
 
         @Override
@@ -107,19 +192,4 @@ public class TaskKeyLruCache<V> {
             return mKey.id;
         }
     }
-
-    private static class MyLinkedHashMap<V> extends LinkedHashMap<Integer, Entry<V>> {
-
-        private final int mMaxSize;
-
-        MyLinkedHashMap(int maxSize) {
-            super(0, 0.75f, true /* accessOrder */);
-            mMaxSize = maxSize;
-        }
-
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<Integer, TaskKeyLruCache.Entry<V>> eldest) {
-            return size() > mMaxSize;
-        }
-    }
 }
@@ -444,6 +444,10 @@ public abstract class RecentsView<ACTIVITY_TYPE extends StatefulActivity<STATE_T
 
     private static final int DISMISS_TASK_DURATION = 300;
     private static final int ADDITION_TASK_DURATION = 200;
+    // Number of tasks beyond the visible ones whose thumbnails are prefetched in the scroll
+    // direction, growing with the fling velocity
+    private static final int MIN_PREFETCH_TASK_COUNT = 2;
+    private static final int MAX_PREFETCH_TASK_COUNT = 6;
     private static final float INITIAL_DISMISS_TRANSLATION_INTERPOLATION_OFFSET = 0.55f;
     private static final float ADDITIONAL_DISMISS_TRANSLATION_INTERPOLATION_OFFSET = 0.05f;
     private static final float ANIMATION_DISMISS_PROGRESS_MIDPOINT = 0.5f;
@@ -509,6 +513,8 @@ public abstract class RecentsView<ACTIVITY_TYPE extends StatefulActivity<STATE_T
     // Keeps track of the previously known visible tasks for purposes of
     // loading/unloading task data
     private final SparseBooleanArray mHasVisibleTaskData = new SparseBooleanArray();
+    // Scroll at the time of the last thumbnail prefetch, used to find the scroll direction
+    private int mLastPrefetchScroll;
 
     private final InvariantDeviceProfile mIdp;
 
@@ -2366,37 +2372,52 @@ public abstract class RecentsView<ACTIVITY_TYPE extends StatefulActivity<STATE_T
             upper = Math.min(centerPageIndex + 2, numChildren - 1);
         }
 
-        // Update the task data for the in/visible children
-        for (int i = 0; i < getTaskViewCount(); i++) {
-            TaskView taskView = requireTaskViewAt(i);
-            TaskIdAttributeContainer[] containers = taskView.getTaskIdAttributeContainers();
-            if (containers[0] == null && containers[1] == null) {
-                continue;
-            }
-            int index = indexOfChild(taskView);
-            boolean visible;
-            if (showAsGrid()) {
-                visible = isTaskViewWithinBounds(taskView, visibleStart, visibleEnd);
-            } else {
-                visible = lower <= index && index <= upper;
-            }
-            if (visible) {
-                // Default update all non-null tasks, then remove running ones
-                List<Task> tasksToUpdate = Arrays.stream(containers).filter(Objects::nonNull)
-                        .map(TaskIdAttributeContainer::getTask)
-                        .collect(Collectors.toCollection(ArrayList::new));
-                if (mTmpRunningTasks != null) {
-                    for (Task t : mTmpRunningTasks) {
-                        // Skip loading if this is the task that we are animating into
-                        // TODO(b/280812109) change this equality check to use A.equals(B)
-                        tasksToUpdate.removeIf(task -> task == t);
-                    }
-                }
-                if (tasksToUpdate.isEmpty()) {
+        // Group the requests of all the task views into a single background task, so that their
+        // data is loaded and delivered in visual order
+        mModel.startTaskDataBatch();
+        try {
+            // Update the task data for the in/visible children
+            int firstVisibleTaskIndex = -1;
+            int lastVisibleTaskIndex = -1;
+            for (int i = 0; i < getTaskViewCount(); i++) {
+                TaskView taskView = requireTaskViewAt(i);
+                TaskIdAttributeContainer[] containers = taskView.getTaskIdAttributeContainers();
+                if (containers[0] == null && containers[1] == null) {
                     continue;
                 }
-                for (Task task : tasksToUpdate) {
-                    if (!mHasVisibleTaskData.get(task.key.id)) {
+                int index = indexOfChild(taskView);
+                boolean visible;
+                if (showAsGrid()) {
+                    visible = isTaskViewWithinBounds(taskView, visibleStart, visibleEnd);
+                } else {
+                    visible = lower <= index && index <= upper;
+                }
+                if (visible) {
+                    if (firstVisibleTaskIndex < 0) {
+                        firstVisibleTaskIndex = i;
+                    }
+                    lastVisibleTaskIndex = i;
+                    // Default update all non-null tasks, then remove running ones
+                    List<Task> tasksToUpdate = Arrays.stream(containers).filter(Objects::nonNull)
+                            .map(TaskIdAttributeContainer::getTask)
+                            .collect(Collectors.toCollection(ArrayList::new));
+                    if (mTmpRunningTasks != null) {
+                        for (Task t : mTmpRunningTasks) {
+                            // Skip loading if this is the task that we are animating into
+                            // TODO(b/280812109) change this equality check to use A.equals(B)
+                            tasksToUpdate.removeIf(task -> task == t);
+                        }
+                    }
+                    if (tasksToUpdate.isEmpty()) {
+                        continue;
+                    }
+                    // The task view loads the data of all its tasks, only notify it once
+                    boolean hasNewlyVisibleTask = false;
+                    for (Task task : tasksToUpdate) {
+                        hasNewlyVisibleTask |= !mHasVisibleTaskData.get(task.key.id);
+                        mHasVisibleTaskData.put(task.key.id, visible);
+                    }
+                    if (hasNewlyVisibleTask) {
                         // Ignore thumbnail update if it's current running task during the gesture
                         // We snapshot at end of gesture, it will update then
                         int changes = dataChanges;
@@ -2405,23 +2426,60 @@ public abstract class RecentsView<ACTIVITY_TYPE extends StatefulActivity<STATE_T
                         }
                         taskView.onTaskListVisibilityChanged(true /* visible */, changes);
                     }
-                    mHasVisibleTaskData.put(task.key.id, visible);
-                }
-            } else {
-                for (TaskIdAttributeContainer container : containers) {
-                    if (container == null) {
-                        continue;
-                    }
+                } else {
+                    for (TaskIdAttributeContainer container : containers) {
+                        if (container == null) {
+                            continue;
+                        }
 
-                    if (mHasVisibleTaskData.get(container.getTask().key.id)) {
-                        taskView.onTaskListVisibilityChanged(false /* visible */, dataChanges);
+                        if (mHasVisibleTaskData.get(container.getTask().key.id)) {
+                            taskView.onTaskListVisibilityChanged(false /* visible */, dataChanges);
+                        }
+                        mHasVisibleTaskData.delete(container.getTask().key.id);
                     }
-                    mHasVisibleTaskData.delete(container.getTask().key.id);
                 }
             }
+            prefetchTaskThumbnails(firstVisibleTaskIndex, lastVisibleTaskIndex);
+        } finally {
+            mModel.endTaskDataBatch();
         }
     }
 
+    /**
+     * Prefetches the thumbnails of the tasks following the visible ones in the direction of the
+     * scroll, so that they are in the cache by the time they become visible. The faster the
+     * fling, the more tasks are prefetched.
+     */
+    private void prefetchTaskThumbnails(int firstVisibleTaskIndex, int lastVisibleTaskIndex) {
+        int scroll = mOrientationHandler.getPrimaryScroll(this);
+        int scrollDelta = scroll - mLastPrefetchScroll;
+        mLastPrefetchScroll = scroll;
+        if (scrollDelta == 0 || firstVisibleTaskIndex < 0) {
+            // Keep the pending prefetches until the direction is known
+            return;
+        }
+
+        float velocity = mScroller.isFinished() ? 0 : mScroller.getCurrVelocity();
+        int prefetchCount = MIN_PREFETCH_TASK_COUNT + Math.round(
+                (MAX_PREFETCH_TASK_COUNT - MIN_PREFETCH_TASK_COUNT)
+                        * Math.min(1f, velocity / mFastFlingVelocity));
+        // Task views are laid out in the opposite direction in RTL
+        int step = (scrollDelta > 0) != mIsRtl ? 1 : -1;
+        int start = step > 0 ? lastVisibleTaskIndex + 1 : firstVisibleTaskIndex - 1;
+
+        ArrayList<Task> tasks = new ArrayList<>(prefetchCount);
+        for (int i = start; i >= 0 && i < getTaskViewCount() && tasks.size() < prefetchCount;
+                i += step) {
+            for (TaskIdAttributeContainer container
+                    : requireTaskViewAt(i).getTaskIdAttributeContainers()) {
+                if (container != null && container.getTask() != null) {
+                    tasks.add(container.getTask());
+                }
+            }
+        }
+        mModel.getThumbnailCache().prefetchThumbnails(tasks);
+    }
+
     /**
      * Unloads any associated data from the currently visible tasks
      */
@@ -2435,6 +2493,7 @@ public abstract class RecentsView<ACTIVITY_TYPE extends StatefulActivity<STATE_T
             }
         }
         mHasVisibleTaskData.clear();
+        mModel.getThumbnailCache().cancelPrefetches();
     }
 
     @Override
@@ -2442,15 +2501,20 @@ public abstract class RecentsView<ACTIVITY_TYPE extends StatefulActivity<STATE_T
         // Whenever the high res loading state changes, poke each of the visible tasks
         // to see if
         // they want to updated their thumbnail state
-        for (int i = 0; i < mHasVisibleTaskData.size(); i++) {
-            if (mHasVisibleTaskData.valueAt(i)) {
-                TaskView taskView = getTaskViewByTaskId(mHasVisibleTaskData.keyAt(i));
-                if (taskView != null) {
-                    // Poke the view again, which will trigger it to load high res if the state
-                    // is enabled
-                    taskView.onTaskListVisibilityChanged(true /* visible */);
+        mModel.startTaskDataBatch();
+        try {
+            for (int i = 0; i < mHasVisibleTaskData.size(); i++) {
+                if (mHasVisibleTaskData.valueAt(i)) {
+                    TaskView taskView = getTaskViewByTaskId(mHasVisibleTaskData.keyAt(i));
+                    if (taskView != null) {
+                        // Poke the view again, which will trigger it to load high res if the state
+                        // is enabled
+                        taskView.onTaskListVisibilityChanged(true /* visible */);
+                    }
                 }
             }
+        } finally {
+            mModel.endTaskDataBatch();
         }
     }
 
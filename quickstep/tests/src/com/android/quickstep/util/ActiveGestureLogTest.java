@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static android.view.MotionEvent.ACTION_DOWN;
+import static android.view.MotionEvent.ACTION_MOVE;
+
+import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_DOWN;
+import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_MOVE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.MotionEvent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Tests for {@link ActiveGestureLog}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class ActiveGestureLogTest {
+
+    private static final String TAG = "ActiveGestureLogTest";
+
+    @Test
+    public void addLog_countsDuplicates() {
+        ActiveGestureLog log = new ActiveGestureLog(16);
+        log.addLog("event", 1);
+        log.addLog("event", 1);
+        log.addLog("event", 2);
+
+        List<ActiveGestureLog.EventLog> logs = log.getEventLogs();
+        assertEquals(1, logs.size());
+        assertEquals(2, logs.get(0).eventEntries.size());
+        String dump = dump(log);
+        assertTrue(dump, dump.contains("event: 1 & 1 similar events"));
+        assertTrue(dump, dump.contains("event: 2"));
+    }
+
+    @Test
+    public void addLog_groupsEventsByLogId() {
+        ActiveGestureLog log = new ActiveGestureLog(16);
+        log.addLog("first");
+        log.incrementLogId();
+        log.addLog("second", true);
+
+        List<ActiveGestureLog.EventLog> logs = log.getEventLogs();
+        assertEquals(2, logs.size());
+        assertEquals(logs.get(0).logId + 1, logs.get(1).logId);
+        assertTrue(dump(log).contains("second: true"));
+    }
+
+    @Test
+    public void addLog_overwritesOldestEvents() {
+        ActiveGestureLog log = new ActiveGestureLog(4);
+        for (int i = 0; i < 10; i++) {
+            log.addLog("event", i);
+        }
+
+        List<ActiveGestureLog.EventLog> logs = log.getEventLogs();
+        assertEquals(4, logs.get(0).eventEntries.size());
+        String dump = dump(log);
+        assertTrue(dump, dump.contains("event: 6"));
+        assertTrue(dump, dump.contains("event: 9"));
+        assertTrue(dump, !dump.contains("event: 5"));
+    }
+
+    @Test
+    public void addLog_duplicateOnFullLogKeepsOldestEvent() {
+        ActiveGestureLog log = new ActiveGestureLog(4);
+        log.addLog("first");
+        log.incrementLogId();
+        for (int i = 0; i < 3; i++) {
+            log.addLog("event", i);
+        }
+        // The log is full, the next slot is the oldest event
+        log.addLog("event", 2);
+
+        List<ActiveGestureLog.EventLog> logs = log.getEventLogs();
+        assertEquals(2, logs.size());
+        assertEquals(1, logs.get(0).eventEntries.size());
+        assertEquals(3, logs.get(1).eventEntries.size());
+        String dump = dump(log);
+        assertTrue(dump, dump.contains("first"));
+        assertTrue(dump, dump.contains("event: 2 & 1 similar events"));
+    }
+
+    @Test
+    public void addMotionEventLog_formatsOnDump() {
+        ActiveGestureLog log = new ActiveGestureLog(16);
+        long time = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(time, time, ACTION_DOWN, 10, 20, 0);
+        log.addMotionEventLog("onMotionEvent", down, MOTION_DOWN);
+        down.recycle();
+
+        String dump = dump(log);
+        assertTrue(dump, dump.contains("onMotionEvent(10, 20): ACTION_DOWN"));
+        assertTrue(dump, dump.contains("pointerCount: 1"));
+    }
+
+    @Test
+    public void addMotionEventLog_perEventCost() {
+        ActiveGestureLog log = new ActiveGestureLog(2048);
+        long time = SystemClock.uptimeMillis();
+        MotionEvent[] moves = new MotionEvent[2];
+        moves[0] = MotionEvent.obtain(time, time, ACTION_MOVE, 10, 20, 0);
+        moves[1] = MotionEvent.obtain(time, time, ACTION_MOVE, 30, 40, 0);
+        // A swipe at 120Hz for 100 seconds, with two log calls per event
+        int eventCount = 12000;
+
+        // Warm up
+        for (int i = 0; i < eventCount; i++) {
+            log.addMotionEventLog("onMotionEvent", moves[i % 2], MOTION_MOVE);
+            log.addLog("move", i);
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < eventCount; i++) {
+            log.addMotionEventLog("onMotionEvent", moves[i % 2], MOTION_MOVE);
+            log.addLog("move", i);
+        }
+        long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+        Log.d(TAG, "Logged " + (2 * eventCount) + " events, "
+                + (elapsed / (2 * eventCount)) + "ns per event");
+        moves[0].recycle();
+        moves[1].recycle();
+
+        assertTrue(dump(log).contains("move: " + (eventCount - 1)));
+    }
+
+    private static String dump(ActiveGestureLog log) {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        log.dump("", writer);
+        writer.flush();
+        return out.toString();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import static com.android.quickstep.util.GestureMetrics.PHASE_END_TARGET_SET;
+import static com.android.quickstep.util.GestureMetrics.PHASE_RECENTS_ANIMATION_STARTED;
+import static com.android.quickstep.util.GestureMetrics.PHASE_SETTLED;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Tests for {@link GestureMetrics}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class GestureMetricsTest {
+
+    @Test
+    public void record_aggregatesPerPhase() {
+        GestureMetrics metrics = new GestureMetrics();
+        metrics.record(PHASE_RECENTS_ANIMATION_STARTED, 5);
+        metrics.record(PHASE_RECENTS_ANIMATION_STARTED, 40);
+        metrics.record(PHASE_RECENTS_ANIMATION_STARTED, 2000);
+
+        String dump = dump(metrics);
+        assertTrue(dump, dump.contains("recentsAnimationStarted: count=3 avg=681ms max=2000ms"));
+        assertTrue(dump, dump.contains("<=8: 1"));
+        assertTrue(dump, dump.contains("<=50: 1"));
+        assertTrue(dump, dump.contains(">1000: 1"));
+        assertTrue(dump, dump.contains("endTargetSet: count=0"));
+    }
+
+    @Test
+    public void reset_clearsMetrics() {
+        GestureMetrics metrics = new GestureMetrics();
+        metrics.record(PHASE_END_TARGET_SET, 120);
+        metrics.reset();
+
+        assertTrue(dump(metrics).contains("endTargetSet: count=0"));
+    }
+
+    @Test
+    public void onPhase_recordsEachPhaseOncePerGesture() {
+        GestureMetrics metrics = new GestureMetrics();
+        getInstrumentation().runOnMainSync(() -> {
+            metrics.onGestureStarted(1, SystemClock.uptimeMillis(), 60);
+            metrics.onPhase(1, PHASE_RECENTS_ANIMATION_STARTED);
+            metrics.onPhase(1, PHASE_RECENTS_ANIMATION_STARTED);
+            metrics.onPhase(1, PHASE_END_TARGET_SET);
+            metrics.onPhase(1, PHASE_SETTLED);
+        });
+
+        String dump = dump(metrics);
+        assertTrue(dump, dump.contains("gestures=1"));
+        assertTrue(dump, dump.contains("recentsAnimationStarted: count=1"));
+        assertTrue(dump, dump.contains("endTargetSet: count=1"));
+        assertTrue(dump, dump.contains("settled: count=1"));
+        assertFalse(metrics.isCountingFrames());
+    }
+
+    @Test
+    public void onPhase_ignoresOtherGesturesAndSettledWithoutEndTarget() {
+        GestureMetrics metrics = new GestureMetrics();
+        getInstrumentation().runOnMainSync(() -> {
+            metrics.onGestureStarted(2, SystemClock.uptimeMillis(), 60);
+            metrics.onPhase(1, PHASE_END_TARGET_SET);
+            metrics.onPhase(2, PHASE_SETTLED);
+        });
+
+        String dump = dump(metrics);
+        assertTrue(dump, dump.contains("endTargetSet: count=0"));
+        assertTrue(dump, dump.contains("settled: count=0"));
+        assertTrue(metrics.isCountingFrames());
+        getInstrumentation().runOnMainSync(() -> metrics.onGestureEnded(2));
+        assertFalse(metrics.isCountingFrames());
+    }
+
+    @Test
+    public void settledOffMainThread_doesNotStopNextGesture() {
+        GestureMetrics metrics = new GestureMetrics();
+        getInstrumentation().runOnMainSync(() -> {
+            metrics.onGestureStarted(1, SystemClock.uptimeMillis(), 60);
+            metrics.onPhase(1, PHASE_END_TARGET_SET);
+            // Posts the end of the frame counting, which runs after the next gesture started
+            Thread settle = new Thread(() -> metrics.onPhase(1, PHASE_SETTLED));
+            settle.start();
+            try {
+                settle.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            metrics.onGestureStarted(2, SystemClock.uptimeMillis(), 60);
+        });
+        getInstrumentation().waitForIdleSync();
+
+        assertTrue(metrics.isCountingFrames());
+        getInstrumentation().runOnMainSync(() -> metrics.onGestureEnded(2));
+    }
+
+    private static String dump(GestureMetrics metrics) {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        metrics.dump("", writer);
+        writer.flush();
+        return out.toString();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static android.view.MotionEvent.ACTION_MOVE;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_MOVE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.util.SafeCloseable;
+import com.android.launcher3.util.TraceHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link MotionPauseDetector}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class MotionPauseDetectorTest {
+
+    // One second of a swipe at 120Hz
+    private static final int EVENT_COUNT = 120;
+    private static final long EVENT_INTERVAL_MS = 8;
+
+    private Context mContext;
+    private MotionEvent[] mEvents;
+
+    @Before
+    public void setUp() {
+        mContext = getInstrumentation().getTargetContext();
+        // Obtain the events upfront, as obtaining them allocates
+        long downTime = SystemClock.uptimeMillis();
+        mEvents = new MotionEvent[EVENT_COUNT];
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            mEvents[i] = MotionEvent.obtain(downTime, downTime + i * EVENT_INTERVAL_MS,
+                    ACTION_MOVE, 500, 2000 - i * 10, 0);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (MotionEvent event : mEvents) {
+            event.recycle();
+        }
+    }
+
+    @Test
+    public void addPosition_pausesWhenMotionStops() {
+        getInstrumentation().runOnMainSync(() -> {
+            MotionPauseDetector detector = new MotionPauseDetector(mContext);
+            long time = SystemClock.uptimeMillis();
+            for (int i = 0; i < 3; i++) {
+                MotionEvent event = MotionEvent.obtain(time, time + i * EVENT_INTERVAL_MS,
+                        ACTION_MOVE, 500, 1000, 0);
+                detector.addPosition(event);
+                event.recycle();
+            }
+            assertTrue(detector.isPaused());
+            detector.clear();
+        });
+    }
+
+    @Test
+    public void setDisallowPause_preventsPause() {
+        getInstrumentation().runOnMainSync(() -> {
+            MotionPauseDetector detector = new MotionPauseDetector(mContext);
+            detector.setDisallowPause(true);
+            long time = SystemClock.uptimeMillis();
+            for (int i = 0; i < 3; i++) {
+                MotionEvent event = MotionEvent.obtain(time, time + i * EVENT_INTERVAL_MS,
+                        ACTION_MOVE, 500, 1000, 0);
+                detector.addPosition(event);
+                event.recycle();
+            }
+            assertFalse(detector.isPaused());
+            detector.clear();
+        });
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void gestureLogAndPauseDetector_doNotAllocatePerEvent() {
+        getInstrumentation().runOnMainSync(() -> {
+            MotionPauseDetector detector = new MotionPauseDetector(mContext);
+            // Warm up, so that the handler messages and the log buffer are already allocated
+            swipe(detector);
+            detector.clear();
+
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            swipe(detector);
+            Debug.stopAllocCounting();
+            int allocations = Debug.getThreadAllocCount();
+            detector.clear();
+
+            assertEquals("Allocations while handling " + EVENT_COUNT + " motion events",
+                    0, allocations);
+        });
+    }
+
+    /**
+     * Replays the trace section and gesture log of TouchInteractionService and the pause
+     * detection of the input consumer for each move event of a swipe up. The rest of
+     * OtherActivityInputConsumer and AbsSwipeUpHandler need a running recents animation, so they
+     * are not covered here.
+     */
+    private void swipe(MotionPauseDetector detector) {
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            MotionEvent event = mEvents[i];
+            try (SafeCloseable c = TraceHelper.INSTANCE.allowIpcs("TIS.onInputEvent")) {
+                ActiveGestureLog.INSTANCE.addMotionEventLog("onMotionEvent", event, MOTION_MOVE);
+                detector.setDisallowPause(i % 2 == 0);
+                detector.addPosition(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.content.Intent;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.systemui.shared.recents.model.Task.TaskKey;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests for {@link TaskKeyLruCache}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class TaskKeyLruCacheTest {
+
+    @Test
+    public void put_evictsLeastRecentlyUsedOverSize() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(2);
+        cache.put(key(1), "1");
+        cache.put(key(2), "2");
+        // Access 1 so that 2 becomes the eldest entry
+        assertEquals("1", cache.getAndInvalidateIfModified(key(1)));
+        cache.put(key(3), "3");
+
+        assertEquals("1", cache.getAndInvalidateIfModified(key(1)));
+        assertNull(cache.getAndInvalidateIfModified(key(2)));
+        assertEquals("3", cache.getAndInvalidateIfModified(key(3)));
+    }
+
+    @Test
+    public void put_evictsUntilUnderWeight() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(10, String::length);
+        cache.put(key(1), "aaa");
+        cache.put(key(2), "bbb");
+        cache.put(key(3), "ccc");
+        cache.put(key(4), "dddddddd");
+
+        assertNull(cache.getAndInvalidateIfModified(key(1)));
+        assertNull(cache.getAndInvalidateIfModified(key(2)));
+        assertNull(cache.getAndInvalidateIfModified(key(3)));
+        assertEquals("dddddddd", cache.getAndInvalidateIfModified(key(4)));
+    }
+
+    @Test
+    public void updateIfAlreadyInCache_updatesWeight() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(10, String::length);
+        cache.put(key(1), "aaa");
+        cache.put(key(2), "bbb");
+        cache.updateIfAlreadyInCache(2, "bbbbbbbbb");
+
+        assertNull(cache.getAndInvalidateIfModified(key(1)));
+        assertEquals("bbbbbbbbb", cache.getAndInvalidateIfModified(key(2)));
+    }
+
+    @Test
+    public void getAndInvalidateIfModified_removesModifiedEntry() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(2);
+        cache.put(key(1), "1");
+
+        assertNull(cache.getAndInvalidateIfModified(new TaskKey(1, 0, new Intent(), null, 0, 1)));
+        assertNull(cache.getAndInvalidateIfModified(key(1)));
+    }
+
+    @Test
+    public void onTrimMemory_shrinksCache() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(4);
+        for (int i = 0; i < 4; i++) {
+            cache.put(key(i), String.valueOf(i));
+        }
+
+        cache.onTrimMemory(TRIM_MEMORY_UI_HIDDEN);
+        assertEquals("0", cache.getAndInvalidateIfModified(key(0)));
+
+        cache.onTrimMemory(TRIM_MEMORY_RUNNING_LOW);
+        assertNull(cache.getAndInvalidateIfModified(key(1)));
+        assertNull(cache.getAndInvalidateIfModified(key(2)));
+        assertEquals("0", cache.getAndInvalidateIfModified(key(0)));
+        assertEquals("3", cache.getAndInvalidateIfModified(key(3)));
+
+        cache.onTrimMemory(TRIM_MEMORY_RUNNING_CRITICAL);
+        assertNull(cache.getAndInvalidateIfModified(key(0)));
+        assertNull(cache.getAndInvalidateIfModified(key(3)));
+    }
+
+    private static TaskKey key(int id) {
+        return new TaskKey(id, 0, new Intent(), null, 0, 0);
+    }
+}
@@ -389,6 +389,15 @@ public class BubbleTextView extends TextView implements ItemInfoUpdateReceiver,
         setTag(itemInfo);
     }
 
+    @Override
+    public void setTag(Object tag) {
+        super.setTag(tag);
+        // The item could be for another package, or have been updated in place
+        if (getParent() instanceof ShortcutAndWidgetContainer) {
+            ((ShortcutAndWidgetContainer) getParent()).onChildTagChanged(this);
+        }
+    }
+
     @UiThread
     protected void applyIconAndLabel(ItemInfoWithIcon info) {
         boolean useTheme = shouldUseTheme();
@@ -86,9 +86,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.List;
-import java.util.Stack;
-import java.util.stream.Collectors;
 
 import app.lawnchair.preferences2.PreferenceManager2;
 import app.lawnchair.theme.color.tokens.ColorTokens;
@@ -222,9 +219,26 @@ public class CellLayout extends ViewGroup {
 
     private final ArrayList<View> mIntersectingViews = new ArrayList<>();
     private final Rect mOccupiedRect = new Rect();
+    // Recycled by rearrangementExists, getDirectionVectorForDrop and findNearestArea, which run
+    // on every drag over tick
+    private final int[] mReorderCell = new int[2];
+    private final Rect mReorderRect = new Rect();
+    private final Rect mReorderChildRect = new Rect();
+    private final ArrayList<View> mReorderSortedViews = new ArrayList<>();
+    private final ArrayList<Rect> mNearestAreaRegions = new ArrayList<>();
+    private final Rect mNearestAreaBestRect = new Rect();
+    private final Rect mRegionRect = new Rect();
+    private final Rect mRegionChildRect = new Rect();
+    // The views need to be sorted so that the results are deterministic on the views positions
+    // and not by the views hash which is "random". The views are sorted by their X position and
+    // then by their Y position to ensure the same order every time.
+    private static final Comparator<View> REORDER_VIEW_ORDER = Comparator
+            .<View>comparingInt(v -> ((CellLayoutLayoutParams) v.getLayoutParams()).getCellX())
+            .thenComparingInt(v -> ((CellLayoutLayoutParams) v.getLayoutParams()).getCellY());
     public final int[] mDirectionVector = new int[2];
 
     ItemConfiguration mPreviousSolution = null;
+    private ReorderAlgorithm mReorderAlgorithm;
     private static final int INVALID_DIRECTION = -100;
 
     private final Rect mTempRect = new Rect();
@@ -520,7 +534,7 @@ public class CellLayout extends ViewGroup {
             debugPaint.setStrokeWidth(Utilities.dpToPx(1));
             for (int x = 0; x < mCountX; x++) {
                 for (int y = 0; y < mCountY; y++) {
-                    if (!mOccupied.cells[x][y]) {
+                    if (!mOccupied.isOccupied(x, y)) {
                         continue;
                     }
                     targetCell[0] = x;
@@ -1351,8 +1365,11 @@ public class CellLayout extends ViewGroup {
         // Keep track of best-scoring drop area
         final int[] bestXY = result != null ? result : new int[2];
         double bestDistance = Double.MAX_VALUE;
-        final Rect bestRect = new Rect(-1, -1, -1, -1);
-        final Stack<Rect> validRegions = new Stack<>();
+        // This runs on every drag over tick, the candidate rects are recycled between calls
+        final Rect bestRect = mNearestAreaBestRect;
+        bestRect.set(-1, -1, -1, -1);
+        final ArrayList<Rect> validRegions = mNearestAreaRegions;
+        int validRegionCount = 0;
 
         final int countX = mCountX;
         final int countY = mCountY;
@@ -1368,12 +1385,8 @@ public class CellLayout extends ViewGroup {
                 int xSize = -1;
                 if (!ignoreOccupied) {
                     // First, let's see if this thing fits anywhere
-                    for (int i = 0; i < minSpanX; i++) {
-                        for (int j = 0; j < minSpanY; j++) {
-                            if (mOccupied.cells[x + i][y + j]) {
-                                continue inner;
-                            }
-                        }
+                    if (!mOccupied.isRegionVacant(x, y, minSpanX, minSpanY)) {
+                        continue inner;
                     }
                     xSize = minSpanX;
                     ySize = minSpanY;
@@ -1386,21 +1399,17 @@ public class CellLayout extends ViewGroup {
                     boolean hitMaxY = ySize >= spanY;
                     while (!(hitMaxX && hitMaxY)) {
                         if (incX && !hitMaxX) {
-                            for (int j = 0; j < ySize; j++) {
-                                if (x + xSize > countX - 1 || mOccupied.cells[x + xSize][y + j]) {
-                                    // We can't move out horizontally
-                                    hitMaxX = true;
-                                }
+                            if (!mOccupied.isRegionVacant(x + xSize, y, 1, ySize)) {
+                                // We can't move out horizontally
+                                hitMaxX = true;
                             }
                             if (!hitMaxX) {
                                 xSize++;
                             }
                         } else if (!hitMaxY) {
-                            for (int i = 0; i < xSize; i++) {
-                                if (y + ySize > countY - 1 || mOccupied.cells[x + i][y + ySize]) {
-                                    // We can't move out vertically
-                                    hitMaxY = true;
-                                }
+                            if (!mOccupied.isRegionVacant(x, y + ySize, xSize, 1)) {
+                                // We can't move out vertically
+                                hitMaxY = true;
                             }
                             if (!hitMaxY) {
                                 ySize++;
@@ -1417,15 +1426,19 @@ public class CellLayout extends ViewGroup {
                 // We verify that the current rect is not a sub-rect of any of our previous
                 // candidates. In this case, the current rect is disqualified in favour of the
                 // containing rect.
-                Rect currentRect = new Rect(x, y, x + xSize, y + ySize);
+                if (validRegionCount == validRegions.size()) {
+                    validRegions.add(new Rect());
+                }
+                Rect currentRect = validRegions.get(validRegionCount);
+                currentRect.set(x, y, x + xSize, y + ySize);
                 boolean contained = false;
-                for (Rect r : validRegions) {
-                    if (r.contains(currentRect)) {
+                for (int i = 0; i < validRegionCount; i++) {
+                    if (validRegions.get(i).contains(currentRect)) {
                         contained = true;
                         break;
                     }
                 }
-                validRegions.push(currentRect);
+                validRegionCount++;
                 double distance = Math.hypot(cellXY[0] - relativeXPos, cellXY[1] - relativeYPos);
 
                 if ((distance <= bestDistance && !contained) ||
@@ -1740,8 +1753,9 @@ public class CellLayout extends ViewGroup {
             boundingRect.set(cellX, cellY, cellX + spanX, cellY + spanY);
         }
         intersectingViews.clear();
-        Rect r0 = new Rect(cellX, cellY, cellX + spanX, cellY + spanY);
-        Rect r1 = new Rect();
+        Rect r0 = mRegionRect;
+        r0.set(cellX, cellY, cellX + spanX, cellY + spanY);
+        Rect r1 = mRegionChildRect;
         final int count = mShortcutsAndWidgets.getChildCount();
         for (int i = 0; i < count; i++) {
             View child = mShortcutsAndWidgets.getChildAt(i);
@@ -1846,7 +1860,7 @@ public class CellLayout extends ViewGroup {
      *         nearest the requested location.
      */
     private int[] findNearestArea(int cellX, int cellY, int spanX, int spanY, int[] direction,
-            boolean[][] occupied, boolean blockOccupied[][], int[] result) {
+            GridOccupancy occupied, GridOccupancy blockOccupied, int[] result) {
         // Keep track of best-scoring drop area
         final int[] bestXY = result != null ? result : new int[2];
         float bestDistance = Float.MAX_VALUE;
@@ -1858,12 +1872,9 @@ public class CellLayout extends ViewGroup {
         for (int y = 0; y < countY - (spanY - 1); y++) {
             inner: for (int x = 0; x < countX - (spanX - 1); x++) {
                 // First, let's see if this thing fits anywhere
-                for (int i = 0; i < spanX; i++) {
-                    for (int j = 0; j < spanY; j++) {
-                        if (occupied[x + i][y + j] && (blockOccupied == null || blockOccupied[i][j])) {
-                            continue inner;
-                        }
-                    }
+                if (blockOccupied == null ? !occupied.isRegionVacant(x, y, spanX, spanY)
+                        : !occupied.isRegionVacant(x, y, blockOccupied)) {
+                    continue inner;
                 }
 
                 float distance = (float) Math.hypot(x - cellX, y - cellY);
@@ -1900,7 +1911,7 @@ public class CellLayout extends ViewGroup {
         mTmpOccupied.markCells(rectOccupiedByPotentialDrop, true);
 
         findNearestArea(c.cellX, c.cellY, c.spanX, c.spanY, direction,
-                mTmpOccupied.cells, null, mTempLocation);
+                mTmpOccupied, null, mTempLocation);
 
         if (mTempLocation[0] >= 0 && mTempLocation[1] >= 0) {
             c.cellX = mTempLocation[0];
@@ -2346,15 +2357,15 @@ public class CellLayout extends ViewGroup {
 
         // TODO(adamcohen) b/151776141 use the items visual center for the direction
         // vector
-        int[] targetDestination = new int[2];
+        int[] targetDestination = mReorderCell;
 
         findNearestAreaIgnoreOccupied(dragViewCenterX, dragViewCenterY, spanX, spanY,
                 targetDestination);
-        Rect dragRect = new Rect();
+        Rect dragRect = mReorderChildRect;
         cellToRect(targetDestination[0], targetDestination[1], spanX, spanY, dragRect);
         dragRect.offset(dragViewCenterX - dragRect.centerX(), dragViewCenterY - dragRect.centerY());
 
-        Rect dropRegionRect = new Rect();
+        Rect dropRegionRect = mReorderRect;
         getViewsIntersectingRegion(targetDestination[0], targetDestination[1], spanX, spanY,
                 dragView, dropRegionRect, mIntersectingViews);
 
@@ -2414,7 +2425,7 @@ public class CellLayout extends ViewGroup {
 
         findNearestArea(boundingRect.left, boundingRect.top, boundingRect.width(),
                 boundingRect.height(), direction,
-                mTmpOccupied.cells, blockOccupied.cells, mTempLocation);
+                mTmpOccupied, blockOccupied, mTempLocation);
 
         // If we successfully found a location by pushing the block of views, we commit
         // it
@@ -2445,9 +2456,9 @@ public class CellLayout extends ViewGroup {
             return false;
 
         mIntersectingViews.clear();
-        if (PreferenceExtensionsKt.firstBlocking(mPreferenceManager2.getAllowWidgetOverlap())) {
+        if (isWidgetOverlapAllowed()) {
             // let's pretend no intersections exist
-            solution.intersectingViews = new ArrayList<>(mIntersectingViews);
+            solution.setIntersectingViews(mIntersectingViews);
             return true;
         }
         mOccupiedRect.set(cellX, cellY, cellX + spanX, cellY + spanY);
@@ -2460,19 +2471,17 @@ public class CellLayout extends ViewGroup {
                 c.cellY = cellY;
             }
         }
-        Rect r0 = new Rect(cellX, cellY, cellX + spanX, cellY + spanY);
-        Rect r1 = new Rect();
-        // The views need to be sorted so that the results are deterministic on the
-        // views positions
-        // and not by the views hash which is "random".
-        // The views are sorted twice, once for the X position and a second time for the
-        // Y position
-        // to ensure same order everytime.
-        Comparator comparator = Comparator
-                .comparing(view -> ((CellLayoutLayoutParams) ((View) view).getLayoutParams()).getCellX())
-                .thenComparing(view -> ((CellLayoutLayoutParams) ((View) view).getLayoutParams()).getCellY());
-        List<View> views = (List<View>) solution.map.keySet().stream().sorted(comparator).collect(Collectors.toList());
-        for (View child : views) {
+        Rect r0 = mReorderRect;
+        r0.set(cellX, cellY, cellX + spanX, cellY + spanY);
+        Rect r1 = mReorderChildRect;
+        ArrayList<View> views = mReorderSortedViews;
+        views.clear();
+        for (int i = 0; i < solution.map.size(); i++) {
+            views.add(solution.map.keyAt(i));
+        }
+        views.sort(REORDER_VIEW_ORDER);
+        for (int i = 0; i < views.size(); i++) {
+            View child = views.get(i);
             if (child == ignoreView)
                 continue;
             CellAndSpan c = solution.map.get(child);
@@ -2486,7 +2495,7 @@ public class CellLayout extends ViewGroup {
             }
         }
 
-        solution.intersectingViews = new ArrayList<>(mIntersectingViews);
+        solution.setIntersectingViews(mIntersectingViews);
 
         // First we try to find a solution which respects the push mechanic. That is,
         // we try to find a solution such that no displaced item travels through another
@@ -2513,14 +2522,32 @@ public class CellLayout extends ViewGroup {
         return true;
     }
 
+    /**
+     * Returns whether items can be dropped over other items without pushing them
+     */
+    public boolean isWidgetOverlapAllowed() {
+        return PreferenceExtensionsKt.firstBlocking(mPreferenceManager2.getAllowWidgetOverlap());
+    }
+
     public ReorderAlgorithm createReorderAlgorithm() {
         return new ReorderAlgorithm(this);
     }
 
+    /**
+     * Returns the {@link ReorderAlgorithm} of this layout. The instance is kept across calls so
+     * that the solutions it memoizes can be reused while dragging.
+     */
+    public ReorderAlgorithm getReorderAlgorithm() {
+        if (mReorderAlgorithm == null) {
+            mReorderAlgorithm = createReorderAlgorithm();
+        }
+        return mReorderAlgorithm;
+    }
+
     protected ItemConfiguration findReorderSolution(int pixelX, int pixelY, int minSpanX,
             int minSpanY, int spanX, int spanY, int[] direction, View dragView, boolean decX,
             ItemConfiguration solution) {
-        return createReorderAlgorithm().findReorderSolution(pixelX, pixelY, minSpanX, minSpanY,
+        return getReorderAlgorithm().findReorderSolution(pixelX, pixelY, minSpanX, minSpanY,
                 spanX, spanY, direction, dragView, decX, solution);
     }
 
@@ -2529,13 +2556,13 @@ public class CellLayout extends ViewGroup {
         for (int i = 0; i < childCount; i++) {
             View child = mShortcutsAndWidgets.getChildAt(i);
             CellLayoutLayoutParams lp = (CellLayoutLayoutParams) child.getLayoutParams();
-            CellAndSpan c;
             if (temp) {
-                c = new CellAndSpan(lp.getTmpCellX(), lp.getTmpCellY(), lp.cellHSpan, lp.cellVSpan);
+                solution.addOrUpdate(child, lp.getTmpCellX(), lp.getTmpCellY(), lp.cellHSpan,
+                        lp.cellVSpan);
             } else {
-                c = new CellAndSpan(lp.getCellX(), lp.getCellY(), lp.cellHSpan, lp.cellVSpan);
+                solution.addOrUpdate(child, lp.getCellX(), lp.getCellY(), lp.cellHSpan,
+                        lp.cellVSpan);
             }
-            solution.add(child, c);
         }
     }
 
@@ -2559,7 +2586,7 @@ public class CellLayout extends ViewGroup {
      */
     public ItemConfiguration calculateReorder(int pixelX, int pixelY, int minSpanX, int minSpanY,
             int spanX, int spanY, View dragView) {
-        return createReorderAlgorithm().calculateReorder(pixelX, pixelY, minSpanX, minSpanY,
+        return getReorderAlgorithm().calculateReorder(pixelX, pixelY, minSpanX, minSpanY,
                 spanX, spanY, dragView);
     }
 
@@ -2699,6 +2726,49 @@ public class CellLayout extends ViewGroup {
             sortedViews.add(v);
         }
 
+        /**
+         * Same as {@link #add(View, CellAndSpan)} but reuses the existing entry of the view if
+         * there is one, so that the configuration can be reset without allocating.
+         */
+        public void addOrUpdate(View v, int cellX, int cellY, int spanX, int spanY) {
+            CellAndSpan c = map.get(v);
+            if (c == null) {
+                add(v, new CellAndSpan(cellX, cellY, spanX, spanY));
+            } else {
+                c.cellX = cellX;
+                c.cellY = cellY;
+                c.spanX = spanX;
+                c.spanY = spanY;
+            }
+        }
+
+        /**
+         * Sets the intersecting views to a copy of {@param views}, reusing the current list
+         */
+        public void setIntersectingViews(ArrayList<View> views) {
+            if (intersectingViews == null) {
+                intersectingViews = new ArrayList<>(views);
+            } else {
+                intersectingViews.clear();
+                intersectingViews.addAll(views);
+            }
+        }
+
+        /**
+         * Removes the entries of the views which are not children of {@param container}
+         * anymore, so that the configuration can be reused for another drag.
+         */
+        public void retainChildrenOf(ShortcutAndWidgetContainer container) {
+            for (int i = map.size() - 1; i >= 0; i--) {
+                View v = map.keyAt(i);
+                if (v.getParent() != container) {
+                    map.removeAt(i);
+                    savedMap.remove(v);
+                    sortedViews.remove(v);
+                }
+            }
+        }
+
         public int area() {
             return spanX * spanY;
         }
@@ -2788,6 +2858,9 @@ public class CellLayout extends ViewGroup {
 
         // Invalidate the drag data
         mPreviousSolution = null;
+        if (mReorderAlgorithm != null) {
+            mReorderAlgorithm.clearCachedSolutions();
+        }
         mDragCell[0] = mDragCell[1] = -1;
         mDragCellSpan[0] = mDragCellSpan[1] = -1;
         mDragOutlineAnims[mDragOutlineCurrent].animateOut();
@@ -2882,7 +2955,7 @@ public class CellLayout extends ViewGroup {
 
     public boolean isOccupied(int x, int y) {
         if (x < mCountX && y < mCountY) {
-            return mOccupied.cells[x][y]
+            return mOccupied.isOccupied(x, y)
                     && !PreferenceExtensionsKt.firstBlocking(mPreferenceManager2.getAllowWidgetOverlap());
         } else {
             throw new RuntimeException("Position exceeds the bound of this CellLayout");
@@ -24,7 +24,6 @@ import android.view.View;
 
 import com.android.launcher3.celllayout.CellLayoutLayoutParams;
 import com.android.launcher3.celllayout.MulticellReorderAlgorithm;
-import com.android.launcher3.util.CellAndSpan;
 import com.android.launcher3.util.GridOccupancy;
 
 /**
@@ -48,7 +47,7 @@ public class MultipageCellLayout extends CellLayout {
     @Override
     protected int[] findNearestArea(int relativeXPos, int relativeYPos, int minSpanX, int minSpanY,
             int spanX, int spanY, boolean ignoreOccupied, int[] result, int[] resultSpan) {
-        return createReorderAlgorithm().simulateSeam(
+        return getReorderAlgorithm().simulateSeam(
                 () -> super.findNearestArea(relativeXPos, relativeYPos, minSpanX, minSpanY, spanX,
                         spanY, ignoreOccupied, result, resultSpan));
     }
@@ -56,7 +55,7 @@ public class MultipageCellLayout extends CellLayout {
     @Override
     public void getDirectionVectorForDrop(int dragViewCenterX, int dragViewCenterY, int spanX,
             int spanY, View dragView, int[] resultDirection) {
-        createReorderAlgorithm().simulateSeam(
+        getReorderAlgorithm().simulateSeam(
                 () -> {
                     super.getDirectionVectorForDrop(dragViewCenterX, dragViewCenterY, spanX, spanY,
                             dragView, resultDirection);
@@ -67,7 +66,7 @@ public class MultipageCellLayout extends CellLayout {
     @Override
     public boolean isNearestDropLocationOccupied(int pixelX, int pixelY, int spanX, int spanY,
             View dragView, int[] result) {
-        return createReorderAlgorithm().simulateSeam(
+        return getReorderAlgorithm().simulateSeam(
                 () -> super.isNearestDropLocationOccupied(pixelX, pixelY, spanX, spanY, dragView,
                         result));
     }
@@ -97,7 +96,7 @@ public class MultipageCellLayout extends CellLayout {
             cellX++;
         }
         int finalCellX = cellX;
-        return createReorderAlgorithm().simulateSeam(
+        return getReorderAlgorithm().simulateSeam(
                 () -> super.createAreaForResize(finalCellX, cellY, spanX, spanY, dragView,
                         direction, commit));
     }
@@ -117,6 +116,11 @@ public class MultipageCellLayout extends CellLayout {
         return new MulticellReorderAlgorithm(this);
     }
 
+    @Override
+    public MulticellReorderAlgorithm getReorderAlgorithm() {
+        return (MulticellReorderAlgorithm) super.getReorderAlgorithm();
+    }
+
     @Override
     public void copyCurrentStateToSolution(ItemConfiguration solution, boolean temp) {
         int childCount = mShortcutsAndWidgets.getChildCount();
@@ -124,9 +128,8 @@ public class MultipageCellLayout extends CellLayout {
             View child = mShortcutsAndWidgets.getChildAt(i);
             CellLayoutLayoutParams lp = (CellLayoutLayoutParams) child.getLayoutParams();
             int seamOffset = lp.getCellX() >= mCountX / 2 && lp.canReorder ? 1 : 0;
-            CellAndSpan c = new CellAndSpan(lp.getCellX() + seamOffset, lp.getCellY(), lp.cellHSpan,
+            solution.addOrUpdate(child, lp.getCellX() + seamOffset, lp.getCellY(), lp.cellHSpan,
                     lp.cellVSpan);
-            solution.add(child, c);
         }
     }
 
@@ -68,6 +68,9 @@ public class ShortcutAndWidgetContainer extends ViewGroup implements FolderIcon.
 
     private final PreferenceManager2 mPreferenceManager2;
 
+    // Not a hierarchy change listener, as other components need that single slot
+    private WorkspaceViewIndex mViewIndex;
+
     public ShortcutAndWidgetContainer(Context context, @ContainerType int containerType) {
         super(context);
         mActivity = ActivityContext.lookupContext(context);
@@ -87,6 +90,35 @@ public class ShortcutAndWidgetContainer extends ViewGroup implements FolderIcon.
         setClipToOutline(!mAllowWidgetOverlap);
     }
 
+    void setViewIndex(WorkspaceViewIndex viewIndex) {
+        mViewIndex = viewIndex;
+    }
+
+    @Override
+    public void onViewAdded(View child) {
+        super.onViewAdded(child);
+        if (mViewIndex != null) {
+            mViewIndex.onChildViewAdded(child);
+        }
+    }
+
+    @Override
+    public void onViewRemoved(View child) {
+        super.onViewRemoved(child);
+        if (mViewIndex != null) {
+            mViewIndex.onChildViewRemoved(child);
+        }
+    }
+
+    /**
+     * Called by {@param child} when its item was replaced or updated
+     */
+    void onChildTagChanged(BubbleTextView child) {
+        if (mViewIndex != null) {
+            mViewIndex.onChildTagChanged(child);
+        }
+    }
+
     public void setCellDimensions(int cellWidth, int cellHeight, int countX, int countY,
             Point borderSpace) {
         mCellWidth = cellWidth;
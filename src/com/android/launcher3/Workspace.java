@@ -121,6 +121,7 @@ import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.RunnableList;
 import com.android.launcher3.util.Thunk;
 import com.android.launcher3.util.WallpaperOffsetInterpolator;
+import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.widget.LauncherAppWidgetHostView;
 import com.android.launcher3.widget.LauncherWidgetHolder;
 import com.android.launcher3.widget.LauncherWidgetHolder.ProviderChangedListener;
@@ -137,6 +138,7 @@ import com.patrykmichalik.opto.core.PreferenceExtensionsKt;
 import com.android.systemui.plugins.shared.LauncherOverlayManager.LauncherOverlayCallbacks;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
@@ -291,6 +293,9 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
     private SparseArray<Parcelable> mSavedStates;
     private final IntArray mRestoredPages = new IntArray();
 
+    // Icons bound on the workspace and hotseat, by package
+    private final WorkspaceViewIndex mViewIndex = new WorkspaceViewIndex();
+
     private float mCurrentScale;
     private float mTransitionProgress;
 
@@ -663,9 +668,18 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
         CellLayout cl = ((CellLayout) child);
         cl.setOnInterceptTouchListener(this);
         cl.setImportantForAccessibility(IMPORTANT_FOR_ACCESSIBILITY_NO);
+        mViewIndex.addLayout(cl);
         super.onViewAdded(child);
     }
 
+    @Override
+    public void onViewRemoved(View child) {
+        if (child instanceof CellLayout) {
+            mViewIndex.removeLayout((CellLayout) child);
+        }
+        super.onViewRemoved(child);
+    }
+
     /**
      * Initializes and binds the first page
      */
@@ -3269,6 +3283,9 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
     void setup(DragController dragController) {
         mSpringLoadedDragController = new SpringLoadedDragController(mLauncher);
         mDragController = dragController;
+        if (mLauncher.getHotseat() != null) {
+            mViewIndex.addLayout(mLauncher.getHotseat());
+        }
 
         // hardware layers on children are enabled on startup, but should be disabled
         // until
@@ -3582,13 +3599,33 @@ public class Workspace<T extends View & PageIndicator> extends PagedView<T>
             return false;
         };
 
-        mapOverItems(op);
+        mViewIndex.forEachMatchingView(updatedDots, op);
         Folder folder = Folder.getOpen(mLauncher);
         if (folder != null) {
             folder.iterateOverItems(op);
         }
     }
 
+    @Override
+    public void updateWorkspaceItems(List<WorkspaceItemInfo> shortcuts, ActivityContext context) {
+        HashSet<PackageUserKey> packages = new HashSet<>();
+        PackageUserKey packageUserKey = new PackageUserKey(null, null);
+        for (WorkspaceItemInfo si : shortcuts) {
+            if (packageUserKey.updateFromItemInfo(si)) {
+                packages.add(new PackageUserKey(packageUserKey.mPackageName, packageUserKey.mUser));
+            }
+        }
+
+        // Only the icons of the updated packages need to be rebound
+        ItemOperator op = LauncherBindableItemsContainer.createWorkspaceItemsUpdater(
+                new HashSet<>(shortcuts));
+        mViewIndex.forEachMatchingView(packages::contains, op);
+        Folder openFolder = Folder.getOpen(context);
+        if (openFolder != null) {
+            openFolder.iterateOverItems(op);
+        }
+    }
+
     /**
      * Remove workspace icons & widget information related to items in matcher.
      *
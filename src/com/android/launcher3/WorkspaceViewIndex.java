@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3;
+
+import android.view.View;
+
+import com.android.launcher3.folder.FolderIcon;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.util.LauncherBindableItemsContainer.ItemOperator;
+import com.android.launcher3.util.PackageUserKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Index of the icons bound on the workspace and hotseat, by the package and user of their items.
+ *
+ * It is kept up to date by the {@link ShortcutAndWidgetContainer}s of each page, which report
+ * their children being added and removed, and the items of their icons being replaced, so that
+ * notification dot and icon updates only visit the affected icons instead of every view of every
+ * page. Folder icons are tracked separately, as their contents can change without any view being
+ * added or removed.
+ */
+class WorkspaceViewIndex {
+
+    private final PackageUserKey mTmpKey = new PackageUserKey(null, null);
+
+    // Icons whose item has a package, by that package and user
+    private final Map<PackageUserKey, ArrayList<BubbleTextView>> mIconsByPackage =
+            new HashMap<>();
+    // The key each icon is indexed under, as its item could have changed since
+    private final Map<BubbleTextView, PackageUserKey> mIconKeys = new HashMap<>();
+    // Icons whose item doesn't have a package
+    private final ArrayList<BubbleTextView> mIconsWithoutPackage = new ArrayList<>();
+    private final ArrayList<FolderIcon> mFolderIcons = new ArrayList<>();
+
+    /**
+     * Starts tracking the children of {@param layout}
+     */
+    void addLayout(CellLayout layout) {
+        ShortcutAndWidgetContainer container = layout.getShortcutsAndWidgets();
+        container.setViewIndex(this);
+        for (int i = 0; i < container.getChildCount(); i++) {
+            onChildViewAdded(container.getChildAt(i));
+        }
+    }
+
+    /**
+     * Stops tracking the children of {@param layout}
+     */
+    void removeLayout(CellLayout layout) {
+        ShortcutAndWidgetContainer container = layout.getShortcutsAndWidgets();
+        container.setViewIndex(null);
+        for (int i = 0; i < container.getChildCount(); i++) {
+            onChildViewRemoved(container.getChildAt(i));
+        }
+    }
+
+    void onChildViewAdded(View child) {
+        if (child instanceof FolderIcon) {
+            mFolderIcons.add((FolderIcon) child);
+        } else if (child instanceof BubbleTextView) {
+            addIcon((BubbleTextView) child);
+        }
+    }
+
+    void onChildViewRemoved(View child) {
+        if (child instanceof FolderIcon) {
+            mFolderIcons.remove(child);
+        } else if (child instanceof BubbleTextView) {
+            removeIcon((BubbleTextView) child);
+        }
+    }
+
+    /**
+     * Indexes {@param icon} again, after its item was replaced or updated
+     */
+    void onChildTagChanged(BubbleTextView icon) {
+        removeIcon(icon);
+        addIcon(icon);
+    }
+
+    private void addIcon(BubbleTextView icon) {
+        if (!(icon.getTag() instanceof ItemInfo)) {
+            // Unbound icons are indexed once their item is set
+            return;
+        }
+        if (!mTmpKey.updateFromItemInfo((ItemInfo) icon.getTag())) {
+            mIconsWithoutPackage.add(icon);
+            return;
+        }
+        ArrayList<BubbleTextView> icons = mIconsByPackage.get(mTmpKey);
+        PackageUserKey key;
+        if (icons == null) {
+            icons = new ArrayList<>(1);
+            key = new PackageUserKey(mTmpKey.mPackageName, mTmpKey.mUser);
+            mIconsByPackage.put(key, icons);
+        } else {
+            key = mIconKeys.get(icons.get(0));
+        }
+        icons.add(icon);
+        mIconKeys.put(icon, key);
+    }
+
+    private void removeIcon(BubbleTextView icon) {
+        PackageUserKey key = mIconKeys.remove(icon);
+        if (key == null) {
+            mIconsWithoutPackage.remove(icon);
+            return;
+        }
+        ArrayList<BubbleTextView> icons = mIconsByPackage.get(key);
+        icons.remove(icon);
+        if (icons.isEmpty()) {
+            mIconsByPackage.remove(key);
+        }
+    }
+    /**
+     * Applies {@param op} to the icons whose package matches {@param packageMatcher}, to the
+     * icons which don't have a package and to all the folder icons. Unlike
+     * {@link Workspace#mapOverItems}, the operator is applied to every view and its result is
+     * ignored.
+     */
+    void forEachMatchingView(Predicate<PackageUserKey> packageMatcher, ItemOperator op) {
+        // Copy the matching views first, as the operator can cause views to be rebound
+        ArrayList<View> views = new ArrayList<>();
+        for (Map.Entry<PackageUserKey, ArrayList<BubbleTextView>> entry
+                : mIconsByPackage.entrySet()) {
+            if (packageMatcher.test(entry.getKey())) {
+                views.addAll(entry.getValue());
+            }
+        }
+        views.addAll(mIconsWithoutPackage);
+        views.addAll(mFolderIcons);
+        for (View v : views) {
+            op.evaluate((ItemInfo) v.getTag(), v);
+        }
+    }
+}
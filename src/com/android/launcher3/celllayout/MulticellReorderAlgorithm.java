@@ -22,7 +22,6 @@ import com.android.launcher3.MultipageCellLayout;
 import com.android.launcher3.ShortcutAndWidgetContainer;
 import com.android.launcher3.util.GridOccupancy;
 
-import java.util.Arrays;
 import java.util.function.Supplier;
 
 /**
@@ -123,7 +122,7 @@ public class MulticellReorderAlgorithm extends ReorderAlgorithm {
             grid.markCells(lp.getCellX() + seamOffset, lp.getCellY(), lp.cellHSpan, lp.cellVSpan,
                     true);
         }
-        Arrays.fill(grid.cells[mCellLayout.getCountX() / 2], true);
+        grid.markCells(mCellLayout.getCountX() / 2, 0, 1, mCellLayout.getCountY(), true);
         return grid;
     }
 }
@@ -29,10 +29,34 @@ public class ReorderAlgorithm {
 
     CellLayout mCellLayout;
 
+    private final ReorderSolutionCache mSolutionCache = new ReorderSolutionCache();
+    private final int[] mTmpResult = new int[2];
+
+    // calculateReorder runs on every drag over tick, so the candidate solutions are recycled
+    // between calls. The returned configuration is only valid until the next call.
+    private final CellLayout.ItemConfiguration mDropInPlaceSolution =
+            new CellLayout.ItemConfiguration();
+    private final CellLayout.ItemConfiguration mClosestSpaceSolution =
+            new CellLayout.ItemConfiguration();
+    private final CellLayout.ItemConfiguration mSwapSolution = new CellLayout.ItemConfiguration();
+    private final int[] mTmpDropCell = new int[2];
+    private final int[] mTmpCell = new int[2];
+    private final int[] mTmpSpan = new int[2];
+
+    // Solutions smaller than this can't be picked by calculateReorder, so they are not searched
+    private int mMinSolutionArea = 0;
+
     public ReorderAlgorithm(CellLayout cellLayout) {
         mCellLayout = cellLayout;
     }
 
+    /**
+     * Drops the memoized push solutions, called when a drag leaves the CellLayout
+     */
+    public void clearCachedSolutions() {
+        mSolutionCache.clear();
+    }
+
     /**
      * This method differs from closestEmptySpaceReorder and dropInPlaceSolution because this method
      * will move items around and will change the shape of the item if possible to try to find a
@@ -59,7 +83,13 @@ public class ReorderAlgorithm {
     public CellLayout.ItemConfiguration findReorderSolution(int pixelX, int pixelY, int minSpanX,
             int minSpanY, int spanX, int spanY, int[] direction, View dragView, boolean decX,
             CellLayout.ItemConfiguration solution) {
+        if (spanX * spanY < mMinSolutionArea) {
+            // Shrinking only makes the area smaller, none of the remaining candidates can win.
+            solution.isSolution = false;
+            return solution;
+        }
         // Copy the current state into the solution. This solution will be manipulated as necessary.
+        solution.retainChildrenOf(mCellLayout.getShortcutsAndWidgets());
         mCellLayout.copyCurrentStateToSolution(solution, false);
         // Copy the current occupied array into the temporary occupied array. This array will be
         // manipulated as necessary to find a solution.
@@ -67,14 +97,29 @@ public class ReorderAlgorithm {
 
         // We find the nearest cell into which we would place the dragged item, assuming there's
         // nothing in its way.
-        int[] result = new int[2];
-        result = mCellLayout.findNearestAreaIgnoreOccupied(pixelX, pixelY, spanX, spanY, result);
+        int[] result = mCellLayout.findNearestAreaIgnoreOccupied(pixelX, pixelY, spanX, spanY,
+                mTmpResult);
 
         boolean success;
         // First we try the exact nearest position of the item being dragged,
-        // we will then want to try to move this around to other neighbouring positions
-        success = mCellLayout.rearrangementExists(result[0], result[1], spanX, spanY, direction,
-                dragView, solution);
+        // we will then want to try to move this around to other neighbouring positions. The
+        // outcome only depends on the layout state, so it is reused across drag over ticks. As
+        // the search can leave the direction modified, the entry is keyed on the original one
+        // and restores the one the search ended with.
+        int directionX = direction[0];
+        int directionY = direction[1];
+        mSolutionCache.validate(mCellLayout, dragView, mCellLayout.isWidgetOverlapAllowed());
+        ReorderSolutionCache.Entry cached = mSolutionCache.get(result[0], result[1], spanX, spanY,
+                directionX, directionY);
+        if (cached != null) {
+            cached.applyTo(solution, mCellLayout.mTmpOccupied, direction);
+            success = cached.success;
+        } else {
+            success = mCellLayout.rearrangementExists(result[0], result[1], spanX, spanY,
+                    direction, dragView, solution);
+            mSolutionCache.put(result[0], result[1], spanX, spanY, directionX, directionY,
+                    success, solution, mCellLayout.mTmpOccupied, direction);
+        }
 
         if (!success) {
             // We try shrinking the widget down to size in an alternating pattern, shrink 1 in
@@ -109,12 +154,13 @@ public class ReorderAlgorithm {
      */
     public CellLayout.ItemConfiguration dropInPlaceSolution(int pixelX, int pixelY, int spanX,
             int spanY, View dragView) {
-        int[] result = new int[2];
+        int[] result = mTmpDropCell;
         if (mCellLayout.isNearestDropLocationOccupied(pixelX, pixelY, spanX, spanY, dragView,
                 result)) {
             result[0] = result[1] = -1;
         }
-        CellLayout.ItemConfiguration solution = new CellLayout.ItemConfiguration();
+        CellLayout.ItemConfiguration solution = mDropInPlaceSolution;
+        solution.retainChildrenOf(mCellLayout.getShortcutsAndWidgets());
         mCellLayout.copyCurrentStateToSolution(solution, false);
         solution.isSolution = result[0] != -1;
         if (!solution.isSolution) {
@@ -139,12 +185,13 @@ public class ReorderAlgorithm {
      */
     public CellLayout.ItemConfiguration closestEmptySpaceReorder(int pixelX, int pixelY,
             int minSpanX, int minSpanY, int spanX, int spanY) {
-        CellLayout.ItemConfiguration solution = new CellLayout.ItemConfiguration();
-        int[] result = new int[2];
-        int[] resultSpan = new int[2];
+        CellLayout.ItemConfiguration solution = mClosestSpaceSolution;
+        int[] result = mTmpCell;
+        int[] resultSpan = mTmpSpan;
         mCellLayout.findNearestVacantArea(pixelX, pixelY, minSpanX, minSpanY, spanX, spanY, result,
                 resultSpan);
         if (result[0] >= 0 && result[1] >= 0) {
+            solution.retainChildrenOf(mCellLayout.getShortcutsAndWidgets());
             mCellLayout.copyCurrentStateToSolution(solution, false);
             solution.cellX = result[0];
             solution.cellY = result[1];
@@ -181,15 +228,21 @@ public class ReorderAlgorithm {
                 spanX, spanY,
                 dragView);
 
-        // Find a solution involving pushing / displacing any items in the way
-        CellLayout.ItemConfiguration swapSolution = findReorderSolution(pixelX, pixelY, minSpanX,
-                minSpanY, spanX, spanY, mCellLayout.mDirectionVector, dragView, true,
-                new CellLayout.ItemConfiguration());
-
         // We attempt the approach which doesn't shuffle views at all
         CellLayout.ItemConfiguration closestSpaceSolution = closestEmptySpaceReorder(
                 pixelX, pixelY, minSpanX, minSpanY, spanX, spanY);
 
+        // Find a solution involving pushing / displacing any items in the way. It is only picked
+        // if it is at least as big as the closest empty space, so smaller spans are not searched.
+        mMinSolutionArea = closestSpaceSolution.isSolution ? closestSpaceSolution.area() : 0;
+        CellLayout.ItemConfiguration swapSolution;
+        try {
+            swapSolution = findReorderSolution(pixelX, pixelY, minSpanX, minSpanY, spanX, spanY,
+                    mCellLayout.mDirectionVector, dragView, true, mSwapSolution);
+        } finally {
+            mMinSolutionArea = 0;
+        }
+
         // If the reorder solution requires resizing (shrinking) the item being dropped, we instead
         // favor a solution in which the item is not resized, but
         if (swapSolution.isSolution && swapSolution.area() >= closestSpaceSolution.area()) {
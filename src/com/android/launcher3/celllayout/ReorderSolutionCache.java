@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.celllayout;
+
+import android.view.View;
+
+import com.android.launcher3.CellLayout;
+import com.android.launcher3.ShortcutAndWidgetContainer;
+import com.android.launcher3.util.CellAndSpan;
+import com.android.launcher3.util.GridOccupancy;
+
+import java.util.ArrayList;
+
+/**
+ * Memoizes the outcome of {@link CellLayout#rearrangementExists} per target cell, span and
+ * direction.
+ *
+ * While an item is dragged over a {@link CellLayout} the same target cell is resolved on every
+ * drag over tick, so the push search would otherwise be repeated from scratch each time. The
+ * cache is tied to a snapshot of the layout state (children positions and occupancy) and is
+ * dropped as soon as that state changes. Entries and their buffers are recycled so that a cache
+ * hit does not allocate.
+ */
+class ReorderSolutionCache {
+
+    private static final int MAX_ENTRIES = 16;
+
+    // Number of ints stored per child in the layout state and in the entries
+    private static final int VIEW_STRIDE = 5;
+
+    private final Entry[] mEntries = new Entry[MAX_ENTRIES];
+    private int mEntryCount;
+    private int mNextEntry;
+
+    // Layout state the entries were computed for
+    private final ArrayList<View> mViews = new ArrayList<>();
+    private int[] mViewState = new int[0];
+    private long[] mOccupiedState;
+    private int mCountX = -1;
+    private int mCountY = -1;
+    private View mDragView;
+    private boolean mAllowWidgetOverlap;
+
+    /**
+     * Drops all the entries if the layout state, the dragged view or the widget overlap setting
+     * changed since they were computed.
+     */
+    void validate(CellLayout layout, View dragView, boolean allowWidgetOverlap) {
+        GridOccupancy occupied = layout.getOccupied();
+        ShortcutAndWidgetContainer container = layout.getShortcutsAndWidgets();
+        int childCount = container.getChildCount();
+
+        boolean valid = dragView == mDragView
+                && allowWidgetOverlap == mAllowWidgetOverlap
+                && occupied.getCountX() == mCountX
+                && occupied.getCountY() == mCountY
+                && childCount == mViews.size()
+                && occupied.matches(mOccupiedState);
+        for (int i = 0; valid && i < childCount; i++) {
+            View child = container.getChildAt(i);
+            valid = child == mViews.get(i) && matchesState(child, i * VIEW_STRIDE);
+        }
+        if (valid) {
+            return;
+        }
+
+        mEntryCount = 0;
+        mNextEntry = 0;
+        mDragView = dragView;
+        mAllowWidgetOverlap = allowWidgetOverlap;
+        mCountX = occupied.getCountX();
+        mCountY = occupied.getCountY();
+        mOccupiedState = occupied.snapshot(mOccupiedState);
+        mViews.clear();
+        if (mViewState.length < childCount * VIEW_STRIDE) {
+            mViewState = new int[childCount * VIEW_STRIDE];
+        }
+        for (int i = 0; i < childCount; i++) {
+            View child = container.getChildAt(i);
+            mViews.add(child);
+            CellLayoutLayoutParams lp = (CellLayoutLayoutParams) child.getLayoutParams();
+            int index = i * VIEW_STRIDE;
+            mViewState[index] = lp.getCellX();
+            mViewState[index + 1] = lp.getCellY();
+            mViewState[index + 2] = lp.cellHSpan;
+            mViewState[index + 3] = lp.cellVSpan;
+            mViewState[index + 4] = lp.canReorder ? 1 : 0;
+        }
+    }
+
+    private boolean matchesState(View child, int index) {
+        CellLayoutLayoutParams lp = (CellLayoutLayoutParams) child.getLayoutParams();
+        return mViewState[index] == lp.getCellX()
+                && mViewState[index + 1] == lp.getCellY()
+                && mViewState[index + 2] == lp.cellHSpan
+                && mViewState[index + 3] == lp.cellVSpan
+                && mViewState[index + 4] == (lp.canReorder ? 1 : 0);
+    }
+
+    /**
+     * Returns the cached entry for the given search or null if there is none
+     */
+    Entry get(int cellX, int cellY, int spanX, int spanY, int directionX, int directionY) {
+        long key = makeKey(cellX, cellY, spanX, spanY, directionX, directionY);
+        for (int i = 0; i < mEntryCount; i++) {
+            if (mEntries[i].key == key) {
+                return mEntries[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the outcome of a search, replacing the oldest entry once the cache is full.
+     * {@param finalDirection} is the direction the search ended with.
+     */
+    void put(int cellX, int cellY, int spanX, int spanY, int directionX, int directionY,
+            boolean success, CellLayout.ItemConfiguration solution, GridOccupancy tmpOccupied,
+            int[] finalDirection) {
+        Entry entry = mEntries[mNextEntry];
+        if (entry == null) {
+            entry = new Entry();
+            mEntries[mNextEntry] = entry;
+        }
+        mNextEntry = (mNextEntry + 1) % MAX_ENTRIES;
+        if (mEntryCount < MAX_ENTRIES) {
+            mEntryCount++;
+        }
+
+        entry.key = makeKey(cellX, cellY, spanX, spanY, directionX, directionY);
+        entry.success = success;
+        entry.finalDirectionX = finalDirection[0];
+        entry.finalDirectionY = finalDirection[1];
+        // The solution recycles its list, so the entry keeps its own copy
+        entry.intersectingViews.clear();
+        if (solution.intersectingViews != null) {
+            entry.intersectingViews.addAll(solution.intersectingViews);
+        }
+        entry.tmpOccupied = tmpOccupied.snapshot(entry.tmpOccupied);
+
+        int viewCount = mViews.size();
+        if (entry.positions.length < viewCount * VIEW_STRIDE) {
+            entry.positions = new int[viewCount * VIEW_STRIDE];
+        }
+        for (int i = 0; i < viewCount; i++) {
+            CellAndSpan c = solution.map.get(mViews.get(i));
+            int index = i * VIEW_STRIDE;
+            entry.positions[index + 4] = c == null ? 0 : 1;
+            if (c != null) {
+                entry.positions[index] = c.cellX;
+                entry.positions[index + 1] = c.cellY;
+                entry.positions[index + 2] = c.spanX;
+                entry.positions[index + 3] = c.spanY;
+            }
+        }
+    }
+
+    /**
+     * Drops all the cached entries
+     */
+    void clear() {
+        mEntryCount = 0;
+        mNextEntry = 0;
+        mViews.clear();
+        mDragView = null;
+        mAllowWidgetOverlap = false;
+        mCountX = mCountY = -1;
+    }
+
+    private static long makeKey(int cellX, int cellY, int spanX, int spanY, int directionX,
+            int directionY) {
+        // Each component is well below 2^12 cells, direction components are in [-1, 1]
+        return ((long) (cellX & 0xFFF) << 52)
+                | ((long) (cellY & 0xFFF) << 40)
+                | ((long) (spanX & 0xFFF) << 28)
+                | ((long) (spanY & 0xFFF) << 16)
+                | ((long) ((directionX + 1) & 0xFF) << 8)
+                | ((directionY + 1) & 0xFF);
+    }
+
+    /**
+     * The outcome of a single {@link CellLayout#rearrangementExists} call
+     */
+    class Entry {
+        long key;
+        boolean success;
+        int finalDirectionX;
+        int finalDirectionY;
+        final ArrayList<View> intersectingViews = new ArrayList<>();
+        long[] tmpOccupied;
+        int[] positions = new int[0];
+
+        /**
+         * Restores the solution, the temporary occupancy and the direction to the state they were
+         * in at the end of the search.
+         */
+        void applyTo(CellLayout.ItemConfiguration solution, GridOccupancy tmpOccupied,
+                int[] direction) {
+            for (int i = 0; i < mViews.size(); i++) {
+                int index = i * VIEW_STRIDE;
+                CellAndSpan c = solution.map.get(mViews.get(i));
+                if (c != null && positions[index + 4] != 0) {
+                    c.cellX = positions[index];
+                    c.cellY = positions[index + 1];
+                    c.spanX = positions[index + 2];
+                    c.spanY = positions[index + 3];
+                }
+            }
+            solution.setIntersectingViews(intersectingViews);
+            tmpOccupied.restore(this.tmpOccupied);
+            direction[0] = finalDirectionX;
+            direction[1] = finalDirectionY;
+        }
+    }
+}
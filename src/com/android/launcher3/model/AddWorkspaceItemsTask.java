@@ -118,11 +118,6 @@ public class AddWorkspaceItemsTask extends BaseModelUpdateTask {
             LauncherApps launcherApps = app.getContext().getSystemService(LauncherApps.class);
 
             for (ItemInfo item : filteredItems) {
-                // Find appropriate space for the item.
-                int[] coords = mItemSpaceFinder.findSpaceForItem(app, dataModel, workspaceScreens,
-                        addedWorkspaceScreensFinal, item.spanX, item.spanY);
-                int screenId = coords[0];
-
                 ItemInfo itemInfo;
                 if (item instanceof WorkspaceItemInfo || item instanceof FolderInfo ||
                         item instanceof LauncherAppWidgetInfo) {
@@ -187,6 +182,12 @@ public class AddWorkspaceItemsTask extends BaseModelUpdateTask {
                     }
                 }
 
+                // Find appropriate space for the item. This is done once the item is known to be
+                // added, as the space finder keeps the returned space reserved.
+                int[] coords = mItemSpaceFinder.findSpaceForItem(app, dataModel, workspaceScreens,
+                        addedWorkspaceScreensFinal, item.spanX, item.spanY);
+                int screenId = coords[0];
+
                 // Add the shortcut to the db
                 getModelWriter().addItemToDatabase(itemInfo,
                         LauncherSettings.Favorites.CONTAINER_DESKTOP, screenId,
@@ -102,6 +102,11 @@ public class BgDataModel {
      */
     public final IntSparseArrayMap<FolderInfo> folders = new IntSparseArrayMap<>();
 
+    /**
+     * Cells used by the items placed directly on the workspace
+     */
+    public final WorkspaceOccupancyIndex workspaceOccupancy = new WorkspaceOccupancyIndex();
+
     /**
      * Extra container based items
      */
@@ -142,6 +147,7 @@ public class BgDataModel {
         itemsIdMap.clear();
         deepShortcutMap.clear();
         extraItems.clear();
+        workspaceOccupancy.clear();
     }
 
     /**
@@ -226,6 +232,7 @@ public class BgDataModel {
                     break;
             }
             itemsIdMap.remove(item.id);
+            workspaceOccupancy.onItemRemoved(item);
         }
         updatedDeepShortcuts.forEach(user -> updateShortcutPinnedState(context, user));
     }
@@ -244,6 +251,7 @@ public class BgDataModel {
                     /* stackTrace= */ null);
         }
         itemsIdMap.put(item.id, item);
+        workspaceOccupancy.onItemAdded(item);
         switch (item.itemType) {
             case LauncherSettings.Favorites.ITEM_TYPE_FOLDER:
             case LauncherSettings.Favorites.ITEM_TYPE_APP_PAIR:
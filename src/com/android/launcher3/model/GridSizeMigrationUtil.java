@@ -22,14 +22,13 @@ import static com.android.launcher3.provider.LauncherDbUtils.copyTable;
 import static com.android.launcher3.provider.LauncherDbUtils.dropTable;
 
 import android.content.ComponentName;
-import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.database.Cursor;
-import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.graphics.Point;
 import android.util.ArrayMap;
 import android.util.Log;
@@ -146,6 +145,23 @@ public class GridSizeMigrationUtil {
             final int destHotseatSize, @NonNull final Point targetSize,
             @NonNull final DeviceGridState srcDeviceState,
             @NonNull final DeviceGridState destDeviceState) {
+        // All the changes are written in a single transaction, using statements compiled once
+        try (SQLiteTransaction t = new SQLiteTransaction(helper.getWritableDatabase());
+                DbWriter writer = new DbWriter(helper, srcReader.mTableName,
+                        destReader.mTableName)) {
+            boolean result = migrate(writer, srcReader, destReader, destHotseatSize,
+                    targetSize, srcDeviceState, destDeviceState);
+            t.commit();
+            return result;
+        }
+    }
+
+    private static boolean migrate(
+            @NonNull final DbWriter writer,
+            @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
+            final int destHotseatSize, @NonNull final Point targetSize,
+            @NonNull final DeviceGridState srcDeviceState,
+            @NonNull final DeviceGridState destDeviceState) {
 
         final List<DbEntry> srcHotseatItems = srcReader.loadHotseatEntries();
         final List<DbEntry> srcWorkspaceItems = srcReader.loadAllWorkspaceEntries();
@@ -192,8 +208,7 @@ public class GridSizeMigrationUtil {
         Collections.sort(workspaceToBeAdded);
 
         // Migrate hotseat
-        solveHotseatPlacement(helper, destHotseatSize,
-                srcReader, destReader, dstHotseatItems, hotseatToBeAdded);
+        solveHotseatPlacement(writer, destHotseatSize, dstHotseatItems, hotseatToBeAdded);
 
         // Migrate workspace.
         // First we create a collection of the screens
@@ -213,7 +228,7 @@ public class GridSizeMigrationUtil {
             if (DEBUG) {
                 Log.d(TAG, "Migrating " + screenId);
             }
-            solveGridPlacement(helper, srcReader,
+            solveGridPlacement(writer, srcReader,
                     destReader, screenId, trgX, trgY, workspaceToBeAdded, false);
             if (workspaceToBeAdded.isEmpty()) {
                 break;
@@ -226,7 +241,7 @@ public class GridSizeMigrationUtil {
         // are placed.
         int screenId = destReader.mLastScreenId + 1;
         while (!workspaceToBeAdded.isEmpty()) {
-            solveGridPlacement(helper, srcReader,
+            solveGridPlacement(writer, srcReader,
                     destReader, screenId, trgX, trgY, workspaceToBeAdded, preservePages);
             screenId++;
         }
@@ -243,13 +258,17 @@ public class GridSizeMigrationUtil {
     private static void calcDiff(@NonNull final List<DbEntry> src,
             @NonNull final List<DbEntry> dest, @NonNull final List<DbEntry> toBeAdded,
             @NonNull final IntArray toBeRemoved) {
+        // Entries are compared by their migration id, hashing them avoids comparing every
+        // pair of entries
+        final Set<DbEntry> srcSet = new HashSet<>(src);
+        final Set<DbEntry> destSet = new HashSet<>(dest);
         src.forEach(entry -> {
-            if (!dest.contains(entry)) {
+            if (!destSet.contains(entry)) {
                 toBeAdded.add(entry);
             }
         });
         dest.forEach(entry -> {
-            if (!src.contains(entry)) {
+            if (!srcSet.contains(entry)) {
                 toBeRemoved.add(entry.id);
                 if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
                     entry.mFolderItems.values().forEach(ids -> ids.forEach(toBeRemoved::add));
@@ -258,51 +277,6 @@ public class GridSizeMigrationUtil {
         });
     }
 
-    private static void insertEntryInDb(DatabaseHelper helper, DbEntry entry,
-            String srcTableName, String destTableName) {
-        int id = copyEntryAndUpdate(helper, entry, srcTableName, destTableName);
-
-        if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
-            for (Set<Integer> itemIds : entry.mFolderItems.values()) {
-                for (int itemId : itemIds) {
-                    copyEntryAndUpdate(helper, itemId, id, srcTableName, destTableName);
-                }
-            }
-        }
-    }
-
-    private static int copyEntryAndUpdate(DatabaseHelper helper,
-            DbEntry entry, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(helper, entry, -1, -1, srcTableName, destTableName);
-    }
-
-    private static int copyEntryAndUpdate(DatabaseHelper helper,
-            int id, int folderId, String srcTableName, String destTableName) {
-        return copyEntryAndUpdate(helper, null, id, folderId, srcTableName, destTableName);
-    }
-
-    private static int copyEntryAndUpdate(DatabaseHelper helper, DbEntry entry,
-            int id, int folderId, String srcTableName, String destTableName) {
-        int newId = -1;
-        Cursor c = helper.getWritableDatabase().query(srcTableName, null,
-                LauncherSettings.Favorites._ID + " = '" + (entry != null ? entry.id : id) + "'",
-                null, null, null, null);
-        while (c.moveToNext()) {
-            ContentValues values = new ContentValues();
-            DatabaseUtils.cursorRowToContentValues(c, values);
-            if (entry != null) {
-                entry.updateContentValues(values);
-            } else {
-                values.put(LauncherSettings.Favorites.CONTAINER, folderId);
-            }
-            newId = helper.generateNewItemId();
-            values.put(LauncherSettings.Favorites._ID, newId);
-            helper.getWritableDatabase().insert(destTableName, null, values);
-        }
-        c.close();
-        return newId;
-    }
-
     private static void removeEntryFromDb(SQLiteDatabase db, String tableName, IntArray entryIds) {
         db.delete(tableName,
                 Utilities.createDbSelectionQuery(LauncherSettings.Favorites._ID, entryIds), null);
@@ -329,7 +303,7 @@ public class GridSizeMigrationUtil {
         return validPackages;
     }
 
-    private static void solveGridPlacement(@NonNull final DatabaseHelper helper,
+    private static void solveGridPlacement(@NonNull final DbWriter writer,
             @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
             final int screenId, final int trgX, final int trgY,
             @NonNull final List<DbEntry> sortedItemsToPlace, final boolean matchingScreenIdOnly) {
@@ -344,6 +318,9 @@ public class GridSizeMigrationUtil {
                 occupied.markCells(entry, true);
             }
         }
+        // Number of cells still available, used to skip entries which can't fit anymore
+        int vacantCells = trgX * (trgY - next.y) - occupied.countOccupiedCells(
+                0, next.y, trgX, trgY - next.y);
         Iterator<DbEntry> iterator = sortedItemsToPlace.iterator();
         while (iterator.hasNext()) {
             final DbEntry entry = iterator.next();
@@ -355,8 +332,15 @@ public class GridSizeMigrationUtil {
                 iterator.remove();
                 continue;
             }
+            if (vacantCells <= 0) {
+                break;
+            }
+            if (entry.minSpanX * entry.minSpanY > vacantCells) {
+                continue;
+            }
             if (findPlacementForEntry(entry, next, trg, occupied, screenId)) {
-                insertEntryInDb(helper, entry, srcReader.mTableName, destReader.mTableName);
+                writer.insertEntry(entry);
+                vacantCells -= entry.spanX * entry.spanY;
                 iterator.remove();
             }
         }
@@ -396,8 +380,7 @@ public class GridSizeMigrationUtil {
     }
 
     private static void solveHotseatPlacement(
-            @NonNull final DatabaseHelper helper, final int hotseatSize,
-            @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
+            @NonNull final DbWriter writer, final int hotseatSize,
             @NonNull final List<DbEntry> placedHotseatItems,
             @NonNull final List<DbEntry> itemsToPlace) {
 
@@ -414,7 +397,7 @@ public class GridSizeMigrationUtil {
                 // to something other than -1.
                 entry.cellX = i;
                 entry.cellY = 0;
-                insertEntryInDb(helper, entry, srcReader.mTableName, destReader.mTableName);
+                writer.insertEntry(entry);
                 occupied[entry.screenId] = true;
             }
         }
@@ -430,6 +413,9 @@ public class GridSizeMigrationUtil {
 
         private final Map<Integer, ArrayList<DbEntry>> mWorkspaceEntriesByScreenId = new ArrayMap<>();
 
+        // Contents of all the folders, keyed by folder id, loaded lazily in a single query
+        private Map<Integer, FolderContents> mFolderContents;
+
         DbReader(SQLiteDatabase db, String tableName, Context context,
                 Set<String> validPackages) {
             mDb = db;
@@ -439,6 +425,7 @@ public class GridSizeMigrationUtil {
         }
 
         protected List<DbEntry> loadHotseatEntries() {
+            mFolderContents = null;
             final List<DbEntry> hotseatEntries = new ArrayList<>();
             Cursor c = queryWorkspace(
                     new String[] {
@@ -495,6 +482,7 @@ public class GridSizeMigrationUtil {
         }
 
         protected List<DbEntry> loadAllWorkspaceEntries() {
+            mFolderContents = null;
             final List<DbEntry> workspaceEntries = new ArrayList<>();
             Cursor c = queryWorkspace(
                     new String[] {
@@ -596,27 +584,53 @@ public class GridSizeMigrationUtil {
         }
 
         private int getFolderItemsCount(DbEntry entry) {
-            Cursor c = queryWorkspace(
-                    new String[] { LauncherSettings.Favorites._ID, LauncherSettings.Favorites.INTENT },
-                    LauncherSettings.Favorites.CONTAINER + " = " + entry.id);
+            if (mFolderContents == null) {
+                mFolderContents = loadFolderContents();
+            }
+            FolderContents contents = mFolderContents.remove(entry.id);
+            if (contents == null) {
+                return 0;
+            }
+            if (!contents.invalidItemIds.isEmpty()) {
+                removeEntryFromDb(mDb, mTableName, contents.invalidItemIds);
+            }
+            entry.mFolderItems = contents.items;
+            return contents.count;
+        }
 
-            int total = 0;
+        /**
+         * Reads the items of all the folders at once, instead of querying each folder separately
+         */
+        private Map<Integer, FolderContents> loadFolderContents() {
+            Map<Integer, FolderContents> result = new HashMap<>();
+            Cursor c = queryWorkspace(
+                    new String[] {
+                            LauncherSettings.Favorites._ID, // 0
+                            LauncherSettings.Favorites.INTENT, // 1
+                            LauncherSettings.Favorites.CONTAINER }, // 2
+                    LauncherSettings.Favorites.CONTAINER + " > 0");
             while (c.moveToNext()) {
+                int container = c.getInt(2);
+                FolderContents contents = result.get(container);
+                if (contents == null) {
+                    contents = new FolderContents();
+                    result.put(container, contents);
+                }
+                int id = c.getInt(0);
                 try {
-                    int id = c.getInt(0);
                     String intent = c.getString(1);
                     verifyIntent(intent);
-                    total++;
-                    if (!entry.mFolderItems.containsKey(intent)) {
-                        entry.mFolderItems.put(intent, new HashSet<>());
+                    contents.count++;
+                    if (!contents.items.containsKey(intent)) {
+                        contents.items.put(intent, new HashSet<>());
                     }
-                    entry.mFolderItems.get(intent).add(id);
+                    contents.items.get(intent).add(id);
                 } catch (Exception e) {
-                    removeEntryFromDb(mDb, mTableName, IntArray.wrap(c.getInt(0)));
+                    contents.invalidItemIds.add(id);
                 }
             }
             c.close();
-            return total;
+            return result;
         }
 
         private Cursor queryWorkspace(String[] columns, String where) {
@@ -645,11 +659,117 @@ public class GridSizeMigrationUtil {
         }
     }
 
+    private static class FolderContents {
+        final Map<String, Set<Integer>> items = new HashMap<>();
+        final IntArray invalidItemIds = new IntArray();
+        int count;
+    }
+
+    /**
+     * Copies the migrated entries from the source table to the destination table, using
+     * statements which are compiled once for the whole migration.
+     */
+    private static class DbWriter implements AutoCloseable {
+
+        private final DatabaseHelper mHelper;
+        private final String mSrcTableName;
+        private final String mDestTableName;
+
+        private SQLiteStatement mInsertEntry;
+        private SQLiteStatement mInsertFolderItem;
+
+        DbWriter(DatabaseHelper helper, String srcTableName, String destTableName) {
+            mHelper = helper;
+            mSrcTableName = srcTableName;
+            mDestTableName = destTableName;
+        }
+
+        /**
+         * Copies {@param entry} at its new position, along with its folder items if any
+         */
+        void insertEntry(DbEntry entry) {
+            if (mInsertEntry == null) {
+                compileStatements();
+            }
+            int newId = mHelper.generateNewItemId();
+            mInsertEntry.bindLong(1, newId);
+            mInsertEntry.bindLong(2, entry.screenId);
+            mInsertEntry.bindLong(3, entry.cellX);
+            mInsertEntry.bindLong(4, entry.cellY);
+            mInsertEntry.bindLong(5, entry.spanX);
+            mInsertEntry.bindLong(6, entry.spanY);
+            mInsertEntry.bindLong(7, entry.id);
+            if (mInsertEntry.executeInsert() < 0) {
+                return;
+            }
+
+            if (entry.itemType == LauncherSettings.Favorites.ITEM_TYPE_FOLDER) {
+                for (Set<Integer> itemIds : entry.mFolderItems.values()) {
+                    for (int itemId : itemIds) {
+                        mInsertFolderItem.bindLong(1, mHelper.generateNewItemId());
+                        mInsertFolderItem.bindLong(2, newId);
+                        mInsertFolderItem.bindLong(3, itemId);
+                        mInsertFolderItem.executeInsert();
+                    }
+                }
+            }
+        }
+
+        private void compileStatements() {
+            SQLiteDatabase db = mHelper.getWritableDatabase();
+            List<String> columns = new ArrayList<>();
+            try (Cursor c = db.rawQuery("PRAGMA table_info(" + mSrcTableName + ")", null)) {
+                int nameIndex = c.getColumnIndexOrThrow("name");
+                while (c.moveToNext()) {
+                    columns.add(c.getString(nameIndex));
+                }
+            }
+
+            // Both statements copy the source row, overriding the columns affected by the
+            // migration with bound arguments
+            Map<String, String> entryOverrides = new HashMap<>();
+            entryOverrides.put(LauncherSettings.Favorites._ID, "?1");
+            entryOverrides.put(LauncherSettings.Favorites.SCREEN, "?2");
+            entryOverrides.put(LauncherSettings.Favorites.CELLX, "?3");
+            entryOverrides.put(LauncherSettings.Favorites.CELLY, "?4");
+            entryOverrides.put(LauncherSettings.Favorites.SPANX, "?5");
+            entryOverrides.put(LauncherSettings.Favorites.SPANY, "?6");
+            mInsertEntry = db.compileStatement(createCopyQuery(columns, entryOverrides, "?7"));
+
+            Map<String, String> folderItemOverrides = new HashMap<>();
+            folderItemOverrides.put(LauncherSettings.Favorites._ID, "?1");
+            folderItemOverrides.put(LauncherSettings.Favorites.CONTAINER, "?2");
+            mInsertFolderItem = db.compileStatement(
+                    createCopyQuery(columns, folderItemOverrides, "?3"));
+        }
+
+        private String createCopyQuery(List<String> columns, Map<String, String> overrides,
+                String srcIdArg) {
+            String columnNames = String.join(", ", columns);
+            String values = columns.stream()
+                    .map(column -> overrides.getOrDefault(column, column))
+                    .collect(Collectors.joining(", "));
+            return "INSERT INTO " + mDestTableName + " (" + columnNames + ") SELECT " + values
+                    + " FROM " + mSrcTableName + " WHERE " + LauncherSettings.Favorites._ID
+                    + " = " + srcIdArg;
+        }
+
+        @Override
+        public void close() {
+            if (mInsertEntry != null) {
+                mInsertEntry.close();
+                mInsertFolderItem.close();
+            }
+        }
+    }
+
     protected static class DbEntry extends ItemInfo implements Comparable<DbEntry> {
 
         private String mIntent;
         private String mProvider;
         private Map<String, Set<Integer>> mFolderItems = new HashMap<>();
+        // Computed once all the fields are loaded, as it requires parsing the intents
+        private String mMigrationId;
 
         /** Comparator according to the reading order */
         @Override
@@ -678,14 +798,6 @@ public class GridSizeMigrationUtil {
             return Objects.hash(getEntryMigrationId());
         }
 
-        public void updateContentValues(ContentValues values) {
-            values.put(LauncherSettings.Favorites.SCREEN, screenId);
-            values.put(LauncherSettings.Favorites.CELLX, cellX);
-            values.put(LauncherSettings.Favorites.CELLY, cellY);
-            values.put(LauncherSettings.Favorites.SPANX, spanX);
-            values.put(LauncherSettings.Favorites.SPANY, spanY);
-        }
-
         /**
          * This id is not used in the DB is only used while doing the migration and it
          * identifies
@@ -694,6 +806,13 @@ public class GridSizeMigrationUtil {
          * migration id even thought they have different database ids.
          */
         public String getEntryMigrationId() {
+            if (mMigrationId == null) {
+                mMigrationId = computeEntryMigrationId();
+            }
+            return mMigrationId;
+        }
+
+        private String computeEntryMigrationId() {
             switch (itemType) {
                 case LauncherSettings.Favorites.ITEM_TYPE_FOLDER:
                     return getFolderMigrationId();
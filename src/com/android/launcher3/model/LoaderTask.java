@@ -908,9 +908,13 @@ public class LoaderTask implements Runnable {
             IntArray deletedFolderIds = mApp.getModel().getModelDbController().deleteEmptyFolders();
             synchronized (mBgDataModel) {
                 for (int folderId : deletedFolderIds) {
-                    mBgDataModel.workspaceItems.remove(mBgDataModel.folders.get(folderId));
+                    FolderInfo folder = mBgDataModel.folders.get(folderId);
+                    mBgDataModel.workspaceItems.remove(folder);
                     mBgDataModel.folders.remove(folderId);
                     mBgDataModel.itemsIdMap.remove(folderId);
+                    if (folder != null) {
+                        mBgDataModel.workspaceOccupancy.onItemRemoved(folder);
+                    }
                 }
             }
         }
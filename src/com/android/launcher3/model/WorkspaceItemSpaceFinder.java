@@ -17,24 +17,30 @@ package com.android.launcher3.model;
 
 import static com.android.launcher3.WorkspaceLayoutManager.FIRST_SCREEN_ID;
 
-import android.util.LongSparseArray;
-
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.LauncherAppState;
-import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.config.FeatureFlags;
-import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.util.GridOccupancy;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.IntSet;
-
-import java.util.ArrayList;
+import com.android.launcher3.util.IntSparseArrayMap;
 
 /**
- * Utility class to help find space for new workspace items
+ * Utility class to help find space for new workspace items.
+ *
+ * The occupancy of each screen is read once from {@link BgDataModel#workspaceOccupancy} and the
+ * space handed out by previous calls is kept marked, so that placing N items in a row costs a
+ * single pass over the screens instead of rebuilding every screen for every item. The items
+ * placed by a task reach the model in later model thread tasks posted by {@link ModelWriter},
+ * so the screens stay valid while a task places its items.
  */
 public class WorkspaceItemSpaceFinder {
 
+    // Occupancy of the screens looked at so far, including the space already handed out
+    private final IntSparseArrayMap<GridOccupancy> mScreenOccupancy = new IntSparseArrayMap<>();
+    private WorkspaceOccupancyIndex mIndex;
+    private int mIndexModificationCount;
+
     /**
      * Find a position on the screen for the given size or adds a new screen.
      *
@@ -42,19 +48,14 @@ public class WorkspaceItemSpaceFinder {
      */
     public int[] findSpaceForItem(LauncherAppState app, BgDataModel dataModel,
             IntArray workspaceScreens, IntArray addedWorkspaceScreensFinal, int spanX, int spanY) {
-        LongSparseArray<ArrayList<ItemInfo>> screenItems = new LongSparseArray<>();
-
-        // Use sBgItemsIdMap as all the items are already loaded.
+        InvariantDeviceProfile profile = app.getInvariantDeviceProfile();
+        WorkspaceOccupancyIndex index = dataModel.workspaceOccupancy;
         synchronized (dataModel) {
-            for (ItemInfo info : dataModel.itemsIdMap) {
-                if (info.container == LauncherSettings.Favorites.CONTAINER_DESKTOP) {
-                    ArrayList<ItemInfo> items = screenItems.get(info.screenId);
-                    if (items == null) {
-                        items = new ArrayList<>();
-                        screenItems.put(info.screenId, items);
-                    }
-                    items.add(info);
-                }
+            // The cached screens are only valid as long as the model didn't change
+            if (mIndex != index || mIndexModificationCount != index.getModificationCount()) {
+                mScreenOccupancy.clear();
+                mIndex = index;
+                mIndexModificationCount = index.getModificationCount();
             }
         }
 
@@ -72,8 +73,8 @@ public class WorkspaceItemSpaceFinder {
 
         for (int screen = 0; screen < screenCount; screen++) {
             screenId = workspaceScreens.get(screen);
-            if (!screensToExclude.contains(screenId) && findNextAvailableIconSpaceInScreen(
-                    app, screenItems.get(screenId), coordinates, spanX, spanY)) {
+            if (!screensToExclude.contains(screenId) && getScreenOccupancy(profile, screenId)
+                    .findVacantCell(coordinates, spanX, spanY)) {
                 // We found a space for it
                 found = true;
                 break;
@@ -89,25 +90,26 @@ public class WorkspaceItemSpaceFinder {
             addedWorkspaceScreensFinal.add(screenId);
 
             // If we still can't find an empty space, then God help us all!!!
-            if (!findNextAvailableIconSpaceInScreen(
-                    app, screenItems.get(screenId), coordinates, spanX, spanY)) {
+            if (!getScreenOccupancy(profile, screenId).findVacantCell(
+                    coordinates, spanX, spanY)) {
                 throw new RuntimeException("Can't find space to add the item");
             }
         }
+
+        // Keep the space reserved for the following calls
+        getScreenOccupancy(profile, screenId).markCells(
+                coordinates[0], coordinates[1], spanX, spanY, true);
         return new int[]{screenId, coordinates[0], coordinates[1]};
     }
 
-    private boolean findNextAvailableIconSpaceInScreen(
-            LauncherAppState app, ArrayList<ItemInfo> occupiedPos,
-            int[] xy, int spanX, int spanY) {
-        InvariantDeviceProfile profile = app.getInvariantDeviceProfile();
-
-        GridOccupancy occupied = new GridOccupancy(profile.numColumns, profile.numRows);
-        if (occupiedPos != null) {
-            for (ItemInfo r : occupiedPos) {
-                occupied.markCells(r, true);
-            }
+    private GridOccupancy getScreenOccupancy(InvariantDeviceProfile profile, int screenId) {
+        GridOccupancy occupied = mScreenOccupancy.get(screenId);
+        if (occupied == null || occupied.getCountX() != profile.numColumns
+                || occupied.getCountY() != profile.numRows) {
+            occupied = new GridOccupancy(profile.numColumns, profile.numRows);
+            mIndex.copyScreenOccupancy(screenId, occupied);
+            mScreenOccupancy.put(screenId, occupied);
         }
-        return occupied.findVacantCell(xy, spanX, spanY);
+        return occupied;
     }
 }
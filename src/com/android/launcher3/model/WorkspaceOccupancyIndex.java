@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import com.android.launcher3.LauncherSettings.Favorites;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.util.GridOccupancy;
+import com.android.launcher3.util.IntSparseArrayMap;
+
+/**
+ * Index of the cells used by the items placed directly on the workspace, kept up to date by
+ * {@link BgDataModel} as items are added, moved and removed. It allows finding free space on a
+ * screen without walking all the items of the model.
+ */
+public class WorkspaceOccupancyIndex {
+
+    private static final int CELL_SCREEN = 0;
+    private static final int CELL_X = 1;
+    private static final int CELL_Y = 2;
+    private static final int SPAN_X = 3;
+    private static final int SPAN_Y = 4;
+
+    // Position of each desktop item as it was last indexed, keyed by item id
+    private final IntSparseArrayMap<int[]> mItemCells = new IntSparseArrayMap<>();
+
+    // Number of items covering each cell, per screen, built lazily for the requested grid size
+    private final IntSparseArrayMap<int[]> mScreenCounts = new IntSparseArrayMap<>();
+    private int mCountX = -1;
+    private int mCountY = -1;
+
+    private int mModificationCount;
+
+    /**
+     * Called when an item is added to the model
+     */
+    public synchronized void onItemAdded(ItemInfo item) {
+        onItemUpdated(item);
+    }
+
+    /**
+     * Called when an item is moved or resized, or changes container
+     */
+    public synchronized void onItemUpdated(ItemInfo item) {
+        int[] cells = mItemCells.get(item.id);
+        if (item.container != Favorites.CONTAINER_DESKTOP) {
+            if (cells != null) {
+                updateCounts(cells, -1);
+                mItemCells.remove(item.id);
+                mModificationCount++;
+            }
+            return;
+        }
+        if (cells != null) {
+            if (cells[CELL_SCREEN] == item.screenId && cells[CELL_X] == item.cellX
+                    && cells[CELL_Y] == item.cellY && cells[SPAN_X] == item.spanX
+                    && cells[SPAN_Y] == item.spanY) {
+                return;
+            }
+            updateCounts(cells, -1);
+        } else {
+            cells = new int[5];
+            mItemCells.put(item.id, cells);
+        }
+        cells[CELL_SCREEN] = item.screenId;
+        cells[CELL_X] = item.cellX;
+        cells[CELL_Y] = item.cellY;
+        cells[SPAN_X] = item.spanX;
+        cells[SPAN_Y] = item.spanY;
+        updateCounts(cells, 1);
+        mModificationCount++;
+    }
+
+    /**
+     * Called when an item is removed from the model
+     */
+    public synchronized void onItemRemoved(ItemInfo item) {
+        int[] cells = mItemCells.get(item.id);
+        if (cells != null) {
+            updateCounts(cells, -1);
+            mItemCells.remove(item.id);
+            mModificationCount++;
+        }
+    }
+
+    /**
+     * Removes all the items from the index
+     */
+    public synchronized void clear() {
+        mItemCells.clear();
+        mScreenCounts.clear();
+        mModificationCount++;
+    }
+
+    /**
+     * Returns a counter which changes every time the indexed positions change
+     */
+    public synchronized int getModificationCount() {
+        return mModificationCount;
+    }
+
+    /**
+     * Marks the cells used by the items on {@param screenId} as occupied in {@param out}
+     */
+    public synchronized void copyScreenOccupancy(int screenId, GridOccupancy out) {
+        if (out.getCountX() != mCountX || out.getCountY() != mCountY) {
+            rebuildCounts(out.getCountX(), out.getCountY());
+        }
+        int[] counts = mScreenCounts.get(screenId);
+        if (counts == null) {
+            return;
+        }
+        for (int y = 0; y < mCountY; y++) {
+            for (int x = 0; x < mCountX; x++) {
+                if (counts[y * mCountX + x] > 0) {
+                    out.setOccupied(x, y, true);
+                }
+            }
+        }
+    }
+
+    private void rebuildCounts(int countX, int countY) {
+        mCountX = countX;
+        mCountY = countY;
+        mScreenCounts.clear();
+        for (int[] cells : mItemCells) {
+            updateCounts(cells, 1);
+        }
+    }
+
+    private void updateCounts(int[] cells, int delta) {
+        if (mCountX < 0 || mCountY < 0) {
+            // Counts are only built once a grid size has been requested
+            return;
+        }
+        if (cells[CELL_X] < 0 || cells[CELL_Y] < 0) {
+            // Same as GridOccupancy, items at invalid positions don't occupy any cell
+            return;
+        }
+        int[] counts = mScreenCounts.get(cells[CELL_SCREEN]);
+        if (counts == null) {
+            counts = new int[mCountX * mCountY];
+            mScreenCounts.put(cells[CELL_SCREEN], counts);
+        }
+        int startX = cells[CELL_X];
+        int startY = cells[CELL_Y];
+        int endX = Math.min(cells[CELL_X] + cells[SPAN_X], mCountX);
+        int endY = Math.min(cells[CELL_Y] + cells[SPAN_Y], mCountY);
+        for (int y = startY; y < endY; y++) {
+            for (int x = startX; x < endX; x++) {
+                counts[y * mCountX + x] += delta;
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package com.android.launcher3.popup;
 import android.content.ComponentName;
 import android.service.notification.StatusBarNotification;
 import android.util.Log;
+import android.view.Choreographer;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -38,6 +39,7 @@ import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -67,13 +69,38 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
 
     private PopupDataChangeListener mChangeListener = PopupDataChangeListener.INSTANCE;
 
+    /** Packages whose dots changed since the last dispatch to the UI. */
+    private final HashSet<PackageUserKey> mPendingDotUpdates = new HashSet<>();
+    private final Choreographer.FrameCallback mDispatchDotUpdates = this::dispatchDotUpdates;
+    private boolean mDotUpdatesScheduled;
+
     public PopupDataProvider(Consumer<Predicate<PackageUserKey>> notificationDotsChangeListener) {
         mNotificationDotsChangeListener = notificationDotsChangeListener;
     }
 
-    private void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
-        mNotificationDotsChangeListener.accept(updatedDots);
-        mChangeListener.onNotificationDotsUpdated(updatedDots);
+    /**
+     * Records that the dot of {@param updatedDot} changed. The dot infos are updated right
+     * away, but the UI is only notified once per frame with all the packages which changed
+     * during that frame, so that bursts of notifications result in a single pass over the views.
+     */
+    private void updateNotificationDots(PackageUserKey updatedDot) {
+        mPendingDotUpdates.add(updatedDot);
+        if (!mDotUpdatesScheduled) {
+            mDotUpdatesScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mDispatchDotUpdates);
+        }
+    }
+
+    private void dispatchDotUpdates(long frameTimeNanos) {
+        mDotUpdatesScheduled = false;
+        if (mPendingDotUpdates.isEmpty()) {
+            return;
+        }
+        HashSet<PackageUserKey> updatedDots = new HashSet<>(mPendingDotUpdates);
+        mPendingDotUpdates.clear();
+        Predicate<PackageUserKey> matcher = updatedDots::contains;
+        mNotificationDotsChangeListener.accept(matcher);
+        mChangeListener.onNotificationDotsUpdated(matcher);
     }
 
     @Override
@@ -85,7 +112,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             mPackageUserToDotInfos.put(postedPackageUserKey, dotInfo);
         }
         if (dotInfo.addOrUpdateNotificationKey(notificationKey)) {
-            updateNotificationDots(postedPackageUserKey::equals);
+            updateNotificationDots(postedPackageUserKey);
         }
     }
 
@@ -97,7 +124,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             if (oldDotInfo.getNotificationKeys().size() == 0) {
                 mPackageUserToDotInfos.remove(removedPackageUserKey);
             }
-            updateNotificationDots(removedPackageUserKey::equals);
+            updateNotificationDots(removedPackageUserKey);
             trimNotifications(mPackageUserToDotInfos);
         }
     }
@@ -133,8 +160,8 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
             }
         }
 
-        if (!updatedDots.isEmpty()) {
-            updateNotificationDots(updatedDots::containsKey);
+        for (PackageUserKey packageUserKey : updatedDots.keySet()) {
+            updateNotificationDots(packageUserKey);
         }
         trimNotifications(updatedDots);
     }
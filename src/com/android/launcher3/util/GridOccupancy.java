@@ -4,20 +4,63 @@ import android.graphics.Rect;
 
 import com.android.launcher3.model.data.ItemInfo;
 
+import java.util.Arrays;
+
 /**
  * Utility object to manage the occupancy in a grid.
+ *
+ * The occupancy is stored as a packed bitset, one or more 64-bit words per row, so that span
+ * checks operate on whole words and copies are a single array copy. Vacancy searches across the
+ * whole grid are answered from a summed-area table which is rebuilt lazily after mutations.
  */
 public class GridOccupancy extends AbsGridOccupancy {
 
+    private static final int BITS_PER_WORD = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = BITS_PER_WORD - 1;
+
     private final int mCountX;
     private final int mCountY;
 
-    public final boolean[][] cells;
+    private final int mWordsPerRow;
+    // Row-major bitset, bit x of row y is stored at word (y * mWordsPerRow + x / 64)
+    private final long[] mWords;
+
+    // Summed-area table of size (mCountX + 1) * (mCountY + 1), valid only when !mSummedAreaDirty
+    private int[] mSummedArea;
+    private boolean mSummedAreaDirty = true;
 
     public GridOccupancy(int countX, int countY) {
         mCountX = countX;
         mCountY = countY;
-        cells = new boolean[countX][countY];
+        mWordsPerRow = Math.max(1, (countX + WORD_MASK) >> WORD_SHIFT);
+        mWords = new long[mWordsPerRow * Math.max(0, countY)];
+    }
+
+    public int getCountX() {
+        return mCountX;
+    }
+
+    public int getCountY() {
+        return mCountY;
+    }
+
+    /**
+     * Returns true if the cell at the provided position is occupied
+     */
+    public boolean isOccupied(int x, int y) {
+        if (x < 0 || y < 0 || x >= mCountX || y >= mCountY) {
+            throw new ArrayIndexOutOfBoundsException("(" + x + ", " + y + ") is outside of "
+                    + mCountX + "x" + mCountY);
+        }
+        return (mWords[y * mWordsPerRow + (x >> WORD_SHIFT)] & (1L << (x & WORD_MASK))) != 0;
+    }
+
+    /**
+     * Marks a single cell as occupied or vacant
+     */
+    public void setOccupied(int x, int y, boolean value) {
+        markCells(x, y, 1, 1, value);
     }
 
     /**
@@ -30,15 +73,63 @@ public class GridOccupancy extends AbsGridOccupancy {
      * @return true if a vacant cell was found
      */
     public boolean findVacantCell(int[] vacantOut, int spanX, int spanY) {
-        return super.findVacantCell(vacantOut, cells, mCountX, mCountY, spanX, spanY);
+        return super.findVacantCell(vacantOut, mCountX, mCountY, spanX, spanY);
     }
 
+    /**
+     * Copies the occupancy into {@param dest}. When both grids have the same dimensions this is a
+     * single array copy, otherwise the overlapping region is copied.
+     */
     public void copyTo(GridOccupancy dest) {
-        for (int i = 0; i < mCountX; i++) {
-            for (int j = 0; j < mCountY; j++) {
-                dest.cells[i][j] = cells[i][j];
+        if (dest.mCountX == mCountX && dest.mCountY == mCountY) {
+            System.arraycopy(mWords, 0, dest.mWords, 0, mWords.length);
+        } else {
+            int countX = Math.min(mCountX, dest.mCountX);
+            int countY = Math.min(mCountY, dest.mCountY);
+            for (int y = 0; y < countY; y++) {
+                for (int x = 0; x < countX; x += BITS_PER_WORD) {
+                    int len = Math.min(BITS_PER_WORD, countX - x);
+                    dest.writeBits(y, x, len, readBits(y, x, len));
+                }
             }
         }
+        dest.mSummedAreaDirty = true;
+    }
+
+    /**
+     * Saves the current occupancy into {@param out}, which is reused if it is large enough.
+     * The returned snapshot can later be passed to {@link #restore(long[])} to undo any changes
+     * made while simulating a reorder.
+     */
+    public long[] snapshot(long[] out) {
+        if (out == null || out.length < mWords.length) {
+            out = new long[mWords.length];
+        }
+        System.arraycopy(mWords, 0, out, 0, mWords.length);
+        return out;
+    }
+
+    /**
+     * Restores an occupancy previously saved using {@link #snapshot(long[])}
+     */
+    public void restore(long[] snapshot) {
+        System.arraycopy(snapshot, 0, mWords, 0, mWords.length);
+        mSummedAreaDirty = true;
+    }
+
+    /**
+     * Returns true if the current occupancy is the same as the one saved in {@param snapshot}
+     */
+    public boolean matches(long[] snapshot) {
+        if (snapshot == null || snapshot.length < mWords.length) {
+            return false;
+        }
+        for (int i = 0; i < mWords.length; i++) {
+            if (mWords[i] != snapshot[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public boolean isRegionVacant(int x, int y, int spanX, int spanY) {
@@ -47,9 +138,30 @@ public class GridOccupancy extends AbsGridOccupancy {
         if (x < 0 || y < 0 || x2 >= mCountX || y2 >= mCountY) {
             return false;
         }
-        for (int i = x; i <= x2; i++) {
-            for (int j = y; j <= y2; j++) {
-                if (cells[i][j]) {
+        if (spanX <= 0 || spanY <= 0) {
+            return true;
+        }
+        for (int j = y; j <= y2; j++) {
+            if (!isRowSpanVacant(j, x, spanX)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if {@param block}, placed with its top left corner at (x, y), does not overlap
+     * any occupied cell of this grid. Only the occupied cells of the block are considered, which
+     * allows interlocking shapes to be placed.
+     */
+    public boolean isRegionVacant(int x, int y, GridOccupancy block) {
+        if (x < 0 || y < 0 || x + block.mCountX > mCountX || y + block.mCountY > mCountY) {
+            return false;
+        }
+        for (int j = 0; j < block.mCountY; j++) {
+            for (int i = 0; i < block.mCountX; i += BITS_PER_WORD) {
+                int len = Math.min(BITS_PER_WORD, block.mCountX - i);
+                if ((readBits(y + j, x + i, len) & block.readBits(j, i, len)) != 0) {
                     return false;
                 }
             }
@@ -57,13 +169,39 @@ public class GridOccupancy extends AbsGridOccupancy {
         return true;
     }
 
+    /**
+     * Returns the number of occupied cells in the provided region, using the summed-area table.
+     * The region must lie within the grid.
+     */
+    @Override
+    public int countOccupiedCells(int x, int y, int spanX, int spanY) {
+        if (mSummedAreaDirty) {
+            buildSummedArea();
+        }
+        int stride = mCountX + 1;
+        int x2 = x + spanX;
+        int y2 = y + spanY;
+        return mSummedArea[y2 * stride + x2] - mSummedArea[y * stride + x2]
+                - mSummedArea[y2 * stride + x] + mSummedArea[y * stride + x];
+    }
+
     public void markCells(int cellX, int cellY, int spanX, int spanY, boolean value) {
         if (cellX < 0 || cellY < 0) return;
-        for (int x = cellX; x < cellX + spanX && x < mCountX; x++) {
-            for (int y = cellY; y < cellY + spanY && y < mCountY; y++) {
-                cells[x][y] = value;
+        int endX = Math.min(cellX + spanX, mCountX);
+        int endY = Math.min(cellY + spanY, mCountY);
+        if (endX <= cellX || endY <= cellY) return;
+        for (int y = cellY; y < endY; y++) {
+            int rowStart = y * mWordsPerRow;
+            for (int w = cellX >> WORD_SHIFT; w <= (endX - 1) >> WORD_SHIFT; w++) {
+                long mask = wordMask(w, cellX, endX);
+                if (value) {
+                    mWords[rowStart + w] |= mask;
+                } else {
+                    mWords[rowStart + w] &= ~mask;
+                }
             }
         }
+        mSummedAreaDirty = true;
     }
 
     public void markCells(Rect r, boolean value) {
@@ -79,7 +217,79 @@ public class GridOccupancy extends AbsGridOccupancy {
     }
 
     public void clear() {
-        markCells(0, 0, mCountX, mCountY, false);
+        Arrays.fill(mWords, 0);
+        mSummedAreaDirty = true;
+    }
+
+    private boolean isRowSpanVacant(int y, int x, int spanX) {
+        int rowStart = y * mWordsPerRow;
+        int endX = x + spanX;
+        for (int w = x >> WORD_SHIFT; w <= (endX - 1) >> WORD_SHIFT; w++) {
+            if ((mWords[rowStart + w] & wordMask(w, x, endX)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bits [x, x + len) of row y as the lowest bits of a long, len <= 64
+     */
+    private long readBits(int y, int x, int len) {
+        int rowStart = y * mWordsPerRow;
+        int w = x >> WORD_SHIFT;
+        int offset = x & WORD_MASK;
+        long bits = mWords[rowStart + w] >>> offset;
+        if (offset != 0 && offset + len > BITS_PER_WORD) {
+            bits |= mWords[rowStart + w + 1] << (BITS_PER_WORD - offset);
+        }
+        return len == BITS_PER_WORD ? bits : bits & ((1L << len) - 1);
+    }
+
+    /**
+     * Writes the lowest len bits of {@param bits} to [x, x + len) of row y, len <= 64
+     */
+    private void writeBits(int y, int x, int len, long bits) {
+        for (int i = 0; i < len; i++) {
+            int cellX = x + i;
+            int index = y * mWordsPerRow + (cellX >> WORD_SHIFT);
+            long mask = 1L << (cellX & WORD_MASK);
+            if ((bits & (1L << i)) != 0) {
+                mWords[index] |= mask;
+            } else {
+                mWords[index] &= ~mask;
+            }
+        }
+    }
+
+    /**
+     * Returns the mask of the bits of word w which fall within [startX, endX)
+     */
+    private static long wordMask(int w, int startX, int endX) {
+        int wordStart = w << WORD_SHIFT;
+        int from = Math.max(startX, wordStart) - wordStart;
+        int to = Math.min(endX, wordStart + BITS_PER_WORD) - wordStart;
+        long mask = (to - from) == BITS_PER_WORD ? -1L : (1L << (to - from)) - 1;
+        return mask << from;
+    }
+
+    private void buildSummedArea() {
+        int stride = mCountX + 1;
+        int size = stride * (mCountY + 1);
+        if (mSummedArea == null || mSummedArea.length != size) {
+            mSummedArea = new int[size];
+        }
+        for (int y = 0; y < mCountY; y++) {
+            int rowSum = 0;
+            for (int x = 0; x < mCountX; x++) {
+                if ((mWords[y * mWordsPerRow + (x >> WORD_SHIFT)] & (1L << (x & WORD_MASK)))
+                        != 0) {
+                    rowSum++;
+                }
+                mSummedArea[(y + 1) * stride + x + 1] = mSummedArea[y * stride + x + 1] + rowSum;
+            }
+        }
+        mSummedAreaDirty = false;
     }
 
     @Override
@@ -87,7 +297,7 @@ public class GridOccupancy extends AbsGridOccupancy {
         StringBuilder s = new StringBuilder("Grid: \n");
         for (int y = 0; y < mCountY; y++) {
             for (int x = 0; x < mCountX; x++) {
-                s.append(cells[x][y] ? 1 : 0).append(" ");
+                s.append(isOccupied(x, y) ? 1 : 0).append(" ");
             }
             s.append("\n");
         }
@@ -31,6 +31,7 @@ import com.android.launcher3.widget.PendingAppWidgetHostView;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Interface representing a container which can bind Launcher items with some utility methods
@@ -42,8 +43,20 @@ public interface LauncherBindableItemsContainer {
      * {@link com.android.launcher3.model.BgDataModel.Callbacks#bindWorkspaceItemsChanged(List)}
      */
     default void updateWorkspaceItems(List<WorkspaceItemInfo> shortcuts, ActivityContext context) {
-        final HashSet<WorkspaceItemInfo> updates = new HashSet<>(shortcuts);
-        ItemOperator op = (info, v) -> {
+        ItemOperator op = createWorkspaceItemsUpdater(new HashSet<>(shortcuts));
+        mapOverItems(op);
+        Folder openFolder = Folder.getOpen(context);
+        if (openFolder != null) {
+            openFolder.iterateOverItems(op);
+        }
+    }
+
+    /**
+     * Returns an operator which rebinds the icons of {@param updates} and the folder previews
+     * containing them
+     */
+    static ItemOperator createWorkspaceItemsUpdater(Set<WorkspaceItemInfo> updates) {
+        return (info, v) -> {
             if (v instanceof BubbleTextView && updates.contains(info)) {
                 WorkspaceItemInfo si = (WorkspaceItemInfo) info;
                 BubbleTextView shortcut = (BubbleTextView) v;
@@ -63,12 +76,6 @@ public interface LauncherBindableItemsContainer {
             // Iterate all items
             return false;
         };
-
-        mapOverItems(op);
-        Folder openFolder = Folder.getOpen(context);
-        if (openFolder != null) {
-            openFolder.iterateOverItems(op);
-        }
     }
 
     /**
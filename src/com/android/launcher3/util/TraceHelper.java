@@ -46,6 +46,9 @@ public class TraceHelper {
      */
     public static TraceHelper INSTANCE = new TraceHelper();
 
+    // Returned when tracing is disabled, so that sections around input events don't allocate
+    private static final SafeCloseable NO_OP = () -> { };
+
     /**
      * @see Trace#beginSection(String)
      */
@@ -67,8 +70,8 @@ public class TraceHelper {
     @SuppressWarnings("NewApi")
     @SuppressLint("NewApi")
     public SafeCloseable beginAsyncSection(String sectionName) {
-        if (!Utilities.ATLEAST_Q) {
-            return () -> { };
+        if (!Utilities.ATLEAST_Q || !Trace.isEnabled()) {
+            return NO_OP;
         }
         int cookie = Random.Default.nextInt();
         Trace.beginAsyncSection(sectionName, cookie);
@@ -81,8 +84,8 @@ public class TraceHelper {
     @SuppressWarnings("NewApi")
     @SuppressLint("NewApi")
     public SafeCloseable allowIpcs(String rpcName) {
-        if (!Utilities.ATLEAST_Q) {
-            return () -> { };
+        if (!Utilities.ATLEAST_Q || !Trace.isEnabled()) {
+            return NO_OP;
         }
         int cookie = Random.Default.nextInt();
         Trace.beginAsyncSection(rpcName, cookie);
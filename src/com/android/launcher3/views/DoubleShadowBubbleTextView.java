@@ -22,11 +22,17 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+
 import com.android.launcher3.BubbleTextView;
 import com.android.launcher3.R;
+import com.android.launcher3.Utilities;
+
+import java.util.function.Consumer;
 
 /**
  * Extension of {@link BubbleTextView} which draws two shadows on the text (ambient and key shadows}
@@ -34,6 +40,9 @@ import com.android.launcher3.R;
 public class DoubleShadowBubbleTextView extends BubbleTextView {
 
     private final ShadowInfo mShadowInfo;
+    // Null below Q, and while the super constructor runs
+    private final DoubleShadowRenderCache mRenderCache;
+    private final Consumer<Canvas> mShadowedTextDrawer = this::drawShadowedText;
 
     public DoubleShadowBubbleTextView(Context context) {
         this(context, null);
@@ -47,6 +56,7 @@ public class DoubleShadowBubbleTextView extends BubbleTextView {
         super(context, attrs, defStyle);
         mShadowInfo = new ShadowInfo(context, attrs, defStyle);
         setShadowLayer(mShadowInfo.ambientShadowBlur, 0, 0, mShadowInfo.ambientShadowColor);
+        mRenderCache = Utilities.ATLEAST_Q ? new DoubleShadowRenderCache(this, mShadowInfo) : null;
     }
 
     @Override
@@ -56,6 +66,15 @@ public class DoubleShadowBubbleTextView extends BubbleTextView {
             super.onDraw(canvas);
             return;
         }
+        if (mRenderCache != null) {
+            mRenderCache.draw(canvas, mShadowedTextDrawer);
+        } else {
+            drawShadowedText(canvas);
+        }
+        drawDotIfNecessary(canvas);
+    }
+
+    private void drawShadowedText(Canvas canvas) {
         int alpha = Color.alpha(getCurrentTextColor());
 
         // We enhance the shadow by drawing the shadow twice
@@ -75,8 +94,40 @@ public class DoubleShadowBubbleTextView extends BubbleTextView {
                 getTextShadowColor(mShadowInfo.keyShadowColor, alpha));
         drawWithoutDot(canvas);
         canvas.restore();
+    }
 
-        drawDotIfNecessary(canvas);
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        super.invalidateDrawable(drawable);
+        if (mRenderCache != null) {
+            mRenderCache.invalidate();
+        }
+    }
+
+    @Override
+    public void setCompoundDrawables(Drawable left, Drawable top, Drawable right,
+            Drawable bottom) {
+        super.setCompoundDrawables(left, top, right, bottom);
+        if (mRenderCache != null) {
+            mRenderCache.invalidate();
+        }
+    }
+
+    @Override
+    public void setCompoundDrawablesRelative(Drawable start, Drawable top, Drawable end,
+            Drawable bottom) {
+        super.setCompoundDrawablesRelative(start, top, end, bottom);
+        if (mRenderCache != null) {
+            mRenderCache.invalidate();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mRenderCache != null) {
+            mRenderCache.release();
+        }
     }
 
     public static class ShadowInfo {
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.views;
+
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.Layout;
+import android.text.TextUtils.TruncateAt;
+import android.widget.TextView;
+
+import androidx.annotation.RequiresApi;
+
+import com.android.launcher3.views.DoubleShadowBubbleTextView.ShadowInfo;
+
+import java.util.function.Consumer;
+
+/**
+ * Caches the drawing of a {@link TextView} with its two text shadows in a {@link RenderNode}
+ * backed by a hardware layer. The blurred shadows are then only rasterized again when the text,
+ * its typeface, size or color, or one of its drawables changes, instead of on every frame.
+ */
+@RequiresApi(Build.VERSION_CODES.Q)
+public class DoubleShadowRenderCache {
+
+    private final TextView mView;
+    private final RenderNode mNode = new RenderNode("DoubleShadowText");
+    // Room around the view for the shadows, which are not clipped to the view bounds
+    private final int mOutset;
+
+    private boolean mValid;
+    private CharSequence mText;
+    private Layout mLayout;
+    private Typeface mTypeface;
+    private float mTextSize;
+    private int mTextColor;
+    private int mWidth;
+    private int mHeight;
+    private int mScrollX;
+    private int mScrollY;
+
+    public DoubleShadowRenderCache(TextView view, ShadowInfo shadowInfo) {
+        mView = view;
+        float keyShadowExtent = shadowInfo.keyShadowBlur + Math.max(
+                Math.abs(shadowInfo.keyShadowOffsetX), Math.abs(shadowInfo.keyShadowOffsetY));
+        mOutset = (int) Math.ceil(Math.max(shadowInfo.ambientShadowBlur, keyShadowExtent));
+        mNode.setUseCompositingLayer(true, null);
+    }
+
+    /**
+     * Records the text again on the next draw, for changes which are not part of the cache key
+     * such as a drawable invalidating itself
+     */
+    public void invalidate() {
+        mValid = false;
+    }
+
+    /**
+     * Releases the cached drawing, called when the view is detached
+     */
+    public void release() {
+        mValid = false;
+        mNode.discardDisplayList();
+    }
+
+    /**
+     * Draws the view using {@param drawer}, which draws the text with both shadows, or the
+     * cached drawing if nothing changed since it was recorded.
+     */
+    public void draw(Canvas canvas, Consumer<Canvas> drawer) {
+        TextView view = mView;
+        if (!canvas.isHardwareAccelerated() || view.getEllipsize() == TruncateAt.MARQUEE) {
+            // A marquee moves the text without changing any of the cache key
+            drawer.accept(canvas);
+            return;
+        }
+
+        int width = view.getWidth();
+        int height = view.getHeight();
+        int scrollX = view.getScrollX();
+        int scrollY = view.getScrollY();
+        if (!mValid || !mNode.hasDisplayList()
+                || mText != view.getText()
+                || mLayout != view.getLayout()
+                || mTypeface != view.getTypeface()
+                || mTextSize != view.getTextSize()
+                || mTextColor != view.getCurrentTextColor()
+                || mWidth != width || mHeight != height
+                || mScrollX != scrollX || mScrollY != scrollY) {
+            mText = view.getText();
+            mLayout = view.getLayout();
+            mTypeface = view.getTypeface();
+            mTextSize = view.getTextSize();
+            mTextColor = view.getCurrentTextColor();
+            mWidth = width;
+            mHeight = height;
+            mScrollX = scrollX;
+            mScrollY = scrollY;
+
+            mNode.setPosition(scrollX - mOutset, scrollY - mOutset,
+                    scrollX + width + mOutset, scrollY + height + mOutset);
+            RecordingCanvas recordingCanvas = mNode.beginRecording();
+            try {
+                recordingCanvas.translate(mOutset - scrollX, mOutset - scrollY);
+                drawer.accept(recordingCanvas);
+            } finally {
+                mNode.endRecording();
+            }
+            mValid = true;
+        }
+        canvas.drawRenderNode(mNode);
+    }
+}
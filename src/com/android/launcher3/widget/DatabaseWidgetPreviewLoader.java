@@ -34,6 +34,7 @@ import android.util.Log;
 import android.util.Size;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.LauncherAppState;
@@ -59,9 +60,11 @@ public class DatabaseWidgetPreviewLoader {
 
     private final Context mContext;
     private final float mPreviewBoxCornerRadius;
+    private final WidgetPreviewCache mPreviewCache;
 
     public DatabaseWidgetPreviewLoader(Context context) {
         mContext = context;
+        mPreviewCache = WidgetPreviewCache.INSTANCE.get(context);
         float previewCornerRadius = RoundedCornerEnforcement.computeEnforcedRadius(context);
         mPreviewBoxCornerRadius = previewCornerRadius > 0
                 ? previewCornerRadius
@@ -89,15 +92,42 @@ public class DatabaseWidgetPreviewLoader {
     }
 
     /**
-     * Returns a generated preview for a widget and if the preview should be saved in persistent
-     * storage.
+     * Returns the preview for the item if it was already loaded in memory, null otherwise
+     */
+    @Nullable
+    public Bitmap getCachedPreview(@NonNull WidgetItem item, @NonNull Size previewSize) {
+        return mPreviewCache.peek(item, previewSize);
+    }
+
+    /**
+     * Loads the previously generated preview for the item from disk into memory, so that it is
+     * available through {@link #getCachedPreview} once the item becomes visible. Previews which
+     * were never generated are not generated here.
+     */
+    public void prewarmPreview(@NonNull WidgetItem item, @NonNull Size previewSize) {
+        if (mPreviewCache.peek(item, previewSize) == null) {
+            Executors.UI_HELPER_EXECUTOR.execute(() -> mPreviewCache.get(item, previewSize));
+        }
+    }
+
+    /**
+     * Returns the cached preview for a widget, or generates it and saves it in the cache.
      */
     private Bitmap generatePreview(WidgetItem item, int previewWidth, int previewHeight) {
+        Size previewSize = new Size(previewWidth, previewHeight);
+        Bitmap preview = mPreviewCache.get(item, previewSize);
+        if (preview != null) {
+            return preview;
+        }
+        int[] source = new int[1];
         if (item.widgetInfo != null) {
-            return generateWidgetPreview(item.widgetInfo, previewWidth, null);
+            preview = generateWidgetPreview(item.widgetInfo, previewWidth, null, source);
         } else {
-            return generateShortcutPreview(item.activityInfo, previewWidth, previewHeight);
+            preview = generateShortcutPreview(item.activityInfo, previewWidth, previewHeight);
+            source[0] = WidgetPreviewCache.SOURCE_APP_ICON;
         }
+        mPreviewCache.put(item, previewSize, preview, source[0]);
+        return preview;
     }
 
     /**
@@ -110,6 +140,17 @@ public class DatabaseWidgetPreviewLoader {
      */
     public Bitmap generateWidgetPreview(LauncherAppWidgetProviderInfo info,
             int maxPreviewWidth, int[] preScaledWidthOut) {
+        return generateWidgetPreview(info, maxPreviewWidth, preScaledWidthOut, null);
+    }
+
+    /**
+     * Same as {@link #generateWidgetPreview(LauncherAppWidgetProviderInfo, int, int[])}
+     *
+     * @param sourceOut return what the preview was drawn from, as a
+     *                  {@link WidgetPreviewCache.PreviewSource}
+     */
+    private Bitmap generateWidgetPreview(LauncherAppWidgetProviderInfo info,
+            int maxPreviewWidth, int[] preScaledWidthOut, int[] sourceOut) {
         // Load the preview image if possible
         if (maxPreviewWidth < 0) maxPreviewWidth = Integer.MAX_VALUE;
 
@@ -167,8 +208,12 @@ public class DatabaseWidgetPreviewLoader {
         final int previewWidthF = previewWidth;
         final int previewHeightF = previewHeight;
         final Drawable drawableF = drawable;
+        // A preview image which failed to load is replaced by the generated preview
+        final int[] source = {widgetPreviewExists ? WidgetPreviewCache.SOURCE_PREVIEW
+                : info.previewImage != 0 ? WidgetPreviewCache.SOURCE_FAILED
+                : WidgetPreviewCache.SOURCE_APP_ICON};
 
-        return BitmapRenderer.createHardwareBitmap(previewWidth, previewHeight, c -> {
+        Bitmap preview = BitmapRenderer.createHardwareBitmap(previewWidth, previewHeight, c -> {
             // Draw the scaled preview into the final bitmap
             if (widgetPreviewExists) {
                 drawableF.setBounds(0, 0, previewWidthF, previewHeightF);
@@ -225,11 +270,18 @@ public class DatabaseWidgetPreviewLoader {
                         int yoffset = (previewHeightF - iconSize) / 2;
                         icon.setBounds(hoffset, yoffset, hoffset + iconSize, yoffset + iconSize);
                         icon.draw(c);
+                    } else {
+                        source[0] = WidgetPreviewCache.SOURCE_FAILED;
                     }
                 } catch (Resources.NotFoundException e) {
+                    source[0] = WidgetPreviewCache.SOURCE_FAILED;
                 }
             }
         });
+        if (sourceOut != null) {
+            sourceOut[0] = source[0];
+        }
+        return preview;
     }
 
     private RectF drawBoxWithShadow(Canvas c, int width, int height) {
@@ -271,6 +271,9 @@ public class WidgetCell extends LinearLayout {
             setAppWidgetHostViewPreview(mAppWidgetHostViewPreview, providerInfo, null);
         } else if (cachedPreview != null) {
             applyPreview(cachedPreview);
+        } else if ((cachedPreview = mWidgetPreviewLoader.getCachedPreview(mItem, mWidgetSize))
+                != null) {
+            applyPreview(cachedPreview);
         } else {
             if (mActiveRequest == null) {
                 mActiveRequest = mWidgetPreviewLoader.loadPreview(mItem, mWidgetSize, callback);
@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import static android.content.Intent.ACTION_PACKAGE_ADDED;
+import static android.content.Intent.ACTION_PACKAGE_CHANGED;
+import static android.content.Intent.ACTION_PACKAGE_REMOVED;
+
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+import android.util.Size;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.LauncherAppState;
+import com.android.launcher3.model.WidgetItem;
+import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.launcher3.util.SafeCloseable;
+import com.android.launcher3.util.SimpleBroadcastReceiver;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Memory and disk cache for the widget previews rendered by {@link DatabaseWidgetPreviewLoader}.
+ *
+ * Previews are keyed by the widget component, the user, the preview size and the ui mode. The
+ * package update time is stored along with each preview, so that previews of updated packages
+ * are regenerated. Both caches are bounded by size and evict the least recently used previews.
+ *
+ * Previews drawn from the app icon are only kept in memory along with the icon state, as they
+ * change with the icon pack and the themed icons. Previews which failed to render are not kept.
+ */
+public class WidgetPreviewCache implements SafeCloseable {
+
+    public static final MainThreadInitializedObject<WidgetPreviewCache> INSTANCE =
+            new MainThreadInitializedObject<>(WidgetPreviewCache::new);
+
+    private static final String TAG = "WidgetPreviewCache";
+
+    /** The preview was drawn from the preview image or layout of the widget */
+    public static final int SOURCE_PREVIEW = 0;
+    /** The preview was drawn from the app icon */
+    public static final int SOURCE_APP_ICON = 1;
+    /** The preview is a placeholder drawn because the preview or the icon failed to load */
+    public static final int SOURCE_FAILED = 2;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({SOURCE_PREVIEW, SOURCE_APP_ICON, SOURCE_FAILED})
+    public @interface PreviewSource { }
+
+    private static final String CACHE_DIR = "widget_previews";
+    // Version 1 kept previews drawn from app icons, stored directly in CACHE_DIR
+    private static final int DISK_CACHE_VERSION = 2;
+    private static final int MEMORY_CACHE_SIZE_BYTES = 16 * 1024 * 1024;
+    private static final long DISK_CACHE_SIZE_BYTES = 32 * 1024 * 1024;
+
+    private final Context mContext;
+    private final File mCacheDir;
+    private final Supplier<String> mIconStateSupplier;
+    private final LruCache<String, Entry> mMemoryCache;
+    private final SimpleBroadcastReceiver mPackageReceiver =
+            new SimpleBroadcastReceiver(this::onPackageChanged);
+
+    private long mDiskCacheSize = -1;
+
+    private WidgetPreviewCache(Context context) {
+        this(context,
+                new File(new File(context.getCacheDir(), CACHE_DIR), "v" + DISK_CACHE_VERSION),
+                () -> LauncherAppState.getInstance(context).getIconProvider().getSystemIconState());
+        UI_HELPER_EXECUTOR.execute(() -> {
+            File[] legacyFiles = mCacheDir.getParentFile().listFiles(File::isFile);
+            if (legacyFiles != null) {
+                for (File f : legacyFiles) {
+                    f.delete();
+                }
+            }
+        });
+    }
+
+    @VisibleForTesting
+    WidgetPreviewCache(Context context, File cacheDir, Supplier<String> iconStateSupplier) {
+        mContext = context;
+        mCacheDir = cacheDir;
+        mIconStateSupplier = iconStateSupplier;
+        mMemoryCache = new LruCache<String, Entry>(MEMORY_CACHE_SIZE_BYTES) {
+            @Override
+            protected int sizeOf(String key, Entry entry) {
+                return entry.bitmap.getAllocationByteCount();
+            }
+        };
+        mPackageReceiver.registerPkgActions(context, null,
+                ACTION_PACKAGE_ADDED, ACTION_PACKAGE_CHANGED, ACTION_PACKAGE_REMOVED);
+    }
+
+    @Override
+    public void close() {
+        mPackageReceiver.unregisterReceiverSafely(mContext);
+    }
+
+    /**
+     * Returns the preview of {@param item} if it is already in memory, without checking the
+     * package version. Can be called on any thread.
+     */
+    @Nullable
+    public Bitmap peek(WidgetItem item, Size previewSize) {
+        Entry entry = mMemoryCache.get(getKey(item, previewSize));
+        return entry != null && isIconStateValid(entry) ? entry.bitmap : null;
+    }
+
+    /**
+     * Returns the preview of {@param item} from memory or from disk, or null if it needs to be
+     * generated.
+     */
+    @WorkerThread
+    @Nullable
+    public Bitmap get(WidgetItem item, Size previewSize) {
+        long version = getPackageVersion(item);
+        if (version < 0) {
+            return null;
+        }
+        String key = getKey(item, previewSize);
+        Entry entry = mMemoryCache.get(key);
+        if (entry != null && entry.version == version && isIconStateValid(entry)) {
+            return entry.bitmap;
+        }
+
+        File file = getFile(key, version);
+        if (!file.exists()) {
+            return null;
+        }
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inPreferredConfig = Bitmap.Config.HARDWARE;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), opts);
+        if (bitmap == null) {
+            file.delete();
+            return null;
+        }
+        // Keep track of the last use for the disk eviction
+        file.setLastModified(System.currentTimeMillis());
+        mMemoryCache.put(key, new Entry(version, null, bitmap));
+        return bitmap;
+    }
+
+    /**
+     * Saves a generated preview in memory, and on disk unless it was drawn from the app icon
+     */
+    @WorkerThread
+    public void put(WidgetItem item, Size previewSize, Bitmap preview,
+            @PreviewSource int source) {
+        String key = getKey(item, previewSize);
+        long version = getPackageVersion(item);
+        if (version < 0 || source == SOURCE_FAILED) {
+            // Don't keep serving a previous preview either
+            mMemoryCache.remove(key);
+            return;
+        }
+        if (source == SOURCE_APP_ICON) {
+            mMemoryCache.put(key, new Entry(version, mIconStateSupplier.get(), preview));
+            return;
+        }
+        mMemoryCache.put(key, new Entry(version, null, preview));
+
+        if (!mCacheDir.exists() && !mCacheDir.mkdirs()) {
+            return;
+        }
+        Bitmap software = preview.getConfig() == Bitmap.Config.HARDWARE
+                ? preview.copy(Bitmap.Config.ARGB_8888, false) : preview;
+        if (software == null) {
+            return;
+        }
+        File file = getFile(key, version);
+        // The file is overwritten when the same preview is saved again
+        long previousLength = file.length();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            software.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to save widget preview for " + item.componentName, e);
+            file.delete();
+            trimDiskCache(-previousLength);
+            return;
+        } finally {
+            if (software != preview) {
+                software.recycle();
+            }
+        }
+        trimDiskCache(file.length() - previousLength);
+    }
+
+    private void onPackageChanged(Intent intent) {
+        if (intent.getData() == null) {
+            return;
+        }
+        // Previews on disk are keyed by the package version and are replaced lazily, only the
+        // memory cache needs to be dropped
+        String prefix = intent.getData().getSchemeSpecificPart() + "/";
+        for (String key : mMemoryCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mMemoryCache.remove(key);
+            }
+        }
+    }
+
+    private boolean isIconStateValid(Entry entry) {
+        return entry.iconState == null || entry.iconState.equals(mIconStateSupplier.get());
+    }
+
+    private synchronized void trimDiskCache(long addedBytes) {
+        if (mDiskCacheSize < 0) {
+            File[] files = mCacheDir.listFiles();
+            if (files == null) {
+                return;
+            }
+            // The size on disk already includes the bytes just written
+            mDiskCacheSize = 0;
+            for (File f : files) {
+                mDiskCacheSize += f.length();
+            }
+        } else {
+            mDiskCacheSize += addedBytes;
+        }
+        if (mDiskCacheSize <= DISK_CACHE_SIZE_BYTES) {
+            return;
+        }
+        File[] files = mCacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files) {
+            if (mDiskCacheSize <= DISK_CACHE_SIZE_BYTES) {
+                break;
+            }
+            long length = f.length();
+            if (f.delete()) {
+                mDiskCacheSize -= length;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized long getDiskCacheSize() {
+        return mDiskCacheSize;
+    }
+
+    private String getKey(WidgetItem item, Size previewSize) {
+        int uiMode = mContext.getResources().getConfiguration().uiMode
+                & Configuration.UI_MODE_NIGHT_MASK;
+        return item.componentName.flattenToString() + "#" + item.user.hashCode()
+                + "#" + previewSize.getWidth() + "x" + previewSize.getHeight() + "#" + uiMode;
+    }
+
+    private File getFile(String key, long version) {
+        String name = UUID.nameUUIDFromBytes(
+                (key + "#" + version).getBytes(StandardCharsets.UTF_8)).toString();
+        return new File(mCacheDir, name + ".png");
+    }
+
+    private long getPackageVersion(WidgetItem item) {
+        try {
+            return mContext.getPackageManager().getPackageInfo(
+                    item.componentName.getPackageName(),
+                    PackageManager.MATCH_UNINSTALLED_PACKAGES).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return -1;
+        }
+    }
+
+    private static class Entry {
+        final long version;
+        // Icon state the preview was drawn with, null if it doesn't depend on the icon
+        @Nullable
+        final String iconState;
+        final Bitmap bitmap;
+
+        Entry(long version, @Nullable String iconState, Bitmap bitmap) {
+            this.version = version;
+            this.iconState = iconState;
+            this.bitmap = bitmap;
+        }
+    }
+}
@@ -15,15 +15,24 @@
  */
 package com.android.launcher3.widget.picker;
 
+import static com.android.launcher3.widget.util.WidgetSizes.getWidgetItemSizePx;
+
+import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
+import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.R;
+import com.android.launcher3.model.WidgetItem;
 import com.android.launcher3.recyclerview.ViewHolderBinder;
 import com.android.launcher3.util.PackageUserKey;
+import com.android.launcher3.views.ActivityContext;
+import com.android.launcher3.widget.DatabaseWidgetPreviewLoader;
 import com.android.launcher3.widget.model.WidgetsListHeaderEntry;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Binds data from {@link WidgetsListHeaderEntry} to UI elements in {@link WidgetsListHeaderHolder}.
@@ -33,12 +42,16 @@ public final class WidgetsListHeaderViewHolderBinder implements
     private final LayoutInflater mLayoutInflater;
     private final OnHeaderClickListener mOnHeaderClickListener;
     private final boolean mIsTwoPane;
+    private final DatabaseWidgetPreviewLoader mPreviewLoader;
+    // Packages whose previews were already prewarmed, so that rebinds don't load them again
+    private final Set<PackageUserKey> mPrewarmedPackages = new HashSet<>();
 
     public WidgetsListHeaderViewHolderBinder(LayoutInflater layoutInflater,
             OnHeaderClickListener onHeaderClickListener, boolean isTwoPane) {
         mLayoutInflater = layoutInflater;
         mOnHeaderClickListener = onHeaderClickListener;
         mIsTwoPane = isTwoPane;
+        mPreviewLoader = new DatabaseWidgetPreviewLoader(layoutInflater.getContext());
     }
 
     @Override
@@ -66,5 +79,24 @@ public final class WidgetsListHeaderViewHolderBinder implements
             mOnHeaderClickListener.onHeaderClicked(widgetsListHeader.isExpanded(),
                     PackageUserKey.fromPackageItemInfo(data.mPkgItem));
         });
+        prewarmPreviews(data);
+    }
+
+    /**
+     * Loads the cached previews of the widgets under a visible header, so that they can be shown
+     * without being decoded again when the header is expanded. This is only done on the first
+     * bind of each package.
+     */
+    private void prewarmPreviews(WidgetsListHeaderEntry data) {
+        if (!mPrewarmedPackages.add(PackageUserKey.fromPackageItemInfo(data.mPkgItem))) {
+            return;
+        }
+        Context context = mLayoutInflater.getContext();
+        DeviceProfile dp = ActivityContext.lookupContext(context).getDeviceProfile();
+        for (WidgetItem item : data.mWidgets) {
+            if (!item.hasPreviewLayout()) {
+                mPreviewLoader.prewarmPreview(item, getWidgetItemSizePx(context, dp, item));
+            }
+        }
     }
 }
@@ -22,28 +22,29 @@ package com.android.launcher3.util;
  * code swaps in different launchers.
  */
 public abstract class AbsGridOccupancy {
+
+    /**
+     * Returns the number of occupied cells in the provided region. The region must lie within
+     * the grid.
+     */
+    protected abstract int countOccupiedCells(int x, int y, int spanX, int spanY);
+
     /**
      * Find the first vacant cell, if there is one.
      *
      * @param vacantOut Holds the x and y coordinate of the vacant cell
+     * @param countX Horizontal size of the grid.
+     * @param countY Vertical size of the grid.
      * @param spanX Horizontal cell span.
      * @param spanY Vertical cell span.
      *
      * @return true if a vacant cell was found
      */
-    protected boolean findVacantCell(int[] vacantOut, boolean[][] cells, int countX, int countY,
-            int spanX, int spanY) {
+    protected boolean findVacantCell(int[] vacantOut, int countX, int countY, int spanX,
+            int spanY) {
         for (int y = 0; (y + spanY) <= countY; y++) {
             for (int x = 0; (x + spanX) <= countX; x++) {
-                boolean available = !cells[x][y];
-                out:
-                for (int i = x; i < x + spanX; i++) {
-                    for (int j = y; j < y + spanY; j++) {
-                        available = available && !cells[i][j];
-                        if (!available) break out;
-                    }
-                }
-                if (available) {
+                if (countOccupiedCells(x, y, spanX, spanY) == 0) {
                     vacantOut[0] = x;
                     vacantOut[1] = y;
                     return true;
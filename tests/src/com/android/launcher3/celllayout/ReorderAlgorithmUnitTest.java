@@ -23,6 +23,7 @@ import static org.junit.Assert.assertTrue;
 import android.content.Context;
 import android.graphics.Point;
 import android.graphics.Rect;
+import android.util.Log;
 import android.view.View;
 
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -32,6 +33,8 @@ import com.android.launcher3.CellLayout;
 import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.util.ActivityContextWrapper;
+import com.android.launcher3.util.CellAndSpan;
+import com.android.launcher3.util.GridOccupancy;
 import com.android.launcher3.views.DoubleShadowBubbleTextView;
 
 import org.junit.After;
@@ -50,6 +53,16 @@ import java.util.Random;
 @SmallTest
 @RunWith(AndroidJUnit4.class)
 public class ReorderAlgorithmUnitTest {
+    private static final String TAG = "ReorderAlgorithmUnitTest";
+
+    // Large custom grid used to benchmark the reorder solver
+    private static final int BENCHMARK_GRID_WIDTH = 10;
+    private static final int BENCHMARK_GRID_HEIGHT = 12;
+    private static final int BENCHMARK_ITERATIONS = 50;
+
+    private static final int CACHE_TEST_GRID_SIZE = 6;
+    private static final int CACHE_TEST_ITERATIONS = 30;
+
     private Context mApplicationContext;
 
     private int mPrevNumColumns, mPrevNumRows;
@@ -72,6 +85,115 @@ public class ReorderAlgorithmUnitTest {
                 failingCases.size());
     }
 
+    /**
+     * Measures the time needed to calculate a reorder on a large, densely populated grid, and
+     * checks that the solutions found place every item inside the grid without overlaps. The
+     * boards are generated from a fixed seed so that the numbers are comparable across runs.
+     */
+    @Test
+    public void benchmarkReorderOnLargeGrid() {
+        mApplicationContext = new ActivityContextWrapper(getApplicationContext());
+        Random random = new Random(BENCHMARK_GRID_WIDTH * 31 + BENCHMARK_GRID_HEIGHT);
+        long[] durations = new long[BENCHMARK_ITERATIONS];
+        int solvedCount = 0;
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            int spanX = getRandom(random, 1, 3);
+            int spanY = getRandom(random, 1, 3);
+            int x = getRandom(random, 0, BENCHMARK_GRID_WIDTH - spanX);
+            int y = getRandom(random, 0, BENCHMARK_GRID_HEIGHT - spanY);
+            CellLayoutBoard board = generateBoard(random,
+                    new CellLayoutBoard(BENCHMARK_GRID_WIDTH, BENCHMARK_GRID_HEIGHT),
+                    new Rect(0, 0, BENCHMARK_GRID_WIDTH, BENCHMARK_GRID_HEIGHT), spanX * spanY);
+            CellLayout cl = createCellLayout(board);
+
+            int[] pixelXY = new int[2];
+            cl.regionToCenterPoint(x, y, spanX, spanY, pixelXY);
+            long start = System.nanoTime();
+            CellLayout.ItemConfiguration solution = cl.createReorderAlgorithm().calculateReorder(
+                    pixelXY[0], pixelXY[1], 1, 1, spanX, spanY, null);
+            durations[i] = System.nanoTime() - start;
+
+            if (solution != null && solution.isSolution) {
+                assertNoOverlap("Invalid solution for case " + i, solution,
+                        BENCHMARK_GRID_WIDTH, BENCHMARK_GRID_HEIGHT);
+                solvedCount++;
+            }
+        }
+        assertTrue("No reorder solution was found", solvedCount > 0);
+        Arrays.sort(durations);
+        Log.d(TAG, "Reorder on " + BENCHMARK_GRID_WIDTH + "x" + BENCHMARK_GRID_HEIGHT
+                + " grid: median=" + durations[BENCHMARK_ITERATIONS / 2] / 1000 + "us"
+                + ", p90=" + durations[BENCHMARK_ITERATIONS * 9 / 10] / 1000 + "us"
+                + ", max=" + durations[BENCHMARK_ITERATIONS - 1] / 1000 + "us");
+    }
+
+    /**
+     * Solutions restored from the reorder cache must match the ones computed from scratch,
+     * including the direction the push search ended with.
+     */
+    @Test
+    public void cachedReorderMatchesUncachedReorder() {
+        mApplicationContext = new ActivityContextWrapper(getApplicationContext());
+        Random random = new Random(CACHE_TEST_GRID_SIZE);
+        for (int i = 0; i < CACHE_TEST_ITERATIONS; i++) {
+            int spanX = getRandom(random, 1, 3);
+            int spanY = getRandom(random, 1, 3);
+            int x = getRandom(random, 0, CACHE_TEST_GRID_SIZE - spanX);
+            int y = getRandom(random, 0, CACHE_TEST_GRID_SIZE - spanY);
+            CellLayoutBoard board = generateBoard(random,
+                    new CellLayoutBoard(CACHE_TEST_GRID_SIZE, CACHE_TEST_GRID_SIZE),
+                    new Rect(0, 0, CACHE_TEST_GRID_SIZE, CACHE_TEST_GRID_SIZE), spanX * spanY);
+            CellLayout cl = createCellLayout(board);
+            int[] pixelXY = new int[2];
+            cl.regionToCenterPoint(x, y, spanX, spanY, pixelXY);
+
+            ReorderAlgorithm algorithm = cl.createReorderAlgorithm();
+            String uncached = describeSolution(cl, algorithm.calculateReorder(pixelXY[0],
+                    pixelXY[1], 1, 1, spanX, spanY, null));
+            // The layout didn't change, so this one is restored from the cache
+            String cached = describeSolution(cl, algorithm.calculateReorder(pixelXY[0],
+                    pixelXY[1], 1, 1, spanX, spanY, null));
+            String fresh = describeSolution(cl, cl.createReorderAlgorithm().calculateReorder(
+                    pixelXY[0], pixelXY[1], 1, 1, spanX, spanY, null));
+
+            assertEquals("Cached solution differs for case " + i, uncached, cached);
+            assertEquals("Solution differs from a new algorithm for case " + i, fresh, cached);
+        }
+    }
+
+    /**
+     * Asserts that the dropped item and all the items moved by the solution fit in the grid
+     * without overlapping each other.
+     */
+    private static void assertNoOverlap(String message, CellLayout.ItemConfiguration solution,
+            int width, int height) {
+        GridOccupancy occupancy = new GridOccupancy(width, height);
+        assertTrue(message, occupancy.isRegionVacant(solution.cellX, solution.cellY,
+                solution.spanX, solution.spanY));
+        occupancy.markCells(solution, true);
+        for (CellAndSpan cell : solution.map.values()) {
+            assertTrue(message + ": " + cell + " overlaps", occupancy.isRegionVacant(
+                    cell.cellX, cell.cellY, cell.spanX, cell.spanY));
+            occupancy.markCells(cell, true);
+        }
+    }
+
+    private static String describeSolution(CellLayout cl,
+            CellLayout.ItemConfiguration solution) {
+        if (solution == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder()
+                .append(solution.isSolution)
+                .append(' ').append(new CellAndSpan(solution.cellX, solution.cellY,
+                        solution.spanX, solution.spanY))
+                .append(" direction=").append(Arrays.toString(cl.mDirectionVector));
+        for (int i = 0; i < cl.getShortcutsAndWidgets().getChildCount(); i++) {
+            sb.append(' ').append(solution.map.get(cl.getShortcutsAndWidgets().getChildAt(i)));
+        }
+        return sb.toString();
+    }
+
     private void addViewInCellLayout(CellLayout cellLayout, int cellX, int cellY, int spanX,
             int spanY, boolean isWidget) {
         View cell = isWidget ? new View(mApplicationContext) : new DoubleShadowBubbleTextView(
@@ -107,6 +229,21 @@ public class ReorderAlgorithmUnitTest {
 
     public CellLayout.ItemConfiguration solve(CellLayoutBoard board, int x, int y, int spanX,
             int spanY, int minSpanX, int minSpanY) {
+        CellLayout cl = createCellLayout(board);
+
+        int[] testCaseXYinPixels = new int[2];
+        cl.regionToCenterPoint(x, y, spanX, spanY, testCaseXYinPixels);
+        CellLayout.ItemConfiguration solution = cl.createReorderAlgorithm().calculateReorder(
+                testCaseXYinPixels[0], testCaseXYinPixels[1], minSpanX, minSpanY, spanX, spanY,
+                null);
+        if (solution == null) {
+            solution = new CellLayout.ItemConfiguration();
+            solution.isSolution = false;
+        }
+        return solution;
+    }
+
+    private CellLayout createCellLayout(CellLayoutBoard board) {
         CellLayout cl = createCellLayout(board.getWidth(), board.getHeight());
 
         // The views have to be sorted or the result can vary
@@ -120,17 +257,7 @@ public class ReorderAlgorithmUnitTest {
                         .thenComparing(CellLayoutBoard.WidgetRect::getCellY))
                 .forEach(widget -> addViewInCellLayout(cl, widget.getCellX(), widget.getCellY(),
                         widget.getSpanX(), widget.getSpanY(), true));
-
-        int[] testCaseXYinPixels = new int[2];
-        cl.regionToCenterPoint(x, y, spanX, spanY, testCaseXYinPixels);
-        CellLayout.ItemConfiguration solution = cl.createReorderAlgorithm().calculateReorder(
-                testCaseXYinPixels[0], testCaseXYinPixels[1], minSpanX, minSpanY, spanX, spanY,
-                null);
-        if (solution == null) {
-            solution = new CellLayout.ItemConfiguration();
-            solution.isSolution = false;
-        }
-        return solution;
+        return cl;
     }
 
     public CellLayoutBoard boardFromSolution(CellLayout.ItemConfiguration solution, int width,
@@ -179,22 +306,22 @@ public class ReorderAlgorithmUnitTest {
     /**
      * Utility function used to generate all the test cases
      */
-    private ReorderAlgorithmUnitTestCase generateRandomTestCase() {
+    private ReorderAlgorithmUnitTestCase generateRandomTestCase(Random random) {
         ReorderAlgorithmUnitTestCase testCase = new ReorderAlgorithmUnitTestCase();
 
-        int width = getRandom(3, 8);
-        int height = getRandom(3, 8);
+        int width = getRandom(random, 3, 8);
+        int height = getRandom(random, 3, 8);
 
-        int targetWidth = getRandom(1, width - 2);
-        int targetHeight = getRandom(1, height - 2);
+        int targetWidth = getRandom(random, 1, width - 2);
+        int targetHeight = getRandom(random, 1, height - 2);
 
-        int minTargetWidth = getRandom(1, targetWidth);
-        int minTargetHeight = getRandom(1, targetHeight);
+        int minTargetWidth = getRandom(random, 1, targetWidth);
+        int minTargetHeight = getRandom(random, 1, targetHeight);
 
-        int x = getRandom(0, width - targetWidth);
-        int y = getRandom(0, height - targetHeight);
+        int x = getRandom(random, 0, width - targetWidth);
+        int y = getRandom(random, 0, height - targetHeight);
 
-        CellLayoutBoard board = generateBoard(new CellLayoutBoard(width, height),
+        CellLayoutBoard board = generateBoard(random, new CellLayoutBoard(width, height),
                 new Rect(0, 0, width, height), targetWidth * targetHeight);
 
         CellLayout.ItemConfiguration solution = solve(board, x, y, targetWidth, targetHeight,
@@ -219,20 +346,19 @@ public class ReorderAlgorithmUnitTest {
         return testCase;
     }
 
-    private int getRandom(int start, int end) {
-        int random = end == 0 ? 0 : new Random().nextInt(end);
-        return start + random;
+    private static int getRandom(Random random, int start, int end) {
+        return start + (end == 0 ? 0 : random.nextInt(end));
     }
 
-    private CellLayoutBoard generateBoard(CellLayoutBoard board, Rect area,
+    private CellLayoutBoard generateBoard(Random random, CellLayoutBoard board, Rect area,
             int emptySpaces) {
         if (area.height() * area.width() <= 0) return board;
 
-        int width = getRandom(1, area.width() - 1);
-        int height = getRandom(1, area.height() - 1);
+        int width = getRandom(random, 1, area.width() - 1);
+        int height = getRandom(random, 1, area.height() - 1);
 
-        int x = area.left + getRandom(0, area.width() - width);
-        int y = area.top + getRandom(0, area.height() - height);
+        int x = area.left + getRandom(random, 0, area.width() - width);
+        int y = area.top + getRandom(random, 0, area.height() - height);
 
         if (emptySpaces > 0) {
             emptySpaces -= width * height;
@@ -242,13 +368,13 @@ public class ReorderAlgorithmUnitTest {
             board.addIcon(x, y);
         }
 
-        generateBoard(board,
+        generateBoard(random, board,
                 new Rect(area.left, area.top, area.right, y), emptySpaces);
-        generateBoard(board,
+        generateBoard(random, board,
                 new Rect(area.left, y, x, area.bottom), emptySpaces);
-        generateBoard(board,
+        generateBoard(random, board,
                 new Rect(x, y + height, area.right, area.bottom), emptySpaces);
-        generateBoard(board,
+        generateBoard(random, board,
                 new Rect(x + width, y, area.right, y + height), emptySpaces);
 
         return board;
@@ -15,6 +15,7 @@
  */
 package com.android.launcher3.model
 
+import android.content.ComponentName
 import android.content.ContentValues
 import android.content.Context
 import android.content.Intent
@@ -22,6 +23,8 @@ import android.database.Cursor
 import android.database.sqlite.SQLiteDatabase
 import android.graphics.Point
 import android.os.Process
+import android.os.SystemClock
+import android.util.Log
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.SmallTest
 import com.android.launcher3.InvariantDeviceProfile
@@ -38,6 +41,7 @@ import org.junit.After
 import org.junit.Before
 import org.junit.Test
 import org.junit.runner.RunWith
+import java.util.Random
 
 /** Unit tests for [GridSizeMigrationUtil] */
 @SmallTest
@@ -791,6 +795,102 @@ class GridSizeMigrationUtilTest {
         assertThat(locMap[testPackage5]).isEqualTo(0)
     }
 
+    /**
+     * Migrates a synthetic layout of more than 500 items, with folders, to a smaller grid and
+     * checks that every item is placed exactly once. The layout is generated from a fixed seed so
+     * that the logged migration time can be compared across runs.
+     */
+    @Test
+    @Throws(Exception::class)
+    fun migrateLargeLayout() {
+        enableNewMigrationLogic("5,5")
+        val packages = validPackages.toList()
+        val random = Random(BENCHMARK_SEED)
+        val folderIndices = HashSet<Int>()
+        while (folderIndices.size < BENCHMARK_FOLDER_COUNT) {
+            folderIndices.add(random.nextInt(BENCHMARK_ITEM_COUNT))
+        }
+
+        // Src grid is 5x5, filled screen by screen
+        var nextId = 1
+        for (i in 0 until BENCHMARK_ITEM_COUNT) {
+            val screen = i / 25
+            val x = i % 5
+            val y = (i / 5) % 5
+            if (folderIndices.contains(i)) {
+                val folderId = nextId++
+                addComponentItem(ITEM_TYPE_FOLDER, screen, CONTAINER_DESKTOP, x, y, null, folderId)
+                for (j in 0 until BENCHMARK_FOLDER_SIZE) {
+                    addComponentItem(
+                        ITEM_TYPE_APPLICATION,
+                        0,
+                        folderId,
+                        j,
+                        0,
+                        ComponentName(packages[random.nextInt(packages.size)], "Folder${i}_$j"),
+                        nextId++
+                    )
+                }
+            } else {
+                addComponentItem(
+                    ITEM_TYPE_APPLICATION,
+                    screen,
+                    CONTAINER_DESKTOP,
+                    x,
+                    y,
+                    ComponentName(packages[random.nextInt(packages.size)], "Activity$i"),
+                    nextId++
+                )
+            }
+        }
+
+        idp.numDatabaseHotseatIcons = 4
+        idp.numColumns = 4
+        idp.numRows = 4
+        val srcReader = DbReader(db, TMP_TABLE, context, validPackages)
+        val destReader = DbReader(db, TABLE_NAME, context, validPackages)
+        val start = SystemClock.elapsedRealtime()
+        GridSizeMigrationUtil.migrate(
+            dbHelper,
+            srcReader,
+            destReader,
+            idp.numDatabaseHotseatIcons,
+            Point(idp.numColumns, idp.numRows),
+            DeviceGridState(context),
+            DeviceGridState(idp)
+        )
+        Log.d(
+            TAG,
+            "Migrated $BENCHMARK_ITEM_COUNT items in ${SystemClock.elapsedRealtime() - start}ms"
+        )
+
+        val c =
+            db.query(
+                TABLE_NAME,
+                arrayOf(SCREEN, CELLX, CELLY),
+                "container=$CONTAINER_DESKTOP",
+                null,
+                null,
+                null,
+                null
+            )
+                ?: throw IllegalStateException()
+        val cells = HashSet<Triple<Int, Int, Int>>()
+        while (c.moveToNext()) {
+            assertThat(c.getInt(1)).isLessThan(idp.numColumns)
+            assertThat(c.getInt(2)).isLessThan(idp.numRows)
+            cells.add(Triple(c.getInt(0), c.getInt(1), c.getInt(2)))
+        }
+        assertThat(c.count).isEqualTo(BENCHMARK_ITEM_COUNT)
+        c.close()
+        // No two items share a cell
+        assertThat(cells.size).isEqualTo(BENCHMARK_ITEM_COUNT)
+
+        val folderItems = db.query(TABLE_NAME, arrayOf(_ID), "container>0", null, null, null, null)
+        assertThat(folderItems.count).isEqualTo(BENCHMARK_FOLDER_COUNT * BENCHMARK_FOLDER_SIZE)
+        folderItems.close()
+    }
+
     private fun enableNewMigrationLogic(srcGridSize: String) {
         LauncherPrefs.get(context).putSync(WORKSPACE_SIZE.to(srcGridSize))
     }
@@ -838,4 +938,36 @@ class GridSizeMigrationUtilTest {
         db.insert(tableName, null, values)
         return id
     }
+
+    private fun addComponentItem(
+        type: Int,
+        screen: Int,
+        container: Int,
+        x: Int,
+        y: Int,
+        component: ComponentName?,
+        id: Int
+    ) {
+        val values = ContentValues()
+        values.put(_ID, id)
+        values.put(CONTAINER, container)
+        values.put(SCREEN, screen)
+        values.put(CELLX, x)
+        values.put(CELLY, y)
+        values.put(SPANX, 1)
+        values.put(SPANY, 1)
+        values.put(ITEM_TYPE, type)
+        if (component != null) {
+            values.put(INTENT, Intent(Intent.ACTION_MAIN).setComponent(component).toUri(0))
+        }
+        db.insert(TMP_TABLE, null, values)
+    }
+
+    companion object {
+        private const val TAG = "GridSizeMigrationUtilTest"
+        private const val BENCHMARK_SEED = 42L
+        private const val BENCHMARK_ITEM_COUNT = 540
+        private const val BENCHMARK_FOLDER_COUNT = 20
+        private const val BENCHMARK_FOLDER_SIZE = 4
+    }
 }
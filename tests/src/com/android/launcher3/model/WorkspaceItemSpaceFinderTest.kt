@@ -18,6 +18,7 @@ package com.android.launcher3.model
 import android.graphics.Rect
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.SmallTest
+import com.android.launcher3.LauncherSettings.Favorites.CONTAINER_DESKTOP
 import com.google.common.truth.Truth.assertThat
 import org.junit.After
 import org.junit.Before
@@ -176,4 +177,69 @@ class WorkspaceItemSpaceFinderTest : AbstractWorkspaceModelTest() {
         assertThat(spaceFound.screenId).isEqualTo(3)
         assertRegionVacant(spaceFound, 3, 1)
     }
+
+    @Test
+    fun repeatedFindsWithoutAdds_returnDistinctSpaces() {
+        setupWorkspacesWithSpaces(
+            // 3x2 space on screen 0, but it should be skipped
+            screen0 = listOf(Rect(2, 0, 5, 2)),
+            screen1 = listOf(Rect(0, 0, 2, 1)), // 2x1 space
+        )
+
+        val first = findSpace(1, 1)
+        val second = findSpace(1, 1)
+
+        assertThat(first).isNotEqualTo(second)
+        assertThat(first.screenId).isEqualTo(1)
+        assertThat(second.screenId).isEqualTo(1)
+    }
+
+    @Test
+    fun spaceTakenByOtherItem_afterFind_isNotReturned() {
+        setupWorkspacesWithSpaces(
+            // 3x2 space on screen 0, but it should be skipped
+            screen0 = listOf(Rect(2, 0, 5, 2)),
+            screen1 = listOf(Rect(0, 0, 2, 1)), // 2x1 space
+        )
+        val first = findSpace(1, 1)
+        addItemAt(first)
+
+        // Another change of the model takes the remaining space of the screen
+        addItemAt(NewItemSpace(1, if (first.cellX == 0) 1 else 0, 0))
+        val second = findSpace(1, 1)
+
+        assertThat(mNewScreens.contains(second.screenId)).isTrue()
+    }
+
+    @Test
+    fun spaceFreedByRemovedItem_afterFind_isReturned() {
+        setupWorkspacesWithSpaces(
+            // 3x2 space on screen 0, but it should be skipped
+            screen0 = listOf(Rect(2, 0, 5, 2)),
+            screen1 = listOf(Rect(0, 0, 1, 1)), // 1x1 space
+        )
+        addItemAt(findSpace(1, 1))
+
+        val removed =
+            mModelHelper.bgDataModel.itemsIdMap.first {
+                it.container == CONTAINER_DESKTOP && it.screenId == 1 && it.cellX == 4 &&
+                    it.cellY == 4
+            }
+        mModelHelper.bgDataModel.removeItem(mTargetContext, removed)
+        val spaceFound = findSpace(1, 1)
+
+        assertThat(spaceFound).isEqualTo(NewItemSpace(1, 4, 4))
+    }
+
+    private fun addItemAt(space: NewItemSpace) {
+        val item =
+            getNewItem().apply {
+                id = mModelHelper.bgDataModel.itemsIdMap.maxOf { it.id } + 1
+                container = CONTAINER_DESKTOP
+                screenId = space.screenId
+                cellX = space.cellX
+                cellY = space.cellY
+            }
+        mModelHelper.bgDataModel.addItem(mTargetContext, item, true)
+    }
 }
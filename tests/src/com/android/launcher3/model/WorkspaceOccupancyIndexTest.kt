@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model
+
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.SmallTest
+import com.android.launcher3.LauncherSettings.Favorites.CONTAINER_DESKTOP
+import com.android.launcher3.LauncherSettings.Favorites.CONTAINER_HOTSEAT
+import com.android.launcher3.model.data.ItemInfo
+import com.android.launcher3.model.data.WorkspaceItemInfo
+import com.android.launcher3.util.GridOccupancy
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Tests for [WorkspaceOccupancyIndex] */
+@SmallTest
+@RunWith(AndroidJUnit4::class)
+class WorkspaceOccupancyIndexTest {
+
+    private val index = WorkspaceOccupancyIndex()
+
+    private fun item(id: Int, screenId: Int, cellX: Int, cellY: Int, spanX: Int = 1, spanY: Int = 1) =
+        WorkspaceItemInfo().apply {
+            this.id = id
+            container = CONTAINER_DESKTOP
+            this.screenId = screenId
+            this.cellX = cellX
+            this.cellY = cellY
+            this.spanX = spanX
+            this.spanY = spanY
+        }
+
+    private fun occupancy(screenId: Int) =
+        GridOccupancy(COUNT_X, COUNT_Y).also { index.copyScreenOccupancy(screenId, it) }
+
+    @Test
+    fun addItem_marksItsCells() {
+        index.onItemAdded(item(1, screenId = 0, cellX = 1, cellY = 2, spanX = 2, spanY = 2))
+
+        val occupancy = occupancy(0)
+
+        assertThat(occupancy.isRegionVacant(1, 2, 2, 2)).isFalse()
+        assertThat(occupancy.isOccupied(0, 2)).isFalse()
+        assertThat(occupancy.isOccupied(3, 3)).isFalse()
+        assertThat(occupancy(1).isRegionVacant(0, 0, COUNT_X, COUNT_Y)).isTrue()
+    }
+
+    @Test
+    fun addItem_afterOccupancyRead_updatesCounts() {
+        occupancy(0)
+
+        index.onItemAdded(item(1, screenId = 0, cellX = 3, cellY = 3))
+
+        assertThat(occupancy(0).isOccupied(3, 3)).isTrue()
+    }
+
+    @Test
+    fun moveItem_freesOldCellsAndMarksNewOnes() {
+        val item = item(1, screenId = 0, cellX = 0, cellY = 0, spanX = 2)
+        index.onItemAdded(item)
+        occupancy(0)
+
+        item.screenId = 1
+        item.cellX = 2
+        item.cellY = 4
+        index.onItemUpdated(item)
+
+        assertThat(occupancy(0).isRegionVacant(0, 0, COUNT_X, COUNT_Y)).isTrue()
+        assertThat(occupancy(1).isRegionVacant(2, 4, 2, 1)).isFalse()
+    }
+
+    @Test
+    fun moveItemOutOfDesktop_freesItsCells() {
+        val item = item(1, screenId = 0, cellX = 0, cellY = 0)
+        index.onItemAdded(item)
+
+        item.container = CONTAINER_HOTSEAT
+        index.onItemUpdated(item)
+
+        assertThat(occupancy(0).isOccupied(0, 0)).isFalse()
+    }
+
+    @Test
+    fun removeItem_keepsCellsUsedByOverlappingItems() {
+        val first = item(1, screenId = 0, cellX = 0, cellY = 0, spanX = 2, spanY = 2)
+        index.onItemAdded(first)
+        index.onItemAdded(item(2, screenId = 0, cellX = 1, cellY = 1))
+
+        index.onItemRemoved(first)
+
+        val occupancy = occupancy(0)
+        assertThat(occupancy.isOccupied(0, 0)).isFalse()
+        assertThat(occupancy.isOccupied(1, 1)).isTrue()
+    }
+
+    @Test
+    fun repeatedAdds_onlyChangeModificationCountWhenCellsChange() {
+        val item = item(1, screenId = 0, cellX = 0, cellY = 0)
+        index.onItemAdded(item)
+        val count = index.modificationCount
+
+        index.onItemAdded(item)
+        index.onItemUpdated(item)
+        assertThat(index.modificationCount).isEqualTo(count)
+
+        index.onItemAdded(item(2, screenId = 0, cellX = 1, cellY = 0))
+        assertThat(index.modificationCount).isEqualTo(count + 1)
+    }
+
+    @Test
+    fun removeUnknownItem_doesNotChangeModificationCount() {
+        val count = index.modificationCount
+
+        index.onItemRemoved(ItemInfo().apply { id = 5 })
+
+        assertThat(index.modificationCount).isEqualTo(count)
+    }
+
+    companion object {
+        private const val COUNT_X = 5
+        private const val COUNT_Y = 5
+    }
+}
@@ -55,13 +55,92 @@ public class GridOccupancyTest {
         assertFalse(grid.isRegionVacant(0, 0, 2, 1));
     }
 
+    @Test
+    public void testIsRegionVacantWithBlock() {
+        GridOccupancy grid = initGrid(3,
+                1, 0, 0, 0,
+                0, 0, 1, 0,
+                0, 0, 0, 0
+        );
+        GridOccupancy block = initGrid(2,
+                0, 1,
+                1, 1
+        );
+
+        assertTrue(grid.isRegionVacant(0, 0, block));
+        assertTrue(grid.isRegionVacant(2, 1, block));
+
+        assertFalse(grid.isRegionVacant(1, 0, block));
+        assertFalse(grid.isRegionVacant(3, 0, block));
+    }
+
+    @Test
+    public void testCountOccupiedCells() {
+        GridOccupancy grid = initGrid(4,
+                1, 1, 1, 0, 0,
+                0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0,
+                1, 1, 0, 0, 0
+        );
+
+        assertEquals(7, grid.countOccupiedCells(0, 0, 5, 4));
+        assertEquals(3, grid.countOccupiedCells(2, 0, 2, 2));
+        assertEquals(0, grid.countOccupiedCells(2, 2, 3, 2));
+
+        grid.markCells(4, 3, 1, 1, true);
+        assertEquals(1, grid.countOccupiedCells(2, 2, 3, 2));
+    }
+
+    @Test
+    public void testWideGrid() {
+        GridOccupancy grid = new GridOccupancy(130, 3);
+        grid.markCells(60, 1, 10, 1, true);
+
+        assertTrue(grid.isOccupied(63, 1));
+        assertTrue(grid.isOccupied(64, 1));
+        assertFalse(grid.isOccupied(70, 1));
+        assertFalse(grid.isRegionVacant(50, 0, 15, 2));
+        assertTrue(grid.isRegionVacant(70, 0, 60, 3));
+        assertEquals(10, grid.countOccupiedCells(0, 0, 130, 3));
+
+        int[] vacant = new int[2];
+        assertTrue(grid.findVacantCell(vacant, 65, 1));
+        assertEquals(vacant[0], 0);
+        assertEquals(vacant[1], 0);
+        assertTrue(grid.findVacantCell(vacant, 60, 3));
+        assertEquals(vacant[0], 0);
+        assertEquals(vacant[1], 0);
+        assertTrue(grid.findVacantCell(vacant, 61, 1));
+        assertEquals(vacant[0], 0);
+        assertEquals(vacant[1], 0);
+        assertFalse(grid.findVacantCell(vacant, 61, 2));
+    }
+
+    @Test
+    public void testCopyAndRestore() {
+        GridOccupancy grid = initGrid(2,
+                1, 0, 1,
+                0, 1, 0
+        );
+        GridOccupancy copy = new GridOccupancy(3, 2);
+        grid.copyTo(copy);
+        assertEquals(grid.toString(), copy.toString());
+
+        long[] snapshot = grid.snapshot(null);
+        grid.clear();
+        assertTrue(grid.isRegionVacant(0, 0, 3, 2));
+        grid.restore(snapshot);
+        assertEquals(copy.toString(), grid.toString());
+        assertEquals(3, grid.countOccupiedCells(0, 0, 3, 2));
+    }
+
     private GridOccupancy initGrid(int rows, int... cells) {
         int cols = cells.length / rows;
         int i = 0;
         GridOccupancy grid = new GridOccupancy(cols, rows);
         for (int y = 0; y < rows; y++) {
             for (int x = 0; x < cols; x++) {
-                grid.cells[x][y] = cells[i] != 0;
+                grid.setOccupied(x, y, cells[i] != 0);
                 i++;
             }
         }
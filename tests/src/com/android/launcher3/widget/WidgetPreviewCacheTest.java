@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.widget.WidgetPreviewCache.SOURCE_APP_ICON;
+import static com.android.launcher3.widget.WidgetPreviewCache.SOURCE_FAILED;
+import static com.android.launcher3.widget.WidgetPreviewCache.SOURCE_PREVIEW;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.appwidget.AppWidgetProviderInfo;
+import android.content.ComponentName;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.Size;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.InvariantDeviceProfile;
+import com.android.launcher3.icons.IconCache;
+import com.android.launcher3.model.WidgetItem;
+import com.android.launcher3.util.ActivityContextWrapper;
+import com.android.launcher3.util.WidgetUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public final class WidgetPreviewCacheTest {
+
+    private static final Size PREVIEW_SIZE = new Size(20, 10);
+
+    private Context mContext;
+    private File mCacheDir;
+    private String mIconState = "icons1";
+    private WidgetPreviewCache mCache;
+    private WidgetItem mItem;
+
+    @Mock
+    private IconCache mIconCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = new ActivityContextWrapper(getApplicationContext());
+        mCacheDir = new File(mContext.getCacheDir(), "widget_preview_cache_test");
+        mCache = newCache();
+
+        InvariantDeviceProfile profile = new InvariantDeviceProfile();
+        profile.numRows = 5;
+        profile.numColumns = 5;
+        // The provider of the test package, so that the package version can be read
+        AppWidgetProviderInfo widgetInfo = WidgetUtils.createAppWidgetProviderInfo(
+                ComponentName.createRelative(mContext.getPackageName(), ".SampleWidget"));
+        mItem = new WidgetItem(LauncherAppWidgetProviderInfo.fromProviderInfo(mContext, widgetInfo),
+                profile, mIconCache, mContext);
+    }
+
+    @After
+    public void tearDown() {
+        mCache.close();
+        File[] files = mCacheDir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        mCacheDir.delete();
+    }
+
+    private WidgetPreviewCache newCache() {
+        return new WidgetPreviewCache(mContext, mCacheDir, () -> mIconState);
+    }
+
+    private static Bitmap newPreview() {
+        Bitmap bitmap = Bitmap.createBitmap(
+                PREVIEW_SIZE.getWidth(), PREVIEW_SIZE.getHeight(), Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.RED);
+        return bitmap;
+    }
+
+    @Test
+    public void putPreview_isReturnedFromMemory() {
+        Bitmap preview = newPreview();
+
+        mCache.put(mItem, PREVIEW_SIZE, preview, SOURCE_PREVIEW);
+
+        assertThat(mCache.peek(mItem, PREVIEW_SIZE)).isSameInstanceAs(preview);
+        assertThat(mCache.get(mItem, PREVIEW_SIZE)).isSameInstanceAs(preview);
+        assertThat(mCache.get(mItem, new Size(10, 10))).isNull();
+    }
+
+    @Test
+    public void putPreview_isReturnedFromDiskByNewCache() {
+        mCache.put(mItem, PREVIEW_SIZE, newPreview(), SOURCE_PREVIEW);
+
+        WidgetPreviewCache cache = newCache();
+        try {
+            Bitmap preview = cache.get(mItem, PREVIEW_SIZE);
+            assertThat(preview).isNotNull();
+            assertThat(preview.getWidth()).isEqualTo(PREVIEW_SIZE.getWidth());
+            assertThat(preview.getHeight()).isEqualTo(PREVIEW_SIZE.getHeight());
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void putAppIconPreview_isInvalidatedByIconStateChange() {
+        Bitmap preview = newPreview();
+        mCache.put(mItem, PREVIEW_SIZE, preview, SOURCE_APP_ICON);
+        assertThat(mCache.get(mItem, PREVIEW_SIZE)).isSameInstanceAs(preview);
+
+        mIconState = "icons2";
+
+        assertThat(mCache.peek(mItem, PREVIEW_SIZE)).isNull();
+        assertThat(mCache.get(mItem, PREVIEW_SIZE)).isNull();
+    }
+
+    @Test
+    public void putAppIconPreview_isNotSavedToDisk() {
+        mCache.put(mItem, PREVIEW_SIZE, newPreview(), SOURCE_APP_ICON);
+
+        WidgetPreviewCache cache = newCache();
+        try {
+            assertThat(cache.get(mItem, PREVIEW_SIZE)).isNull();
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void putFailedPreview_isNotCached() {
+        mCache.put(mItem, PREVIEW_SIZE, newPreview(), SOURCE_PREVIEW);
+
+        mCache.put(mItem, PREVIEW_SIZE, newPreview(), SOURCE_FAILED);
+
+        assertThat(mCache.peek(mItem, PREVIEW_SIZE)).isNull();
+        WidgetPreviewCache cache = newCache();
+        try {
+            // The preview saved before the failure can still be used after a restart
+            assertThat(cache.get(mItem, PREVIEW_SIZE)).isNotNull();
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void onlyFailedPreview_isNotCachedOnDisk() {
+        mCache.put(mItem, PREVIEW_SIZE, newPreview(), SOURCE_FAILED);
+
+        assertThat(mCache.get(mItem, PREVIEW_SIZE)).isNull();
+        WidgetPreviewCache cache = newCache();
+        try {
+            assertThat(cache.get(mItem, PREVIEW_SIZE)).isNull();
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void putPreviewTwice_countsOverwrittenFileOnce() {
+        mCache.put(mItem, PREVIEW_SIZE, newPreview(), SOURCE_PREVIEW);
+        mCache.put(mItem, PREVIEW_SIZE, newPreview(), SOURCE_PREVIEW);
+
+        long sizeOnDisk = 0;
+        for (File f : mCacheDir.listFiles()) {
+            sizeOnDisk += f.length();
+        }
+        assertThat(sizeOnDisk).isGreaterThan(0L);
+        assertThat(mCache.getDiskCacheSize()).isEqualTo(sizeOnDisk);
+    }
+}